@@ -22,19 +22,24 @@ import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateFailed;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateFinished;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateRunning;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateStarted;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEvents;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryType;
 import com.io7m.coffeepick.runtime.RuntimeBuild;
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import com.io7m.coffeepick.runtime.RuntimeHash;
 import com.io7m.coffeepick.runtime.RuntimeRepositoryBranding;
 import com.io7m.coffeepick.runtime.RuntimeRepositoryDescription;
 import com.io7m.coffeepick.runtime.RuntimeVersion;
 import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabase;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseConfigurations;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseTransaction;
 import com.io7m.junreachable.UnreachableCodeException;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 import net.adoptopenjdk.v3.api.AOV3Architecture;
 import net.adoptopenjdk.v3.api.AOV3ClientType;
 import net.adoptopenjdk.v3.api.AOV3Error;
@@ -75,7 +80,7 @@ public final class AOJRepository implements RuntimeRepositoryType
 
   private final AOV3ClientType client;
   private final RuntimeRepositoryContextType context;
-  private final PublishSubject<RuntimeRepositoryEventType> events;
+  private final Subject<RuntimeRepositoryEventType> events;
   private final RuntimeRepositoryProviderType provider;
   private final RuntimeDescriptionDatabase database;
   private volatile RuntimeRepositoryDescription description;
@@ -83,7 +88,7 @@ public final class AOJRepository implements RuntimeRepositoryType
   private AOJRepository(
     final AOV3ClientType inClient,
     final RuntimeRepositoryContextType inContext,
-    final PublishSubject<RuntimeRepositoryEventType> inEvents,
+    final Subject<RuntimeRepositoryEventType> inEvents,
     final RuntimeRepositoryProviderType inProvider,
     final RuntimeDescriptionDatabase inDatabase,
     final RuntimeRepositoryDescription inDescription)
@@ -125,7 +130,7 @@ public final class AOJRepository implements RuntimeRepositoryType
     Objects.requireNonNull(context, "context");
 
     final var events =
-      PublishSubject.<RuntimeRepositoryEventType>create();
+      PublishSubject.<RuntimeRepositoryEventType>create().toSerialized();
 
     final var description =
       RuntimeRepositoryDescription.builder()
@@ -136,9 +141,13 @@ public final class AOJRepository implements RuntimeRepositoryType
 
     final var database =
       RuntimeDescriptionDatabase.open(
-        context.cacheDirectory().resolve("net.adoptopenjdk")
+        context.cacheDirectory().resolve("net.adoptopenjdk"),
+        RuntimeDescriptionDatabaseConfigurations.forRepository(
+          context.retainedRuntimesPerMajorVersion())
       );
 
+    RuntimeRepositoryEvents.publishRuntimesChanged(provider.uri(), database.changes(), events);
+
     return new AOJRepository(
       client,
       context,
@@ -279,6 +288,7 @@ public final class AOJRepository implements RuntimeRepositoryType
 
       final var releases = releaseRequest.execute();
       final var releaseCount = releases.availableReleases().size();
+      final var transaction = this.database.transaction();
       var releaseIndex = 0;
       var processed = 0;
 
@@ -295,11 +305,21 @@ public final class AOJRepository implements RuntimeRepositoryType
             .build());
 
         processed +=
-          this.processForRelease(cancelled, this.fetchForRelease(release));
+          this.processForRelease(
+            cancelled,
+            transaction,
+            this.fetchForRelease(release));
         ++releaseIndex;
       }
 
+      final var result = transaction.commit();
       LOG.info("processed {} runtimes", Integer.valueOf(processed));
+      LOG.info(
+        "{} added, {} changed, {} unchanged, {} removed",
+        Integer.valueOf(result.added()),
+        Integer.valueOf(result.changed()),
+        Integer.valueOf(result.unchanged()),
+        Integer.valueOf(result.removed()));
       this.description =
         this.description.withUpdated(OffsetDateTime.now(ZoneId.of("UTC")));
 
@@ -319,6 +339,7 @@ public final class AOJRepository implements RuntimeRepositoryType
 
   private int processForRelease(
     final BooleanSupplier cancelled,
+    final RuntimeDescriptionDatabaseTransaction transaction,
     final ArrayList<AOV3Release> releases)
   {
     var processed = 0;
@@ -359,7 +380,7 @@ public final class AOJRepository implements RuntimeRepositoryType
                 .setVm(vmOfAOV3JVM(binary.jvmImplementation()))
                 .build();
 
-            this.database.add(runtimeDescription);
+            transaction.add(runtimeDescription);
             ++processed;
           }
         } catch (final Exception e) {
@@ -440,6 +461,19 @@ public final class AOJRepository implements RuntimeRepositoryType
     return this.database.descriptions();
   }
 
+  @Override
+  public boolean isSearchIndexed()
+  {
+    return true;
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    return this.database.search(query);
+  }
+
   @Override
   public RuntimeRepositoryDescription description()
   {
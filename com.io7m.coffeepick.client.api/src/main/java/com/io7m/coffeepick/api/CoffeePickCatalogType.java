@@ -24,6 +24,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -50,7 +52,8 @@ public interface CoffeePickCatalogType
   Observable<CoffeePickCatalogEventType> events();
 
   /**
-   * Search for all runtimes matching the given parameters.
+   * Search for all runtimes matching the given parameters. The returned map iterates over the
+   * runtimes in the order given by {@link CoffeePickSearches#runtimeOrder()}.
    *
    * @param parameters The parameters
    *
@@ -59,6 +62,92 @@ public interface CoffeePickCatalogType
 
   Map<String, RuntimeDescription> search(CoffeePickSearch parameters);
 
+  /**
+   * Search for all runtimes matching the given parameters inexactly, as by
+   * {@link CoffeePickSearches#matchesInexact(RuntimeDescription, CoffeePickSearch)}. The returned
+   * map iterates over the runtimes in the order given by {@link CoffeePickSearches#runtimeOrder()}.
+   *
+   * @param parameters The parameters
+   *
+   * @return The matching runtimes
+   */
+
+  default Map<String, RuntimeDescription> searchInexact(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var results = new LinkedHashMap<String, RuntimeDescription>();
+    this.searchAll()
+      .values()
+      .stream()
+      .filter(CoffeePickSearchPredicate.inexact(parameters))
+      .sorted(CoffeePickSearches.runtimeOrder())
+      .forEach(runtime -> results.put(runtime.id(), runtime));
+    return results;
+  }
+
+  /**
+   * Search for runtimes matching each of the given sets of parameters. The result at each
+   * position in the returned list is exactly the result that {@link #search(CoffeePickSearch)}
+   * would return for the search at the same position in the given list. The default
+   * implementation performs each search in turn; implementations are encouraged to evaluate the
+   * searches together so that each runtime is examined at most once.
+   *
+   * @param searches The search parameters
+   *
+   * @return The matching runtimes for each search, in the order of the given searches
+   */
+
+  default List<Map<String, RuntimeDescription>> searchBatch(
+    final List<CoffeePickSearch> searches)
+  {
+    Objects.requireNonNull(searches, "searches");
+
+    final var results = new ArrayList<Map<String, RuntimeDescription>>(searches.size());
+    for (final var search : searches) {
+      results.add(this.search(search));
+    }
+    return results;
+  }
+
+  /**
+   * Search for a single page of runtimes matching the given parameters. The default
+   * implementation performs a complete search and then selects the page from the results;
+   * implementations are encouraged to avoid examining more runtimes than are necessary to
+   * produce the page.
+   *
+   * @param request The page request
+   *
+   * @return A page of matching runtimes
+   */
+
+  default CoffeePickSearchPage searchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+    return CoffeePickSearches.pageOf(request, this.search(request.search()).values());
+  }
+
+  /**
+   * Count the runtimes that match the given search, broken down by platform, architecture, VM,
+   * configuration, tag, and major version. The counts are exactly those that would be obtained by
+   * grouping the results of {@link #search(CoffeePickSearch)}. The default implementation
+   * performs a complete search; implementations are encouraged to count matching runtimes as
+   * they are found.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The facet counts of the matching runtimes
+   */
+
+  default CoffeePickFacets facets(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return CoffeePickSearches.facetsOf(this.search(parameters).values());
+  }
+
   /**
    * @return All runtimes in the inventory
    */
@@ -69,6 +158,29 @@ public interface CoffeePickCatalogType
                          .build());
   }
 
+  /**
+   * Find the newest runtime with the given repository, platform, architecture, configuration, VM,
+   * and major version. The newest runtime is the greatest according to
+   * {@link CoffeePickSearches#runtimeOrder()}. The default implementation performs a complete
+   * search; implementations are encouraged to maintain views of the newest runtimes so that the
+   * lookup takes constant time.
+   *
+   * @param key The key
+   *
+   * @return The newest runtime, if any
+   */
+
+  default Optional<RuntimeDescription> searchLatest(
+    final CoffeePickLatestKey key)
+  {
+    Objects.requireNonNull(key, "key");
+
+    return this.search(CoffeePickSearches.searchOf(key))
+      .values()
+      .stream()
+      .max(CoffeePickSearches.runtimeOrder());
+  }
+
   /**
    * @param id The ID of the runtime
    *
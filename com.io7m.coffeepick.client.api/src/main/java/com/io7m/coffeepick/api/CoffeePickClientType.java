@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static com.io7m.coffeepick.api.CoffeePickInventoryType.UnpackOption;
 
@@ -78,6 +79,37 @@ public interface CoffeePickClientType extends Closeable
   CompletableFuture<Map<String, RuntimeDescription>> inventorySearch(
     CoffeePickSearch parameters);
 
+  /**
+   * Search for a single page of runtimes matching the given parameters in the inventory.
+   *
+   * @param request The page request
+   *
+   * @return The operation in progress
+   */
+
+  default CompletableFuture<CoffeePickSearchPage> inventorySearchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    return this.inventorySearch(request.search())
+      .thenApply(results -> CoffeePickSearches.pageOf(request, results.values()));
+  }
+
+  /**
+   * Count the runtimes matching the given parameters in the inventory, broken down by platform,
+   * architecture, VM, configuration, tag, and major version.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The operation in progress
+   */
+
+  default CompletableFuture<CoffeePickFacets> inventoryFacets(
+    final CoffeePickSearch parameters)
+  {
+    return this.inventorySearch(parameters)
+      .thenApply(results -> CoffeePickSearches.facetsOf(results.values()));
+  }
+
   /**
    * Search for all runtimes in the inventory.
    *
@@ -140,6 +172,61 @@ public interface CoffeePickClientType extends Closeable
   CompletableFuture<Map<String, RuntimeDescription>> catalogSearch(
     CoffeePickSearch parameters);
 
+  /**
+   * Search for runtimes matching each of the given sets of parameters in the catalog. The
+   * result at each position in the returned list corresponds to the search at the same position
+   * in the given list.
+   *
+   * @param searches The search parameters
+   *
+   * @return The operation in progress
+   */
+
+  default CompletableFuture<List<Map<String, RuntimeDescription>>> catalogSearchBatch(
+    final List<CoffeePickSearch> searches)
+  {
+    final var futures =
+      searches.stream()
+        .map(this::catalogSearch)
+        .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+      .thenApply(ignored -> futures.stream()
+        .map(CompletableFuture::join)
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Search for a single page of runtimes matching the given parameters in the catalog.
+   *
+   * @param request The page request
+   *
+   * @return The operation in progress
+   */
+
+  default CompletableFuture<CoffeePickSearchPage> catalogSearchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    return this.catalogSearch(request.search())
+      .thenApply(results -> CoffeePickSearches.pageOf(request, results.values()));
+  }
+
+  /**
+   * Count the runtimes matching the given parameters in the catalog, broken down by platform,
+   * architecture, VM, configuration, tag, and major version.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The operation in progress
+   */
+
+  default CompletableFuture<CoffeePickFacets> catalogFacets(
+    final CoffeePickSearch parameters)
+  {
+    return this.catalogSearch(parameters)
+      .thenApply(results -> CoffeePickSearches.facetsOf(results.values()));
+  }
+
   /**
    * Search for all runtimes in the catalog.
    *
@@ -153,6 +240,26 @@ public interface CoffeePickClientType extends Closeable
         .build());
   }
 
+  /**
+   * Find the newest runtime in the catalog with the given repository, platform, architecture,
+   * configuration, VM, and major version.
+   *
+   * @param key The key
+   *
+   * @return The operation in progress
+   *
+   * @see CoffeePickCatalogType#searchLatest(CoffeePickLatestKey)
+   */
+
+  default CompletableFuture<Optional<RuntimeDescription>> catalogSearchLatest(
+    final CoffeePickLatestKey key)
+  {
+    return this.catalogSearch(CoffeePickSearches.searchOf(key))
+      .thenApply(results -> results.values()
+        .stream()
+        .max(CoffeePickSearches.runtimeOrder()));
+  }
+
   /**
    * Search for a runtime with the given ID in the catalog.
    *
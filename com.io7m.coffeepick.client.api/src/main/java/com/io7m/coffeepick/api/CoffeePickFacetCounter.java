@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.api;
+
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+
+import java.math.BigInteger;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A mutable accumulator of facet counts. Runtimes are counted one at a time as they are found, so
+ * that the counts for a search can be computed without retaining the matching runtimes.
+ *
+ * <p>Counters are not thread-safe. Runtimes counted on separate threads should be counted into
+ * separate counters that are then combined with {@link #add(CoffeePickFacetCounter)}.</p>
+ */
+
+public final class CoffeePickFacetCounter
+{
+  private final Map<String, Long> platforms;
+  private final Map<String, Long> architectures;
+  private final Map<String, Long> vms;
+  private final Map<RuntimeConfiguration, Long> configurations;
+  private final Map<String, Long> tags;
+  private final Map<BigInteger, Long> major_versions;
+  private long count;
+
+  /**
+   * Create an empty counter.
+   */
+
+  public CoffeePickFacetCounter()
+  {
+    this.platforms = new HashMap<>(16);
+    this.architectures = new HashMap<>(16);
+    this.vms = new HashMap<>(16);
+    this.configurations = new EnumMap<>(RuntimeConfiguration.class);
+    this.tags = new HashMap<>(16);
+    this.major_versions = new HashMap<>(16);
+    this.count = 0L;
+  }
+
+  private static <K> void increment(
+    final Map<K, Long> counts,
+    final K key,
+    final long amount)
+  {
+    counts.merge(key, Long.valueOf(amount), CoffeePickFacetCounter::sum);
+  }
+
+  private static <K> void incrementAll(
+    final Map<K, Long> counts,
+    final Map<K, Long> amounts)
+  {
+    for (final var entry : amounts.entrySet()) {
+      increment(counts, entry.getKey(), entry.getValue().longValue());
+    }
+  }
+
+  private static Long sum(
+    final Long x,
+    final Long y)
+  {
+    return Long.valueOf(x.longValue() + y.longValue());
+  }
+
+  /**
+   * Count a runtime.
+   *
+   * @param runtime The runtime
+   */
+
+  public void add(
+    final RuntimeDescription runtime)
+  {
+    Objects.requireNonNull(runtime, "runtime");
+
+    ++this.count;
+    increment(this.platforms, runtime.platform(), 1L);
+    increment(this.architectures, runtime.architecture(), 1L);
+    increment(this.vms, runtime.vm(), 1L);
+    increment(this.configurations, runtime.configuration(), 1L);
+    increment(this.major_versions, runtime.version().major(), 1L);
+    for (final var tag : runtime.tags()) {
+      increment(this.tags, tag, 1L);
+    }
+  }
+
+  /**
+   * Add all of the counts of the given counter to this counter.
+   *
+   * @param other The other counter
+   */
+
+  public void add(
+    final CoffeePickFacetCounter other)
+  {
+    Objects.requireNonNull(other, "other");
+
+    this.count += other.count;
+    incrementAll(this.platforms, other.platforms);
+    incrementAll(this.architectures, other.architectures);
+    incrementAll(this.vms, other.vms);
+    incrementAll(this.configurations, other.configurations);
+    incrementAll(this.tags, other.tags);
+    incrementAll(this.major_versions, other.major_versions);
+  }
+
+  /**
+   * @return The current counts
+   */
+
+  public CoffeePickFacets toFacets()
+  {
+    return CoffeePickFacets.builder()
+      .setCount(this.count)
+      .putAllPlatforms(this.platforms)
+      .putAllArchitectures(this.architectures)
+      .putAllVms(this.vms)
+      .putAllConfigurations(this.configurations)
+      .putAllTags(this.tags)
+      .putAllMajorVersions(this.major_versions)
+      .build();
+  }
+}
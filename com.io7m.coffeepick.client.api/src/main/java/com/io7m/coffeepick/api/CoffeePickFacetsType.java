@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.api;
+
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * The number of runtimes matching a search, broken down by the value of each of a set of runtime
+ * attributes. A runtime with more than one tag is counted once for each of its tags.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface CoffeePickFacetsType
+{
+  /**
+   * @return The total number of matching runtimes
+   */
+
+  long count();
+
+  /**
+   * @return The number of matching runtimes for each platform
+   */
+
+  Map<String, Long> platforms();
+
+  /**
+   * @return The number of matching runtimes for each architecture
+   */
+
+  Map<String, Long> architectures();
+
+  /**
+   * @return The number of matching runtimes for each VM
+   */
+
+  Map<String, Long> vms();
+
+  /**
+   * @return The number of matching runtimes for each configuration
+   */
+
+  Map<RuntimeConfiguration, Long> configurations();
+
+  /**
+   * @return The number of matching runtimes for each tag
+   */
+
+  Map<String, Long> tags();
+
+  /**
+   * @return The number of matching runtimes for each major version
+   */
+
+  Map<BigInteger, Long> majorVersions();
+}
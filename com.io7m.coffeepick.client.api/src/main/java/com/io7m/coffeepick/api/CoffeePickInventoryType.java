@@ -57,6 +57,43 @@ public interface CoffeePickInventoryType
 
   Map<String, RuntimeDescription> search(CoffeePickSearch parameters);
 
+  /**
+   * Search for a single page of runtimes matching the given parameters. The default
+   * implementation performs a complete search and then selects the page from the results;
+   * implementations are encouraged to avoid examining more runtimes than are necessary to
+   * produce the page.
+   *
+   * @param request The page request
+   *
+   * @return A page of matching runtimes
+   */
+
+  default CoffeePickSearchPage searchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+    return CoffeePickSearches.pageOf(request, this.search(request.search()).values());
+  }
+
+  /**
+   * Count the runtimes that match the given search, broken down by platform, architecture, VM,
+   * configuration, tag, and major version. The counts are exactly those that would be obtained by
+   * grouping the results of {@link #search(CoffeePickSearch)}. The default implementation
+   * performs a complete search; implementations are encouraged to count matching runtimes as
+   * they are found.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The facet counts of the matching runtimes
+   */
+
+  default CoffeePickFacets facets(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return CoffeePickSearches.facetsOf(this.search(parameters).values());
+  }
+
   /**
    * @return All runtimes in the inventory
    */
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.api;
+
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.math.BigInteger;
+import java.net.URI;
+
+/**
+ * The key of a "latest runtime" view: Of all the runtimes that have the given repository,
+ * platform, architecture, configuration, VM, and major version, the view holds the newest.
+ *
+ * @see CoffeePickCatalogType#searchLatest(CoffeePickLatestKey)
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface CoffeePickLatestKeyType
+{
+  /**
+   * @return The repository URI
+   */
+
+  URI repository();
+
+  /**
+   * @return The name of the platform upon which the runtime will run
+   */
+
+  String platform();
+
+  /**
+   * @return The name of the architecture upon which the runtime will run
+   */
+
+  String architecture();
+
+  /**
+   * @return The configuration of the runtime
+   */
+
+  RuntimeConfiguration configuration();
+
+  /**
+   * @return The name of the VM used for the runtime
+   */
+
+  String vm();
+
+  /**
+   * @return The major version of the runtime
+   */
+
+  BigInteger major();
+}
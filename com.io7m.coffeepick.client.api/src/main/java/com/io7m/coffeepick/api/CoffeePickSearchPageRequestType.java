@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.api;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * A request for a single page of search results.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface CoffeePickSearchPageRequestType
+{
+  /**
+   * @return The search parameters
+   */
+
+  CoffeePickSearch search();
+
+  /**
+   * @return The order in which results are produced
+   */
+
+  @Value.Default
+  default CoffeePickSearchOrder order()
+  {
+    return CoffeePickSearchOrder.VERSION_ASCENDING;
+  }
+
+  /**
+   * @return The maximum number of results in the page
+   */
+
+  int limit();
+
+  /**
+   * The continuation cursor. If present, the page begins with the first result that follows the
+   * given runtime in the requested order. The runtime need not still exist.
+   *
+   * @return The runtime after which the page begins, if any
+   */
+
+  Optional<RuntimeDescription> after();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.limit() <= 0) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid page limit.")
+          .append(separator)
+          .append("  Expected: A positive integer")
+          .append(separator)
+          .append("  Received: ")
+          .append(this.limit())
+          .append(separator)
+          .toString());
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.api;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A search compiled into a predicate over runtimes.
+ *
+ * <p>Compiling a search examines the search parameters once and produces a check for each
+ * parameter that is actually specified; parameters that are not specified cost nothing when the
+ * predicate is evaluated. The checks are ordered so that the parameters most likely to reject a
+ * runtime (such as the ID and archive hash) are checked first, and the cheapest checks are
+ * preferred among parameters of similar selectivity. Evaluating the predicate does not
+ * allocate.</p>
+ *
+ * <p>A compiled predicate is immutable and may be shared between threads, and may be reused for
+ * any number of runtimes from any source.</p>
+ */
+
+public final class CoffeePickSearchPredicate implements Predicate<RuntimeDescription>
+{
+  private final CoffeePickSearch search;
+  private final Predicate<RuntimeDescription>[] checks;
+
+  private CoffeePickSearchPredicate(
+    final CoffeePickSearch in_search,
+    final List<Predicate<RuntimeDescription>> in_checks)
+  {
+    this.search = Objects.requireNonNull(in_search, "search");
+
+    @SuppressWarnings("unchecked") final var array =
+      (Predicate<RuntimeDescription>[]) in_checks.toArray(new Predicate<?>[0]);
+    this.checks = array;
+  }
+
+  /**
+   * Compile a search that matches runtimes as by
+   * {@link CoffeePickSearches#matchesExact(RuntimeDescription, CoffeePickSearch)}.
+   *
+   * @param search The search parameters
+   *
+   * @return A compiled predicate
+   */
+
+  public static CoffeePickSearchPredicate exact(
+    final CoffeePickSearch search)
+  {
+    Objects.requireNonNull(search, "search");
+
+    final var checks = new ArrayList<Predicate<RuntimeDescription>>(11);
+    search.id().ifPresent(
+      id -> checks.add(runtime -> id.equals(runtime.id())));
+    addArchiveChecks(search, checks);
+    search.versionRange().ifPresent(
+      range -> checks.add(runtime -> range.includes(runtime.version())));
+    search.platform().ifPresent(
+      platform -> checks.add(runtime -> platform.equals(runtime.platform())));
+    search.architecture().ifPresent(
+      architecture -> checks.add(runtime -> architecture.equals(runtime.architecture())));
+    search.vm().ifPresent(
+      vm -> checks.add(runtime -> vm.equals(runtime.vm())));
+    addTagChecks(search, checks);
+    search.configuration().ifPresent(
+      configuration -> checks.add(runtime -> configuration == runtime.configuration()));
+    search.repository().ifPresent(
+      repository -> checks.add(runtime -> repository.equals(runtime.repository().toString())));
+    return new CoffeePickSearchPredicate(search, checks);
+  }
+
+  /**
+   * Compile a search that matches runtimes as by
+   * {@link CoffeePickSearches#matchesInexact(RuntimeDescription, CoffeePickSearch)}.
+   *
+   * @param search The search parameters
+   *
+   * @return A compiled predicate
+   */
+
+  public static CoffeePickSearchPredicate inexact(
+    final CoffeePickSearch search)
+  {
+    Objects.requireNonNull(search, "search");
+
+    final var checks = new ArrayList<Predicate<RuntimeDescription>>(11);
+    search.id().ifPresent(
+      id -> checks.add(runtime -> CoffeePickSearches.containsIgnoreCase(runtime.id(), id)));
+    addArchiveChecks(search, checks);
+    search.versionRange().ifPresent(
+      range -> checks.add(runtime -> range.includes(runtime.version())));
+    search.platform().ifPresent(
+      platform -> checks.add(
+        runtime -> CoffeePickSearches.containsIgnoreCase(runtime.platform(), platform)));
+    search.architecture().ifPresent(
+      architecture -> checks.add(
+        runtime -> CoffeePickSearches.containsIgnoreCase(runtime.architecture(), architecture)));
+    search.vm().ifPresent(
+      vm -> checks.add(runtime -> CoffeePickSearches.containsIgnoreCase(runtime.vm(), vm)));
+    addTagChecks(search, checks);
+    search.configuration().ifPresent(
+      configuration -> checks.add(runtime -> configuration == runtime.configuration()));
+    search.repository().ifPresent(
+      repository -> checks.add(runtime -> CoffeePickSearches.containsIgnoreCase(
+        runtime.repository().toString(),
+        repository)));
+    return new CoffeePickSearchPredicate(search, checks);
+  }
+
+  private static void addArchiveChecks(
+    final CoffeePickSearch search,
+    final List<Predicate<RuntimeDescription>> checks)
+  {
+    search.archiveHash().ifPresent(
+      hash -> checks.add(runtime -> hash.equals(runtime.archiveHash())));
+    if (search.archiveSize().isPresent()) {
+      final var size = search.archiveSize().getAsLong();
+      checks.add(runtime -> runtime.archiveSize() == size);
+    }
+    search.archiveURI().ifPresent(
+      uri -> checks.add(runtime -> uri.equals(runtime.archiveURI())));
+  }
+
+  private static void addTagChecks(
+    final CoffeePickSearch search,
+    final List<Predicate<RuntimeDescription>> checks)
+  {
+    for (final var tag : search.requiredTags()) {
+      checks.add(runtime -> runtime.tags().contains(tag));
+    }
+  }
+
+  /**
+   * @return The search parameters from which the predicate was compiled
+   */
+
+  public CoffeePickSearch search()
+  {
+    return this.search;
+  }
+
+  /**
+   * @return {@code true} if the predicate matches every runtime
+   */
+
+  public boolean matchesEverything()
+  {
+    return this.checks.length == 0;
+  }
+
+  @Override
+  public boolean test(
+    final RuntimeDescription runtime)
+  {
+    for (final var check : this.checks) {
+      if (!check.test(runtime)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
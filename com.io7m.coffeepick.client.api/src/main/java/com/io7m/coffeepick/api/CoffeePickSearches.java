@@ -20,11 +20,11 @@ import com.io7m.coffeepick.runtime.RuntimeDescription;
 import com.io7m.coffeepick.runtime.RuntimeVersion;
 import com.io7m.coffeepick.runtime.RuntimeVersionRange;
 
-import java.util.Locale;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.OptionalLong;
-import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Functions to implement searches over runtimes.
@@ -32,129 +32,271 @@ import java.util.Set;
 
 public final class CoffeePickSearches
 {
+  private static final Comparator<RuntimeDescription> RUNTIME_ORDER =
+    Comparator.comparing(RuntimeDescription::version)
+      .thenComparing(RuntimeDescription::architecture)
+      .thenComparing(RuntimeDescription::platform)
+      .thenComparing(RuntimeDescription::id);
+
+  private static final Comparator<RuntimeDescription> RUNTIME_ORDER_REVERSED =
+    RUNTIME_ORDER.reversed();
+
   private CoffeePickSearches()
   {
 
   }
 
-  private static <T> boolean matchesField(
-    final T field,
-    final Optional<T> matcher)
+  /**
+   * The order in which search results are returned: Ascending order of version, then
+   * architecture, then platform, then ID.
+   *
+   * @return The order of search results
+   */
+
+  public static Comparator<RuntimeDescription> runtimeOrder()
   {
-    return matcher.map(match -> Boolean.valueOf(Objects.equals(field, match)))
-      .orElse(Boolean.TRUE)
-      .booleanValue();
+    return RUNTIME_ORDER;
   }
 
-  private static <T> boolean matchesFieldInexact(
-    final String field,
-    final Optional<String> matcher)
+  /**
+   * @param order The order of search results
+   *
+   * @return A comparator that places runtimes in the given order
+   */
+
+  public static Comparator<RuntimeDescription> runtimeOrder(
+    final CoffeePickSearchOrder order)
   {
-    return matcher.map(match -> Boolean.valueOf(
-      field.toUpperCase(Locale.ROOT).contains(match.toUpperCase(Locale.ROOT))))
-      .orElse(Boolean.TRUE)
-      .booleanValue();
+    Objects.requireNonNull(order, "order");
+    if (order == CoffeePickSearchOrder.VERSION_DESCENDING) {
+      return RUNTIME_ORDER_REVERSED;
+    }
+    return RUNTIME_ORDER;
   }
 
   /**
-   * @param runtime    The runtime runtimes
-   * @param parameters The search parameters
+   * @param runtime The runtime
    *
-   * @return {@code true} if the given runtime is matched by the given search parameters
+   * @return The key of the "latest runtime" view to which the runtime belongs
    */
 
-  public static boolean matchesExact(
-    final RuntimeDescription runtime,
-    final CoffeePickSearch parameters)
+  public static CoffeePickLatestKey latestKeyOf(
+    final RuntimeDescription runtime)
   {
     Objects.requireNonNull(runtime, "runtime");
-    Objects.requireNonNull(parameters, "parameters");
 
-    return matchesArchive(runtime, parameters)
-      && matchesExactRuntime(runtime, parameters);
+    return CoffeePickLatestKey.builder()
+      .setRepository(runtime.repository())
+      .setPlatform(runtime.platform())
+      .setArchitecture(runtime.architecture())
+      .setConfiguration(runtime.configuration())
+      .setVm(runtime.vm())
+      .setMajor(runtime.version().major())
+      .build();
   }
 
   /**
-   * @param runtime    The runtime runtimes
-   * @param parameters The search parameters
+   * @param key The key of a "latest runtime" view
    *
-   * @return {@code true} if the given runtime is matched by the given search parameters
+   * @return A search that matches exactly the runtimes that belong to the view
    */
 
-  public static boolean matchesInexact(
-    final RuntimeDescription runtime,
-    final CoffeePickSearch parameters)
+  public static CoffeePickSearch searchOf(
+    final CoffeePickLatestKey key)
   {
-    Objects.requireNonNull(runtime, "runtime");
-    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(key, "key");
 
-    return matchesArchive(runtime, parameters)
-      && matchesInexactRuntime(runtime, parameters);
+    final var major = key.major();
+    return CoffeePickSearch.builder()
+      .setRepository(key.repository().toString())
+      .setPlatform(key.platform())
+      .setArchitecture(key.architecture())
+      .setConfiguration(key.configuration())
+      .setVm(key.vm())
+      .setVersionRange(
+        RuntimeVersionRange.of(
+          majorVersion(major),
+          false,
+          majorVersion(major.add(BigInteger.ONE)),
+          true))
+      .build();
   }
 
-  // CHECKSTYLE:OFF
-  private static boolean matchesInexactRuntime(
-    final RuntimeDescription runtime,
-    final CoffeePickSearch parameters)
+  private static RuntimeVersion majorVersion(
+    final BigInteger major)
   {
-    return matchesFieldInexact(runtime.repository().toString(), parameters.repository())
-      && matchesField(runtime.configuration(), parameters.configuration())
-      && matchesFieldInexact(runtime.id(), parameters.id())
-      && matchesFieldInexact(runtime.platform(), parameters.platform())
-      && matchesFieldInexact(runtime.architecture(), parameters.architecture())
-      && matchesFieldInexact(runtime.vm(), parameters.vm())
-      && matchesTags(runtime.tags(), parameters.requiredTags())
-      && matchesVersionRange(runtime.version(), parameters.versionRange());
+    return RuntimeVersion.builder()
+      .setMajor(major)
+      .setMinor(BigInteger.ZERO)
+      .setPatch(BigInteger.ZERO)
+      .build();
   }
-  // CHECKSTYLE:ON
 
-  // CHECKSTYLE:OFF
-  private static boolean matchesExactRuntime(
-    final RuntimeDescription runtime,
-    final CoffeePickSearch parameters)
+  /**
+   * Count the given runtimes, which are assumed to already match some search.
+   *
+   * @param runtimes The runtimes
+   *
+   * @return The facet counts of the runtimes
+   */
+
+  public static CoffeePickFacets facetsOf(
+    final Iterable<RuntimeDescription> runtimes)
   {
-    return matchesField(runtime.repository().toString(), parameters.repository())
-      && matchesField(runtime.configuration(), parameters.configuration())
-      && matchesField(runtime.id(), parameters.id())
-      && matchesField(runtime.platform(), parameters.platform())
-      && matchesField(runtime.architecture(), parameters.architecture())
-      && matchesField(runtime.vm(), parameters.vm())
-      && matchesTags(runtime.tags(), parameters.requiredTags())
-      && matchesVersionRange(runtime.version(), parameters.versionRange());
+    Objects.requireNonNull(runtimes, "runtimes");
+
+    final var counter = new CoffeePickFacetCounter();
+    for (final var runtime : runtimes) {
+      counter.add(runtime);
+    }
+    return counter.toFacets();
   }
-  // CHECKSTYLE:ON
 
-  private static boolean matchesArchive(
-    final RuntimeDescription runtime,
-    final CoffeePickSearch parameters)
+  /**
+   * Select a page of results from a set of runtimes that are already known to match the search
+   * parameters of the given request. The runtimes may be given in any order, and runtimes that
+   * precede the request's continuation cursor are ignored. At most {@code limit + 1} runtimes are
+   * retained at any one time, regardless of the number of runtimes given.
+   *
+   * @param request  The page request
+   * @param runtimes The matching runtimes
+   *
+   * @return A page of results
+   */
+
+  public static CoffeePickSearchPage pageOf(
+    final CoffeePickSearchPageRequest request,
+    final Iterable<RuntimeDescription> runtimes)
   {
-    return matchesField(runtime.archiveHash(), parameters.archiveHash())
-      && matchesField(runtime.archiveURI(), parameters.archiveURI())
-      && matchesArchiveSize(runtime.archiveSize(), parameters.archiveSize());
+    Objects.requireNonNull(request, "request");
+    Objects.requireNonNull(runtimes, "runtimes");
+
+    final var order = runtimeOrder(request.order());
+    final var after = request.after();
+    final var limit = request.limit();
+
+    /*
+     * Keep the first (limit + 1) runtimes; the presence of the extra runtime indicates that there
+     * is a following page.
+     */
+
+    final var selected = new TreeSet<>(order);
+    for (final var runtime : runtimes) {
+      if (after.isPresent() && order.compare(runtime, after.get()) <= 0) {
+        continue;
+      }
+      selected.add(runtime);
+      if (selected.size() > (long) limit + 1L) {
+        selected.pollLast();
+      }
+    }
+
+    final var results = new ArrayList<>(selected);
+    if (results.size() <= limit) {
+      return CoffeePickSearchPage.builder()
+        .setRuntimes(results)
+        .build();
+    }
+
+    final var page = results.subList(0, limit);
+    return CoffeePickSearchPage.builder()
+      .setRuntimes(page)
+      .setNext(CoffeePickSearchPageRequest.builder()
+                 .from(request)
+                 .setAfter(page.get(limit - 1))
+                 .build())
+      .build();
   }
 
-  private static boolean matchesTags(
-    final Set<String> receivedTags,
-    final Set<String> requiredTags)
+  /**
+   * Determine if {@code text} contains {@code pattern}, ignoring case. Characters are compared
+   * individually as by {@link String#regionMatches(boolean, int, String, int, int)}, so no
+   * case-folded copies of either string are created.
+   *
+   * @param text    The text
+   * @param pattern The pattern
+   *
+   * @return {@code true} if {@code text} contains {@code pattern}
+   */
+
+  public static boolean containsIgnoreCase(
+    final String text,
+    final String pattern)
   {
-    return receivedTags.containsAll(requiredTags);
+    Objects.requireNonNull(text, "text");
+    Objects.requireNonNull(pattern, "pattern");
+
+    final var length = pattern.length();
+    final var limit = text.length() - length;
+    for (var offset = 0; offset <= limit; ++offset) {
+      if (text.regionMatches(true, offset, pattern, 0, length)) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private static boolean matchesArchiveSize(
-    final long size,
-    final OptionalLong match)
+  /**
+   * Fold the case of the given text. Two strings are equal after case folding if and only if
+   * they are equal as compared by {@link #containsIgnoreCase(String, String)}, and case folding
+   * never changes the length of a string, so case-folded strings can be indexed and searched with
+   * ordinary string operations.
+   *
+   * @param text The text
+   *
+   * @return The case-folded text
+   */
+
+  public static String foldCase(
+    final String text)
   {
-    if (match.isPresent()) {
-      return size == match.getAsLong();
+    Objects.requireNonNull(text, "text");
+
+    final var result = new StringBuilder(text.length());
+    for (var index = 0; index < text.length(); ++index) {
+      result.append(Character.toLowerCase(Character.toUpperCase(text.charAt(index))));
     }
-    return true;
+    return result.toString();
+  }
+
+  /**
+   * Determine if a runtime is matched by the given search parameters. When matching many
+   * runtimes against the same parameters, compile the parameters once with
+   * {@link CoffeePickSearchPredicate#exact(CoffeePickSearch)} instead.
+   *
+   * @param runtime    The runtime runtimes
+   * @param parameters The search parameters
+   *
+   * @return {@code true} if the given runtime is matched by the given search parameters
+   */
+
+  public static boolean matchesExact(
+    final RuntimeDescription runtime,
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(runtime, "runtime");
+    Objects.requireNonNull(parameters, "parameters");
+    return CoffeePickSearchPredicate.exact(parameters).test(runtime);
   }
 
-  private static boolean matchesVersionRange(
-    final RuntimeVersion version,
-    final Optional<RuntimeVersionRange> range)
+  /**
+   * Determine if a runtime is matched inexactly by the given search parameters: Textual
+   * parameters match any runtime whose corresponding field contains the parameter, ignoring case.
+   * When matching many runtimes against the same parameters, compile the parameters once with
+   * {@link CoffeePickSearchPredicate#inexact(CoffeePickSearch)} instead.
+   *
+   * @param runtime    The runtime runtimes
+   * @param parameters The search parameters
+   *
+   * @return {@code true} if the given runtime is matched by the given search parameters
+   */
+
+  public static boolean matchesInexact(
+    final RuntimeDescription runtime,
+    final CoffeePickSearch parameters)
   {
-    return range.map(vRange -> Boolean.valueOf(vRange.includes(version)))
-      .orElse(Boolean.TRUE).booleanValue();
+    Objects.requireNonNull(runtime, "runtime");
+    Objects.requireNonNull(parameters, "parameters");
+    return CoffeePickSearchPredicate.inexact(parameters).test(runtime);
   }
 }
@@ -21,18 +21,31 @@ import com.io7m.coffeepick.api.CoffeePickCatalogEventRuntimeDownloadFinished;
 import com.io7m.coffeepick.api.CoffeePickCatalogEventRuntimeDownloading;
 import com.io7m.coffeepick.api.CoffeePickCatalogEventType;
 import com.io7m.coffeepick.api.CoffeePickCatalogType;
+import com.io7m.coffeepick.api.CoffeePickFacetCounter;
+import com.io7m.coffeepick.api.CoffeePickFacets;
 import com.io7m.coffeepick.api.CoffeePickInventoryType;
 import com.io7m.coffeepick.api.CoffeePickIsCancelledType;
+import com.io7m.coffeepick.api.CoffeePickLatestKey;
 import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchPage;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
+import com.io7m.coffeepick.api.CoffeePickSearchPredicate;
 import com.io7m.coffeepick.api.CoffeePickSearches;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickCatalogIds;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickCatalogIndex;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickCatalogLatest;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickSearchCache;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickSearchQueries;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryContextType;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventRuntimesChangedType;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryEventType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryType;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
-import com.io7m.coffeepick.runtime.RuntimeDescriptionType;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.subjects.Subject;
@@ -47,12 +60,21 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -60,18 +82,61 @@ import static java.net.http.HttpResponse.BodyHandlers.ofInputStream;
 
 /**
  * The default catalog implementation.
+ *
+ * <p>Searches are answered from an in-memory {@link CoffeePickCatalogIndex} held for each
+ * repository. Building an index requires examining every runtime in the repository, so the first
+ * search of a repository is delegated to the repository itself (which may be able to answer it
+ * from its own persistent indexes), and the in-memory index is built when the repository is
+ * searched again. Once built, an index is rebuilt each time an update of the repository
+ * finishes. An index retains the IDs and ordering attributes of runtimes rather than the runtimes
+ * themselves, and matching runtimes are looked up in the repository's map of runtimes, so that
+ * repositories that decode runtimes on demand are not forced to keep every runtime decoded.</p>
+ *
+ * <p>The results of recent exact searches of each repository are cached, and the cache for a
+ * repository is discarded whenever the repository publishes an update event. When a repository
+ * reports that its runtimes have changed by any means (including changes made by other processes
+ * and evictions), its index, ID map entries, latest views, and search cache are all discarded, and
+ * the index is rebuilt by the next search of the repository.</p>
+ *
+ * <p>The runtimes of each indexed repository are also entered into a catalog-wide map from
+ * runtime IDs to runtimes, so that looking up a runtime by ID is a single hash probe. Repositories
+ * that have not yet been indexed are asked for the runtime directly. In the same way, the catalog
+ * maintains a view of the newest runtime for each {@link CoffeePickLatestKey} over the indexed
+ * repositories, which is updated whenever a repository's index is rebuilt.</p>
+ *
+ * <p>Repositories are searched in parallel, and searches of large indexes are themselves divided
+ * into segments that are checked in parallel. Results are merged in a fixed order, and duplicate
+ * runtimes (those with the same ID in more than one repository) are tolerated.</p>
+ *
+ * <p>A batch of searches is evaluated in a single pass over the runtimes of each repository that
+ * has not been indexed: the repository is asked for the runtimes selected by a query that covers
+ * every search in the batch, and each runtime is checked against every search.</p>
+ *
+ * <p>Facet counts are accumulated as matching runtimes are found, and the matching runtimes are
+ * never collected. A runtime that is present in more than one repository is counted once, using
+ * the same runtime that a search would return.</p>
  */
 
 public final class CoffeePickCatalog implements CoffeePickCatalogType
 {
   private static final Logger LOG = LoggerFactory.getLogger(CoffeePickCatalog.class);
 
+  private static final int SEARCH_CACHE_SIZE =
+    64;
+
   private final RuntimeRepositoryContextType context;
   private final RuntimeRepositoryProviderRegistryType repository_providers;
   private final Disposable subscription;
   private final Subject<CoffeePickCatalogEventType> events;
   private final Map<URI, RuntimeRepositoryType> runtime_repositories;
   private final Map<URI, Disposable> runtime_repository_subscriptions;
+  private final Map<URI, CoffeePickCatalogIndex> runtime_indexes;
+  private final Set<URI> runtime_searched;
+  private final Map<URI, CoffeePickSearchCache<List<RuntimeDescription>>> runtime_search_caches;
+  private final CoffeePickCatalogIds runtime_ids;
+  private final CoffeePickCatalogLatest runtime_latest;
+  private final Map<URI, AtomicLong> runtime_generations;
+  private final Object runtime_index_lock;
   private final HttpClient http;
 
   private CoffeePickCatalog(
@@ -93,6 +158,20 @@ public final class CoffeePickCatalog implements CoffeePickCatalogType
       new ConcurrentHashMap<>(128);
     this.runtime_repository_subscriptions =
       new ConcurrentHashMap<>(128);
+    this.runtime_indexes =
+      new ConcurrentHashMap<>(128);
+    this.runtime_searched =
+      ConcurrentHashMap.newKeySet(128);
+    this.runtime_search_caches =
+      new ConcurrentHashMap<>(128);
+    this.runtime_ids =
+      new CoffeePickCatalogIds();
+    this.runtime_latest =
+      new CoffeePickCatalogLatest();
+    this.runtime_generations =
+      new ConcurrentHashMap<>(128);
+    this.runtime_index_lock =
+      new Object();
 
     this.repository_providers.repositoryProviders()
       .values()
@@ -197,15 +276,99 @@ public final class CoffeePickCatalog implements CoffeePickCatalogType
       this.runtime_repository_subscriptions.put(
         uri,
         repos.events()
-          .filter(event -> event instanceof RuntimeRepositoryEventUpdateType)
-          .cast(RuntimeRepositoryEventUpdateType.class)
-          .subscribe(event -> this.events.onNext(CoffeePickCatalogEventRepositoryUpdate.of(event))));
+          .subscribe(event -> this.onRepositoryEvent(uri, repos, event)));
 
     } catch (final IOException e) {
       LOG.error("could not open repository {}: ", uri, e);
     }
   }
 
+  private void onRepositoryEvent(
+    final URI uri,
+    final RuntimeRepositoryType repository,
+    final RuntimeRepositoryEventType event)
+  {
+    if (event instanceof RuntimeRepositoryEventUpdateType) {
+      this.onRepositoryUpdate(uri, repository, (RuntimeRepositoryEventUpdateType) event);
+    } else if (event instanceof RuntimeRepositoryEventRuntimesChangedType) {
+      this.onRepositoryRuntimesChanged(uri);
+    }
+  }
+
+  private void onRepositoryRuntimesChanged(
+    final URI uri)
+  {
+    /*
+     * The runtimes of the repository have changed, either because of an update, because another
+     * process changed the repository's storage, or because runtimes were evicted. The index, the
+     * ID map entries, and the latest views of the repository are discarded; the index is rebuilt
+     * by the next search of the repository, and lookups are answered by the repository until
+     * then. Incrementing the generation ensures that an index being built concurrently from the
+     * old runtimes is not installed.
+     */
+
+    synchronized (this.runtime_index_lock) {
+      this.generationOf(uri).incrementAndGet();
+      this.runtime_indexes.remove(uri);
+      this.runtime_ids.remove(uri);
+      this.runtime_latest.remove(uri);
+    }
+
+    final var cache = this.runtime_search_caches.get(uri);
+    if (cache != null) {
+      cache.invalidate();
+    }
+  }
+
+  private void onRepositoryUpdate(
+    final URI uri,
+    final RuntimeRepositoryType repository,
+    final RuntimeRepositoryEventUpdateType event)
+  {
+    if (event.kind() == RuntimeRepositoryEventUpdateType.Kind.FINISHED) {
+      final long generation;
+      final boolean indexed;
+      synchronized (this.runtime_index_lock) {
+        generation = this.generationOf(uri).incrementAndGet();
+        indexed = this.runtime_indexes.containsKey(uri);
+      }
+      if (indexed) {
+        this.buildIndex(uri, repository, generation);
+      }
+    }
+
+    final var cache = this.runtime_search_caches.get(uri);
+    if (cache != null) {
+      cache.invalidate();
+    }
+    this.events.onNext(CoffeePickCatalogEventRepositoryUpdate.of(event));
+  }
+
+  private CoffeePickCatalogIndex buildIndex(
+    final URI uri,
+    final RuntimeRepositoryType repository,
+    final long generation)
+  {
+    /*
+     * The runtimes are decoded once to build the index and the latest views, and are then
+     * released; the index and the ID map look up matching runtimes in the repository's map on
+     * demand.
+     */
+
+    final var time_then = Instant.now();
+    final var source = repository.runtimes();
+    final var runtimes = List.copyOf(source.values());
+    final var index = CoffeePickCatalogIndex.create(source, runtimes);
+    LOG.debug(
+      "indexed {} runtimes of repository {} in {}",
+      Integer.valueOf(index.size()),
+      uri,
+      Duration.between(time_then, Instant.now()));
+
+    this.installIndex(uri, generation, index, runtimes);
+    return index;
+  }
+
   private void onRepositoriesChanged(
     final RuntimeRepositoryProviderRegistryEventType event)
   {
@@ -227,7 +390,15 @@ public final class CoffeePickCatalog implements CoffeePickCatalogType
   {
     final var uri = provider.uri();
     LOG.info("shutting down repository from provider {} ({})", provider.name(), uri);
-    this.runtime_repositories.remove(uri);
+    synchronized (this.runtime_index_lock) {
+      this.generationOf(uri).incrementAndGet();
+      this.runtime_repositories.remove(uri);
+      this.runtime_indexes.remove(uri);
+      this.runtime_searched.remove(uri);
+      this.runtime_search_caches.remove(uri);
+      this.runtime_ids.remove(uri);
+      this.runtime_latest.remove(uri);
+    }
     final var sub = this.runtime_repository_subscriptions.remove(uri);
     if (sub != null) {
       sub.dispose();
@@ -245,12 +416,465 @@ public final class CoffeePickCatalog implements CoffeePickCatalogType
     final CoffeePickSearch parameters)
   {
     Objects.requireNonNull(parameters, "parameters");
+    return this.searchWith(entry -> this.searchRepositoryCached(entry, parameters));
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> searchInexact(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return this.searchWith(entry -> this.searchRepositoryWith(
+      entry,
+      CoffeePickCatalogIndex::searchInexact,
+      CoffeePickCatalog::searchRepositoryInexact,
+      parameters));
+  }
+
+  @Override
+  public CoffeePickSearchPage searchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+
+    /*
+     * Each indexed repository contributes at most (limit + 1) runtimes, read from its index in the
+     * requested order starting from the cursor. The page is then selected from the union of the
+     * contributions.
+     */
+
+    final var limit = (int) Math.min((long) request.limit() + 1L, Integer.MAX_VALUE);
+    final var results = new ArrayList<RuntimeDescription>();
+    for (final var found : this.searchRepositories(entry -> this.searchRepositoryWith(
+      entry,
+      (index, parameters) ->
+        index.searchPage(parameters, request.order(), request.after(), limit),
+      CoffeePickCatalog::searchRepository,
+      request.search()))) {
+      results.addAll(found);
+    }
+    return CoffeePickSearches.pageOf(request, results);
+  }
+
+  @Override
+  public CoffeePickFacets facets(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    /*
+     * Each repository is counted into a separate counter as it is searched, and the counters are
+     * combined afterwards. A runtime that is present in more than one repository appears only once
+     * in search results, so when there is more than one repository, each matching runtime is
+     * counted only if it is the one that a search would return for its ID.
+     */
+
+    final var entries = List.copyOf(this.runtime_repositories.entrySet());
+    final var total = new CoffeePickFacetCounter();
+    for (final var counter : searchRepositories(
+      entries,
+      entry -> this.countRepository(entries, entry, parameters))) {
+      total.add(counter);
+    }
+    return total.toFacets();
+  }
+
+  private CoffeePickFacetCounter countRepository(
+    final List<Map.Entry<URI, RuntimeRepositoryType>> entries,
+    final Map.Entry<URI, RuntimeRepositoryType> entry,
+    final CoffeePickSearch parameters)
+  {
+    final var counter = new CoffeePickFacetCounter();
+    final Consumer<RuntimeDescription> count;
+    if (entries.size() > 1) {
+      final var position = entries.indexOf(entry);
+      final var predicate = CoffeePickSearchPredicate.exact(parameters);
+      count = runtime -> {
+        if (this.isSelected(entries, position, runtime, predicate)) {
+          counter.add(runtime);
+        }
+      };
+    } else {
+      count = counter::add;
+    }
+
+    final var index = this.indexFor(entry.getKey(), entry.getValue());
+    if (index != null) {
+      index.forEachMatching(parameters, count);
+    } else {
+      forEachMatching(entry.getValue(), parameters, count);
+    }
+    return counter;
+  }
+
+  private boolean isSelected(
+    final List<Map.Entry<URI, RuntimeRepositoryType>> entries,
+    final int position,
+    final RuntimeDescription runtime,
+    final CoffeePickSearchPredicate predicate)
+  {
+    /*
+     * When more than one repository has a matching runtime with the same ID, a search returns
+     * the greatest of them in runtime order, and the one from the last repository among equals
+     * (see merge). Each other repository is probed for the ID; repositories that do not share
+     * the ID cost a single hash probe, and no set of counted IDs is accumulated.
+     */
+
+    final var id = runtime.id();
+    final var order = CoffeePickSearches.runtimeOrder();
+    for (var other = 0; other < entries.size(); ++other) {
+      if (other == position) {
+        continue;
+      }
+
+      final var duplicate = this.matchingRuntime(entries.get(other), id, predicate);
+      if (duplicate != null) {
+        final var comparison = order.compare(duplicate, runtime);
+        if (comparison > 0 || (comparison == 0 && other > position)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private RuntimeDescription matchingRuntime(
+    final Map.Entry<URI, RuntimeRepositoryType> entry,
+    final String id,
+    final CoffeePickSearchPredicate predicate)
+  {
+    final var index = this.runtime_indexes.get(entry.getKey());
+    final var runtimes = index != null ? index.source() : entry.getValue().runtimes();
+    if (!runtimes.containsKey(id)) {
+      return null;
+    }
+
+    final var runtime = runtimes.get(id);
+    if (runtime != null && predicate.test(runtime)) {
+      return runtime;
+    }
+    return null;
+  }
+
+  @Override
+  public List<Map<String, RuntimeDescription>> searchBatch(
+    final List<CoffeePickSearch> searches)
+  {
+    Objects.requireNonNull(searches, "searches");
+
+    if (searches.isEmpty()) {
+      return List.of();
+    }
+
+    /*
+     * Repeated searches within the batch are evaluated once. Each repository produces a list of
+     * results for each distinct search, and the lists for each search are then merged across
+     * repositories.
+     */
+
+    final var distinct = List.copyOf(new LinkedHashSet<>(searches));
+    final var found =
+      this.searchRepositories(entry -> this.searchRepositoryBatch(entry, distinct));
+
+    final var merged =
+      new HashMap<CoffeePickSearch, Map<String, RuntimeDescription>>(distinct.size() * 2);
+    for (var search_index = 0; search_index < distinct.size(); ++search_index) {
+      final var search_results = new ArrayList<List<RuntimeDescription>>(found.size());
+      for (final var repository_results : found) {
+        search_results.add(repository_results.get(search_index));
+      }
+      merged.put(distinct.get(search_index), merge(search_results));
+    }
+
+    final var results = new ArrayList<Map<String, RuntimeDescription>>(searches.size());
+    for (final var search : searches) {
+      results.add(merged.get(search));
+    }
+    return results;
+  }
+
+  private List<List<RuntimeDescription>> searchRepositoryBatch(
+    final Map.Entry<URI, RuntimeRepositoryType> entry,
+    final List<CoffeePickSearch> searches)
+  {
+    /*
+     * Searches of an indexed repository are answered by the index (or the search cache) one at a
+     * time; each search costs a few bitset operations, so there is little to gain from combining
+     * them.
+     */
+
+    final var index = this.indexFor(entry.getKey(), entry.getValue());
+    if (index != null) {
+      final var results = new ArrayList<List<RuntimeDescription>>(searches.size());
+      for (final var search : searches) {
+        results.add(this.searchRepositoryCached(entry, search));
+      }
+      return results;
+    }
+
+    /*
+     * The repository has not been indexed. The repository is asked for the runtimes selected by
+     * a query that covers every search in the batch, and each of those runtimes is checked
+     * against every search. If the searches have no attribute in common, the covering query
+     * would select every runtime, so each search is instead narrowed by the repository
+     * separately, unless one of the searches would select every runtime anyway, or the
+     * repository cannot answer queries without examining every runtime.
+     */
+
+    final var repository = entry.getValue();
+    final var query = CoffeePickSearchQueries.queryCovering(searches);
+    final var results = new ArrayList<List<RuntimeDescription>>(searches.size());
+    if (repository.isSearchIndexed()
+      && CoffeePickSearchQueries.isUnconstrained(query)
+      && isEachNarrowed(searches)) {
+      for (final var search : searches) {
+        final var found = searchRepository(repository, search);
+        found.sort(CoffeePickSearches.runtimeOrder());
+        results.add(found);
+      }
+      return results;
+    }
 
-    return this.runtime_repositories.values()
-      .stream()
-      .flatMap(m -> m.runtimes().values().stream())
-      .filter(r -> CoffeePickSearches.matchesExact(r, parameters))
-      .collect(Collectors.toMap(RuntimeDescriptionType::id, Function.identity()));
+    final var predicates = new ArrayList<CoffeePickSearchPredicate>(searches.size());
+    for (final var search : searches) {
+      predicates.add(CoffeePickSearchPredicate.exact(search));
+      results.add(new ArrayList<>());
+    }
+
+    for (final var runtime : candidatesOf(repository, query)) {
+      for (var search_index = 0; search_index < predicates.size(); ++search_index) {
+        if (predicates.get(search_index).test(runtime)) {
+          results.get(search_index).add(runtime);
+        }
+      }
+    }
+
+    for (final var found : results) {
+      found.sort(CoffeePickSearches.runtimeOrder());
+    }
+    return results;
+  }
+
+  private static boolean isEachNarrowed(
+    final List<CoffeePickSearch> searches)
+  {
+    for (final var search : searches) {
+      if (CoffeePickSearchQueries.isUnconstrained(CoffeePickSearchQueries.queryOf(search))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Map<String, RuntimeDescription> searchWith(
+    final Function<Map.Entry<URI, RuntimeRepositoryType>, List<RuntimeDescription>> search)
+  {
+    return merge(this.searchRepositories(search));
+  }
+
+  private static Map<String, RuntimeDescription> merge(
+    final List<List<RuntimeDescription>> repository_results)
+  {
+    /*
+     * Results from each repository are already sorted. Results only need to be sorted here if
+     * they came from more than one repository.
+     */
+
+    final var results = new ArrayList<RuntimeDescription>();
+    var sources = 0;
+
+    for (final var found : repository_results) {
+      if (!found.isEmpty()) {
+        results.addAll(found);
+        ++sources;
+      }
+    }
+
+    if (sources > 1) {
+      results.sort(CoffeePickSearches.runtimeOrder());
+    }
+
+    final var ordered = new LinkedHashMap<String, RuntimeDescription>(results.size() * 2);
+    for (final var runtime : results) {
+      ordered.put(runtime.id(), runtime);
+    }
+    return ordered;
+  }
+
+  private <T> List<T> searchRepositories(
+    final Function<Map.Entry<URI, RuntimeRepositoryType>, T> search)
+  {
+    return searchRepositories(List.copyOf(this.runtime_repositories.entrySet()), search);
+  }
+
+  private static <T> List<T> searchRepositories(
+    final List<Map.Entry<URI, RuntimeRepositoryType>> entries,
+    final Function<Map.Entry<URI, RuntimeRepositoryType>, T> search)
+  {
+    /*
+     * Repositories are searched in parallel on the common fork-join pool, unless there is only
+     * one repository to search. Each repository's index may in turn divide a large search
+     * across the same pool.
+     */
+
+    final var stream = entries.size() > 1 ? entries.parallelStream() : entries.stream();
+    return stream.map(search).collect(Collectors.toList());
+  }
+
+  private List<RuntimeDescription> searchRepositoryCached(
+    final Map.Entry<URI, RuntimeRepositoryType> entry,
+    final CoffeePickSearch parameters)
+  {
+    /*
+     * The cache generation must be read before the search begins so that a result computed
+     * concurrently with an update of the repository is not cached.
+     */
+
+    final var cache =
+      this.runtime_search_caches.computeIfAbsent(
+        entry.getKey(),
+        uri -> new CoffeePickSearchCache<>(SEARCH_CACHE_SIZE));
+
+    final var generation = cache.generation();
+    final var cached = cache.get(parameters);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    final var results =
+      List.copyOf(this.searchRepositoryWith(
+        entry,
+        CoffeePickCatalogIndex::search,
+        CoffeePickCatalog::searchRepository,
+        parameters));
+
+    cache.put(generation, parameters, results);
+    return results;
+  }
+
+  private List<RuntimeDescription> searchRepositoryWith(
+    final Map.Entry<URI, RuntimeRepositoryType> entry,
+    final BiFunction<CoffeePickCatalogIndex, CoffeePickSearch, List<RuntimeDescription>> indexed,
+    final BiFunction<RuntimeRepositoryType, CoffeePickSearch, List<RuntimeDescription>> unindexed,
+    final CoffeePickSearch parameters)
+  {
+    final var index = this.indexFor(entry.getKey(), entry.getValue());
+    if (index != null) {
+      return indexed.apply(index, parameters);
+    }
+
+    final var found = unindexed.apply(entry.getValue(), parameters);
+    found.sort(CoffeePickSearches.runtimeOrder());
+    return found;
+  }
+
+  private CoffeePickCatalogIndex indexFor(
+    final URI uri,
+    final RuntimeRepositoryType repository)
+  {
+    final var index = this.runtime_indexes.get(uri);
+    if (index != null) {
+      return index;
+    }
+
+    /*
+     * The first search of a repository is answered by the repository itself, and no index is
+     * returned.
+     */
+
+    if (this.runtime_searched.add(uri)) {
+      return null;
+    }
+
+    return this.buildIndex(uri, repository, this.generationOf(uri).get());
+  }
+
+  private AtomicLong generationOf(
+    final URI uri)
+  {
+    return this.runtime_generations.computeIfAbsent(uri, k -> new AtomicLong());
+  }
+
+  private void installIndex(
+    final URI uri,
+    final long generation,
+    final CoffeePickCatalogIndex index,
+    final List<RuntimeDescription> runtimes)
+  {
+    /*
+     * The generation of a repository is incremented each time an update of the repository
+     * finishes, and when the repository is removed. An index built from runtimes that were read
+     * before either of those events is stale, and is discarded rather than installed; it may
+     * still be used to answer the search that built it.
+     */
+
+    synchronized (this.runtime_index_lock) {
+      if (this.generationOf(uri).get() != generation
+        || !this.runtime_repositories.containsKey(uri)) {
+        LOG.debug("discarding stale index of repository {}", uri);
+        return;
+      }
+      this.runtime_indexes.put(uri, index);
+      this.runtime_ids.put(uri, index.source(), index.ids());
+      this.runtime_latest.put(uri, runtimes);
+    }
+  }
+
+  private static List<RuntimeDescription> searchRepositoryInexact(
+    final RuntimeRepositoryType repository,
+    final CoffeePickSearch parameters)
+  {
+    final var predicate = CoffeePickSearchPredicate.inexact(parameters);
+    final var results = new ArrayList<RuntimeDescription>();
+    for (final var runtime : repository.runtimes().values()) {
+      if (predicate.test(runtime)) {
+        results.add(runtime);
+      }
+    }
+    return results;
+  }
+
+  private static List<RuntimeDescription> searchRepository(
+    final RuntimeRepositoryType repository,
+    final CoffeePickSearch parameters)
+  {
+    final var results = new ArrayList<RuntimeDescription>();
+    forEachMatching(repository, parameters, results::add);
+    return results;
+  }
+
+  private static void forEachMatching(
+    final RuntimeRepositoryType repository,
+    final CoffeePickSearch parameters,
+    final Consumer<RuntimeDescription> consumer)
+  {
+    /*
+     * Narrow the search using the attributes that repositories can index, and then apply the
+     * full search to the (hopefully small) set of candidates.
+     */
+
+    final var query = CoffeePickSearchQueries.queryOf(parameters);
+    final var predicate = CoffeePickSearchPredicate.exact(parameters);
+    for (final var runtime : candidatesOf(repository, query)) {
+      if (predicate.test(runtime)) {
+        consumer.accept(runtime);
+      }
+    }
+  }
+
+  private static Collection<RuntimeDescription> candidatesOf(
+    final RuntimeRepositoryType repository,
+    final RuntimeDescriptionQuery query)
+  {
+    /*
+     * Repositories that do not index their runtimes would answer a query by examining every
+     * runtime, and every candidate is checked against the full search anyway.
+     */
+
+    if (repository.isSearchIndexed()) {
+      return repository.search(query).values();
+    }
+    return repository.runtimes().values();
   }
 
   @Override
@@ -259,16 +883,52 @@ public final class CoffeePickCatalog implements CoffeePickCatalogType
   {
     Objects.requireNonNull(id, "id");
 
-    for (final var repository : this.runtime_repositories.values()) {
-      final var runtimes = repository.runtimes();
-      final var description = runtimes.get(id);
-      if (description != null) {
-        return Optional.of(description);
+    final var indexed = this.runtime_ids.get(id);
+    if (indexed.isPresent()) {
+      return indexed;
+    }
+
+    for (final var entry : this.runtime_repositories.entrySet()) {
+      if (!this.runtime_ids.contains(entry.getKey())) {
+        final var description = entry.getValue().runtimes().get(id);
+        if (description != null) {
+          return Optional.of(description);
+        }
       }
     }
     return Optional.empty();
   }
 
+  @Override
+  public Optional<RuntimeDescription> searchLatest(
+    final CoffeePickLatestKey key)
+  {
+    Objects.requireNonNull(key, "key");
+
+    var newest = this.runtime_latest.get(key);
+
+    /*
+     * Repositories that have not yet been indexed are not reflected in the views, and are
+     * searched directly.
+     */
+
+    CoffeePickSearch search = null;
+    for (final var entry : this.runtime_repositories.entrySet()) {
+      if (!this.runtime_latest.contains(entry.getKey())) {
+        if (search == null) {
+          search = CoffeePickSearches.searchOf(key);
+        }
+        for (final var runtime : searchRepository(entry.getValue(), search)) {
+          if (newest.isEmpty()
+            || CoffeePickSearches.runtimeOrder().compare(runtime, newest.get()) > 0) {
+            newest = Optional.of(runtime);
+          }
+        }
+      }
+    }
+    return newest;
+  }
+
   @Override
   public InputStream fetch(
     final String id)
@@ -21,9 +21,13 @@ import com.io7m.coffeepick.api.CoffeePickCatalogType;
 import com.io7m.coffeepick.api.CoffeePickClientProviderType;
 import com.io7m.coffeepick.api.CoffeePickClientType;
 import com.io7m.coffeepick.api.CoffeePickEventType;
+import com.io7m.coffeepick.api.CoffeePickFacets;
 import com.io7m.coffeepick.api.CoffeePickInventoryEventType;
 import com.io7m.coffeepick.api.CoffeePickInventoryType;
+import com.io7m.coffeepick.api.CoffeePickLatestKey;
 import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchPage;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
 import com.io7m.coffeepick.api.CoffeePickTaskEventFailed;
 import com.io7m.coffeepick.api.CoffeePickTaskEventStarted;
 import com.io7m.coffeepick.api.CoffeePickTaskEventSucceeded;
@@ -263,13 +267,37 @@ public final class CoffeePickClients implements CoffeePickClientProviderType
       );
     }
 
+    @Override
+    public CompletableFuture<CoffeePickSearchPage> inventorySearchPage(
+      final CoffeePickSearchPageRequest request)
+    {
+      Objects.requireNonNull(request, "request");
+      this.checkNotClosed();
+      return this.submit(
+        this.strings.inventorySearch(),
+        future -> this.inventory.searchPage(request)
+      );
+    }
+
+    @Override
+    public CompletableFuture<CoffeePickFacets> inventoryFacets(
+      final CoffeePickSearch parameters)
+    {
+      Objects.requireNonNull(parameters, "parameters");
+      this.checkNotClosed();
+      return this.submit(
+        this.strings.inventorySearch(),
+        future -> this.inventory.facets(parameters)
+      );
+    }
+
     @Override
     public CompletableFuture<Optional<RuntimeDescription>> inventorySearchExact(
       final String id)
     {
       Objects.requireNonNull(id, "id");
       this.checkNotClosed();
-      return this.submit(
+      return this.immediate(
         this.strings.inventorySearch(),
         future -> this.inventory.searchExact(id)
       );
@@ -287,6 +315,72 @@ public final class CoffeePickClients implements CoffeePickClientProviderType
       );
     }
 
+    @Override
+    public CompletableFuture<CoffeePickSearchPage> catalogSearchPage(
+      final CoffeePickSearchPageRequest request)
+    {
+      Objects.requireNonNull(request, "request");
+      this.checkNotClosed();
+      return this.submit(
+        this.strings.catalogSearch(),
+        future -> this.catalog.searchPage(request)
+      );
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, RuntimeDescription>>> catalogSearchBatch(
+      final List<CoffeePickSearch> searches)
+    {
+      Objects.requireNonNull(searches, "searches");
+      this.checkNotClosed();
+      return this.submit(
+        this.strings.catalogSearch(),
+        future -> this.catalog.searchBatch(searches)
+      );
+    }
+
+    @Override
+    public CompletableFuture<CoffeePickFacets> catalogFacets(
+      final CoffeePickSearch parameters)
+    {
+      Objects.requireNonNull(parameters, "parameters");
+      this.checkNotClosed();
+      return this.submit(
+        this.strings.catalogSearch(),
+        future -> this.catalog.facets(parameters)
+      );
+    }
+
+    @Override
+    public CompletableFuture<Optional<RuntimeDescription>> catalogSearchLatest(
+      final CoffeePickLatestKey key)
+    {
+      Objects.requireNonNull(key, "key");
+      this.checkNotClosed();
+
+      /*
+       * The catalog answers from its latest views only for indexed repositories; for other
+       * repositories the lookup is a full search, so it is not run on the calling thread.
+       */
+
+      return this.submit(
+        this.strings.catalogSearch(),
+        future -> this.catalog.searchLatest(key)
+      );
+    }
+
+    @Override
+    public CompletableFuture<Optional<RuntimeDescription>> catalogSearchExact(
+      final String id)
+    {
+      Objects.requireNonNull(id, "id");
+      this.checkNotClosed();
+      return this.immediate(
+        this.strings.catalogSearch(),
+        future -> this.catalog.searchExact(id)
+      );
+    }
+
     @Override
     public CompletableFuture<Path> catalogDownload(
       final String id)
@@ -555,35 +649,58 @@ public final class CoffeePickClients implements CoffeePickClientProviderType
       Objects.requireNonNull(callable, "callable");
 
       final var future = new CompletableFuture<T>();
-      this.executor.execute(() -> {
-        try {
-          this.events.onNext(
-            CoffeePickTaskEventStarted.builder()
-              .setDescription(message)
-              .build()
-          );
-
-          future.complete(callable.execute(future));
-
-          this.events.onNext(
-            CoffeePickTaskEventSucceeded.builder()
-              .setDescription(message)
-              .build()
-          );
-        } catch (final Throwable ex) {
-          future.completeExceptionally(ex);
-
-          this.events.onNext(
-            CoffeePickTaskEventFailed.builder()
-              .setDescription(message)
-              .build()
-          );
-        }
-      });
+      this.executor.execute(() -> this.run(message, callable, future));
+      return future;
+    }
+
+    /**
+     * Run a task on the calling thread. This is only suitable for tasks that are guaranteed to be
+     * cheap, such as lookups by ID, that should not have to wait for long-running tasks such as
+     * downloads to complete.
+     */
 
+    private <T> CompletableFuture<T> immediate(
+      final String message,
+      final TaskType<T> callable)
+    {
+      Objects.requireNonNull(message, "message");
+      Objects.requireNonNull(callable, "callable");
+
+      final var future = new CompletableFuture<T>();
+      this.run(message, callable, future);
       return future;
     }
 
+    private <T> void run(
+      final String message,
+      final TaskType<T> callable,
+      final CompletableFuture<T> future)
+    {
+      try {
+        this.events.onNext(
+          CoffeePickTaskEventStarted.builder()
+            .setDescription(message)
+            .build()
+        );
+
+        future.complete(callable.execute(future));
+
+        this.events.onNext(
+          CoffeePickTaskEventSucceeded.builder()
+            .setDescription(message)
+            .build()
+        );
+      } catch (final Throwable ex) {
+        future.completeExceptionally(ex);
+
+        this.events.onNext(
+          CoffeePickTaskEventFailed.builder()
+            .setDescription(message)
+            .build()
+        );
+      }
+    }
+
     private void checkNotClosed()
     {
       if (this.closed.get()) {
@@ -16,6 +16,8 @@
 
 package com.io7m.coffeepick.client.vanilla;
 
+import com.io7m.coffeepick.api.CoffeePickFacetCounter;
+import com.io7m.coffeepick.api.CoffeePickFacets;
 import com.io7m.coffeepick.api.CoffeePickInventoryEventRuntimeDeleted;
 import com.io7m.coffeepick.api.CoffeePickInventoryEventRuntimeLoadFailed;
 import com.io7m.coffeepick.api.CoffeePickInventoryEventRuntimeLoaded;
@@ -23,9 +25,13 @@ import com.io7m.coffeepick.api.CoffeePickInventoryEventType;
 import com.io7m.coffeepick.api.CoffeePickInventoryType;
 import com.io7m.coffeepick.api.CoffeePickIsCancelledType;
 import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchPage;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
+import com.io7m.coffeepick.api.CoffeePickSearchPredicate;
 import com.io7m.coffeepick.api.CoffeePickSearches;
 import com.io7m.coffeepick.api.CoffeePickVerification;
 import com.io7m.coffeepick.client.vanilla.internal.CoffeePickArchiveEntries;
+import com.io7m.coffeepick.client.vanilla.internal.CoffeePickSearchCache;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
 import com.io7m.coffeepick.runtime.RuntimeDescriptionType;
 import com.io7m.coffeepick.runtime.RuntimeDescriptions;
@@ -47,7 +53,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.PosixFilePermission;
@@ -57,14 +65,16 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
@@ -76,6 +86,16 @@ import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
  * An inventory of downloaded runtimes.
+ *
+ * <p>Each runtime is stored in its own directory, and the runtime directories are sharded by the
+ * first four characters of the runtime ID so that no single directory grows too large. For
+ * example, the runtime {@code 2cf24dba...} is stored in {@code 2c/f2/2cf24dba...}. Inventories
+ * written by older versions (consisting of one flat directory of runtime directories) are migrated
+ * to the sharded layout when opened. Shard directories that become empty when a runtime is
+ * deleted are removed; writers recreate them if they are removed concurrently.</p>
+ *
+ * <p>The results of recent searches are cached, and the cache is discarded whenever a runtime is
+ * written to or deleted from the inventory.</p>
  */
 
 public final class CoffeePickInventory implements CoffeePickInventoryType
@@ -92,12 +112,21 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     "archive";
   private static final String ARCHIVE_TMP =
     "archive.tmp";
+  private static final int SHARD_WIDTH =
+    2;
+  private static final int SHARD_DEPTH =
+    2;
+  private static final int SEARCH_CACHE_SIZE =
+    64;
+  private static final int LOCK_ATTEMPTS =
+    8;
 
   private final Map<String, RuntimeDescription> runtimes;
   private final Subject<CoffeePickInventoryEventType> events;
   private final CompressorStreamFactory compressors;
   private final Path path;
   private final ArchiveStreamFactory archives;
+  private final CoffeePickSearchCache<Map<String, RuntimeDescription>> search_cache;
 
   private CoffeePickInventory(
     final Subject<CoffeePickInventoryEventType> in_events,
@@ -107,7 +136,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     final Path in_path)
   {
     this.runtimes =
-      new TreeMap<>(Objects.requireNonNull(in_runtimes, "runtimes"));
+      new ConcurrentHashMap<>(Objects.requireNonNull(in_runtimes, "runtimes"));
     this.events =
       Objects.requireNonNull(in_events, "events");
     this.compressors =
@@ -116,6 +145,8 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
       Objects.requireNonNull(in_path, "path");
     this.archives =
       Objects.requireNonNull(in_archives, "archives");
+    this.search_cache =
+      new CoffeePickSearchCache<>(SEARCH_CACHE_SIZE);
   }
 
   /**
@@ -163,19 +194,116 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     Objects.requireNonNull(events, "events");
 
     Files.createDirectories(path);
-
-    final var runtimes =
-      Files.list(path)
-        .map(Path::toAbsolutePath)
-        .filter(Files::isDirectory)
-        .map(directory -> load(events, directory))
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .collect(Collectors.toMap(o -> o.archiveHash().value(), o -> o));
+    migrateFlatLayout(path);
+
+    final Map<String, RuntimeDescription> runtimes;
+    try (var stream = Files.walk(path, SHARD_DEPTH + 1)) {
+      runtimes =
+        stream.filter(p -> path.relativize(p).getNameCount() == SHARD_DEPTH + 1)
+          .map(Path::toAbsolutePath)
+          .filter(Files::isDirectory)
+          .map(directory -> load(events, directory))
+          .filter(Optional::isPresent)
+          .map(Optional::get)
+          .collect(Collectors.toMap(o -> o.archiveHash().value(), o -> o));
+    }
 
     return new CoffeePickInventory(events, runtimes, archives, compressors, path);
   }
 
+  private static Path directoryFor(
+    final Path path,
+    final String id)
+  {
+    final var width = SHARD_WIDTH * SHARD_DEPTH;
+    final var padded =
+      id.length() >= width ? id : (id + "_".repeat(width)).substring(0, width);
+
+    var directory = path;
+    for (var index = 0; index < SHARD_DEPTH; ++index) {
+      final var start = index * SHARD_WIDTH;
+      directory = directory.resolve(padded.substring(start, start + SHARD_WIDTH));
+    }
+    return directory.resolve(id).toAbsolutePath();
+  }
+
+  private static void migrateFlatLayout(
+    final Path path)
+    throws IOException
+  {
+    final List<Path> directories;
+    try (var stream = Files.list(path)) {
+      directories =
+        stream.filter(Files::isDirectory)
+          .filter(directory -> Files.exists(directory.resolve(META_PROPERTIES))
+            || Files.exists(directory.resolve(LOCK)))
+          .collect(Collectors.toList());
+    }
+
+    if (directories.isEmpty()) {
+      return;
+    }
+
+    LOG.info(
+      "migrating {} runtimes in {} to sharded layout",
+      Integer.valueOf(directories.size()),
+      path);
+
+    for (final var directory : directories) {
+      final var target = directoryFor(path, directory.getFileName().toString());
+      try {
+        Files.createDirectories(target.getParent());
+        LOG.debug("rename {} -> {}", directory, target);
+        Files.move(directory, target, ATOMIC_MOVE);
+      } catch (final IOException e) {
+        LOG.error("could not migrate {}: ", directory, e);
+      }
+    }
+  }
+
+  private static void deleteEmptyShards(
+    final Path directory)
+  {
+    var current = directory.getParent();
+    for (var index = 0; index < SHARD_DEPTH && current != null; ++index) {
+      try {
+        LOG.debug("delete {}", current);
+        Files.delete(current);
+      } catch (final DirectoryNotEmptyException e) {
+        return;
+      } catch (final IOException e) {
+        LOG.debug("could not delete {}: ", current, e);
+        return;
+      }
+      current = current.getParent();
+    }
+  }
+
+  private static FileChannel openLockCreatingDirectory(
+    final Path directory,
+    final Path lock)
+    throws IOException
+  {
+    /*
+     * Deleting a runtime prunes shard directories that have become empty, possibly in another
+     * process, and so the shard directories can be removed after they have been created here but
+     * before the lock file has been created within them. Once the lock file exists, none of the
+     * directories that contain it are empty, and so they will not be pruned.
+     */
+
+    for (var attempt = 1; true; ++attempt) {
+      Files.createDirectories(directory);
+      try {
+        return FileChannel.open(lock, CREATE, WRITE);
+      } catch (final NoSuchFileException e) {
+        if (attempt >= LOCK_ATTEMPTS) {
+          throw e;
+        }
+        LOG.debug("directory {} was removed concurrently; retrying", directory);
+      }
+    }
+  }
+
   private static Optional<RuntimeDescription> load(
     final Subject<CoffeePickInventoryEventType> events,
     final Path path)
@@ -467,10 +595,55 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
   {
     Objects.requireNonNull(parameters, "parameters");
 
-    return this.runtimes.values()
-      .stream()
-      .filter(runtime -> CoffeePickSearches.matchesExact(runtime, parameters))
-      .collect(Collectors.toMap(RuntimeDescriptionType::id, d -> d));
+    /*
+     * The cache holds immutable results, and callers receive their own mutable copy, as they
+     * did before results were cached.
+     */
+
+    final var generation = this.search_cache.generation();
+    final var cached = this.search_cache.get(parameters);
+    if (cached.isPresent()) {
+      return new HashMap<>(cached.get());
+    }
+
+    final var results =
+      Map.copyOf(
+        this.runtimes.values()
+          .stream()
+          .filter(CoffeePickSearchPredicate.exact(parameters))
+          .collect(Collectors.toMap(RuntimeDescriptionType::id, d -> d)));
+
+    this.search_cache.put(generation, parameters, results);
+    return new HashMap<>(results);
+  }
+
+  @Override
+  public CoffeePickSearchPage searchPage(
+    final CoffeePickSearchPageRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+
+    return CoffeePickSearches.pageOf(
+      request,
+      this.runtimes.values()
+        .stream()
+        .filter(CoffeePickSearchPredicate.exact(request.search()))::iterator);
+  }
+
+  @Override
+  public CoffeePickFacets facets(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var predicate = CoffeePickSearchPredicate.exact(parameters);
+    final var counter = new CoffeePickFacetCounter();
+    for (final var runtime : this.runtimes.values()) {
+      if (predicate.test(runtime)) {
+        counter.add(runtime);
+      }
+    }
+    return counter.toFacets();
   }
 
   @Override
@@ -485,10 +658,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     final var runtime_id = description.id();
 
     final var directory =
-      this.path.resolve(runtime_id)
-        .toAbsolutePath();
-
-    Files.createDirectories(directory);
+      directoryFor(this.path, runtime_id);
 
     final var lock =
       directory.resolve(LOCK).toAbsolutePath();
@@ -502,7 +672,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
       directory.resolve(META_PROPERTIES).toAbsolutePath();
 
     LOG.debug("lock {}", lock);
-    try (var channel = FileChannel.open(lock, CREATE, WRITE)) {
+    try (var channel = openLockCreatingDirectory(directory, lock)) {
       try (var ignored = channel.lock()) {
         try {
           writeLockedArchive(description, writer, archive_tmp, archive);
@@ -524,6 +694,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     }
 
     this.runtimes.put(runtime_id, description);
+    this.search_cache.invalidate();
     this.events.onNext(CoffeePickInventoryEventRuntimeLoaded.of(runtime_id));
     return archive;
   }
@@ -536,8 +707,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     Objects.requireNonNull(id, "ID");
 
     final var directory =
-      this.path.resolve(id)
-        .toAbsolutePath();
+      directoryFor(this.path, id);
 
     if (Files.isDirectory(directory)) {
       final var lock =
@@ -572,10 +742,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
       target_path.toAbsolutePath();
 
     final var directory =
-      this.path.resolve(id)
-        .toAbsolutePath();
-
-    Files.createDirectories(directory);
+      directoryFor(this.path, id);
 
     final var lock =
       directory.resolve(LOCK).toAbsolutePath();
@@ -583,7 +750,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
       directory.resolve(ARCHIVE).toAbsolutePath();
 
     LOG.debug("lock {}", lock);
-    try (var channel = FileChannel.open(lock, CREATE, WRITE)) {
+    try (var channel = openLockCreatingDirectory(directory, lock)) {
       try (var ignored = channel.lock()) {
         try {
           this.unpackLocked(target_abs, archive, cancelled, options);
@@ -651,8 +818,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     Objects.requireNonNull(id, "ID");
 
     final var directory =
-      this.path.resolve(id)
-        .toAbsolutePath();
+      directoryFor(this.path, id);
 
     if (Files.isDirectory(directory)) {
       final var lock =
@@ -670,8 +836,10 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
       Files.deleteIfExists(lock);
       LOG.debug("delete {}", directory);
       Files.delete(directory);
+      deleteEmptyShards(directory);
 
       this.runtimes.remove(id);
+      this.search_cache.invalidate();
       this.events.onNext(CoffeePickInventoryEventRuntimeDeleted.of(id));
     }
   }
@@ -686,8 +854,7 @@ public final class CoffeePickInventory implements CoffeePickInventoryType
     Objects.requireNonNull(cancelled, "cancelled");
 
     final var directory =
-      this.path.resolve(id)
-        .toAbsolutePath();
+      directoryFor(this.path, id);
 
     final var lock =
       directory.resolve(LOCK).toAbsolutePath();
@@ -23,6 +23,7 @@ import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.OptionalInt;
 
 /**
  * The default runtime repository context implementation.
@@ -32,19 +33,23 @@ public final class CoffeePickRuntimeRepositoryContext implements RuntimeReposito
 {
   private final Path cache_directory;
   private final HttpClient http;
+  private final OptionalInt retained;
 
   private CoffeePickRuntimeRepositoryContext(
     final Path in_cache_directory,
-    final HttpClient in_http)
+    final HttpClient in_http,
+    final OptionalInt in_retained)
   {
     this.cache_directory =
       Objects.requireNonNull(in_cache_directory, "cache_directory");
     this.http =
       Objects.requireNonNull(in_http, "http");
+    this.retained =
+      Objects.requireNonNull(in_retained, "retained");
   }
 
   /**
-   * Open a new context.
+   * Open a new context. Repositories retain all runtimes.
    *
    * @param base_directory The base directory against which repositories will resolve paths
    * @param http           The HTTP client used for requests
@@ -58,13 +63,37 @@ public final class CoffeePickRuntimeRepositoryContext implements RuntimeReposito
     final Path base_directory,
     final HttpClient http)
     throws IOException
+  {
+    return open(base_directory, http, OptionalInt.empty());
+  }
+
+  /**
+   * Open a new context.
+   *
+   * @param base_directory The base directory against which repositories will resolve paths
+   * @param http           The HTTP client used for requests
+   * @param retained       The maximum number of runtimes retained for each combination of
+   *                       platform, architecture, and major version, if any
+   *
+   * @return A new context
+   *
+   * @throws IOException On I/O errors
+   * @see RuntimeRepositoryContextType#retainedRuntimesPerMajorVersion()
+   */
+
+  public static RuntimeRepositoryContextType open(
+    final Path base_directory,
+    final HttpClient http,
+    final OptionalInt retained)
+    throws IOException
   {
     Objects.requireNonNull(base_directory, "base_directory");
     Objects.requireNonNull(http, "http");
+    Objects.requireNonNull(retained, "retained");
 
     final var cache = base_directory.resolve("cache").toAbsolutePath();
     Files.createDirectories(cache);
-    return new CoffeePickRuntimeRepositoryContext(cache, http);
+    return new CoffeePickRuntimeRepositoryContext(cache, http, retained);
   }
 
   @Override
@@ -78,4 +107,10 @@ public final class CoffeePickRuntimeRepositoryContext implements RuntimeReposito
   {
     return this.http;
   }
+
+  @Override
+  public OptionalInt retainedRuntimesPerMajorVersion()
+  {
+    return this.retained;
+  }
 }
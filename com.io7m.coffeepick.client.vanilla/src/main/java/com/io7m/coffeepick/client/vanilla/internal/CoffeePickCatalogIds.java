@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.client.vanilla.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A catalog-wide map from runtime IDs to runtimes, assembled from the runtimes of any number of
+ * repositories.
+ *
+ * <p>Lookups are a single probe of a concurrent hash map and do not take any locks. The map
+ * holds the IDs of runtimes and the map of runtimes of the repository that provides each ID;
+ * the runtimes themselves are looked up in the repository's map on demand, so that a repository
+ * that decodes runtimes lazily is not forced to keep every runtime decoded. The runtimes of a
+ * repository are replaced or removed as a unit; if more than one repository provides a runtime
+ * with the same ID, then the runtime remains available for as long as any of those repositories
+ * does.</p>
+ */
+
+public final class CoffeePickCatalogIds
+{
+  private final ConcurrentHashMap<String, Map<String, RuntimeDescription>> ids;
+  private final Map<URI, Provided> repositories;
+
+  /**
+   * Create an empty map.
+   */
+
+  public CoffeePickCatalogIds()
+  {
+    this.ids = new ConcurrentHashMap<>(1024);
+    this.repositories = new HashMap<>(16);
+  }
+
+  /**
+   * @param id The ID of a runtime
+   *
+   * @return The runtime with the given ID, if any
+   */
+
+  public Optional<RuntimeDescription> get(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+
+    final var source = this.ids.get(id);
+    if (source == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(source.get(id));
+  }
+
+  /**
+   * @param repository The URI of a repository
+   *
+   * @return {@code true} if the runtimes of the given repository are present in the map
+   */
+
+  public synchronized boolean contains(
+    final URI repository)
+  {
+    Objects.requireNonNull(repository, "repository");
+    return this.repositories.containsKey(repository);
+  }
+
+  /**
+   * Replace the runtimes of the given repository.
+   *
+   * @param repository The URI of a repository
+   * @param source     The map of runtimes of the repository, retained for lookups
+   * @param runtimeIds The IDs of the runtimes in {@code source}
+   */
+
+  public synchronized void put(
+    final URI repository,
+    final Map<String, RuntimeDescription> source,
+    final Collection<String> runtimeIds)
+  {
+    Objects.requireNonNull(repository, "repository");
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(runtimeIds, "runtimeIds");
+
+    final var provided = new Provided(source, Set.copyOf(runtimeIds));
+    final var previous = this.repositories.put(repository, provided);
+    if (previous != null) {
+      for (final var id : previous.runtimeIds) {
+        if (!provided.runtimeIds.contains(id)) {
+          this.restore(id);
+        }
+      }
+    }
+    for (final var id : provided.runtimeIds) {
+      this.ids.put(id, source);
+    }
+  }
+
+  /**
+   * Remove the runtimes of the given repository.
+   *
+   * @param repository The URI of a repository
+   */
+
+  public synchronized void remove(
+    final URI repository)
+  {
+    Objects.requireNonNull(repository, "repository");
+
+    final var previous = this.repositories.remove(repository);
+    if (previous != null) {
+      for (final var id : previous.runtimeIds) {
+        this.restore(id);
+      }
+    }
+  }
+
+  private void restore(
+    final String id)
+  {
+    for (final var provided : this.repositories.values()) {
+      if (provided.runtimeIds.contains(id)) {
+        this.ids.put(id, provided.source);
+        return;
+      }
+    }
+    this.ids.remove(id);
+  }
+
+  private static final class Provided
+  {
+    private final Map<String, RuntimeDescription> source;
+    private final Set<String> runtimeIds;
+
+    Provided(
+      final Map<String, RuntimeDescription> inSource,
+      final Set<String> inRuntimeIds)
+    {
+      this.source = inSource;
+      this.runtimeIds = inRuntimeIds;
+    }
+  }
+}
@@ -0,0 +1,707 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.client.vanilla.internal;
+
+import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchOrder;
+import com.io7m.coffeepick.api.CoffeePickSearchPredicate;
+import com.io7m.coffeepick.api.CoffeePickSearches;
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+import com.io7m.coffeepick.runtime.RuntimeVersionRange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * An immutable in-memory inverted index over the runtimes of a single repository.
+ *
+ * <p>Each runtime is assigned a dense ordinal, and each value of each exactly-matched attribute
+ * (platform, architecture, VM, configuration, repository, and each tag) is mapped to the set of
+ * ordinals of the runtimes that have that value. A search intersects the sets for the attributes
+ * specified in the search, and only the runtimes that remain are checked against the full
+ * search.</p>
+ *
+ * <p>Ordinals are assigned in the order given by {@link CoffeePickSearches#runtimeOrder()}, so
+ * the ordinals of the runtimes within any version range form a single contiguous interval that is
+ * located by binary search, and search results are produced already sorted.</p>
+ *
+ * <p>For inexact searches, the distinct values of the platform, architecture, VM, and repository
+ * attributes are case-folded once when the index is built, so that a pattern need only be
+ * compared against each distinct value rather than against every runtime. Runtime IDs are almost
+ * all distinct, so the case-folded IDs are instead indexed by the trigrams (sequences of three
+ * characters) that they contain; only the runtimes whose IDs contain every trigram of a pattern
+ * are candidates for a match.</p>
+ *
+ * <p>When a search leaves a large number of candidates, the candidates are divided into
+ * contiguous ranges of ordinals that are checked in parallel on the common fork-join pool.</p>
+ *
+ * <p>The index does not retain the runtimes themselves. It retains the ID of the runtime with each
+ * ordinal, along with the attributes that determine the order of runtimes, and the map of runtimes
+ * from which it was built. Candidates are looked up in that map as they are checked. A repository
+ * that decodes runtimes on demand may therefore discard decoded runtimes once the index has been
+ * built.</p>
+ */
+
+public final class CoffeePickCatalogIndex
+{
+  private static final int PARALLEL_THRESHOLD = 8192;
+  private static final int SEGMENT_SIZE = 4096;
+
+  private final Map<String, RuntimeDescription> source;
+  private final String[] runtimeIds;
+  private final RuntimeVersion[] versions;
+  private final String[] architecturesByOrdinal;
+  private final String[] platformsByOrdinal;
+  private final Map<String, Integer> ids;
+  private final Map<String, BitSet> platforms;
+  private final Map<String, BitSet> architectures;
+  private final Map<String, BitSet> vms;
+  private final Map<RuntimeConfiguration, BitSet> configurations;
+  private final Map<String, BitSet> repositories;
+  private final Map<String, BitSet> tags;
+  private final Map<String, BitSet> foldedPlatforms;
+  private final Map<String, BitSet> foldedArchitectures;
+  private final Map<String, BitSet> foldedVms;
+  private final Map<String, BitSet> foldedRepositories;
+  private final Map<Long, int[]> idTrigrams;
+
+  private CoffeePickCatalogIndex(
+    final Map<String, RuntimeDescription> inSource,
+    final RuntimeDescription[] inRuntimes)
+  {
+    this.source = inSource;
+    this.runtimeIds = new String[inRuntimes.length];
+    this.versions = new RuntimeVersion[inRuntimes.length];
+    this.architecturesByOrdinal = new String[inRuntimes.length];
+    this.platformsByOrdinal = new String[inRuntimes.length];
+    this.ids = new HashMap<>(inRuntimes.length * 2);
+    this.platforms = new HashMap<>(16);
+    this.architectures = new HashMap<>(16);
+    this.vms = new HashMap<>(16);
+    this.configurations = new EnumMap<>(RuntimeConfiguration.class);
+    this.repositories = new HashMap<>(4);
+    this.tags = new HashMap<>(64);
+
+    for (var ordinal = 0; ordinal < inRuntimes.length; ++ordinal) {
+      final var runtime = inRuntimes[ordinal];
+      this.runtimeIds[ordinal] = runtime.id();
+      this.versions[ordinal] = runtime.version();
+      this.architecturesByOrdinal[ordinal] = runtime.architecture();
+      this.platformsByOrdinal[ordinal] = runtime.platform();
+      this.ids.put(runtime.id(), Integer.valueOf(ordinal));
+      set(this.platforms, runtime.platform(), ordinal);
+      set(this.architectures, runtime.architecture(), ordinal);
+      set(this.vms, runtime.vm(), ordinal);
+      set(this.configurations, runtime.configuration(), ordinal);
+      set(this.repositories, runtime.repository().toString(), ordinal);
+      for (final var tag : runtime.tags()) {
+        set(this.tags, tag, ordinal);
+      }
+    }
+
+    this.foldedPlatforms = fold(this.platforms);
+    this.foldedArchitectures = fold(this.architectures);
+    this.foldedVms = fold(this.vms);
+    this.foldedRepositories = fold(this.repositories);
+    this.idTrigrams = trigramsOf(inRuntimes);
+  }
+
+  private static Map<String, BitSet> fold(
+    final Map<String, BitSet> index)
+  {
+    final var result = new HashMap<String, BitSet>(index.size() * 2);
+    for (final var entry : index.entrySet()) {
+      result.computeIfAbsent(CoffeePickSearches.foldCase(entry.getKey()), k -> new BitSet())
+        .or(entry.getValue());
+    }
+    return result;
+  }
+
+  private static Map<Long, int[]> trigramsOf(
+    final RuntimeDescription[] runtimes)
+  {
+    final var builders = new HashMap<Long, Postings>(4096);
+    for (var ordinal = 0; ordinal < runtimes.length; ++ordinal) {
+      final var id = CoffeePickSearches.foldCase(runtimes[ordinal].id());
+      for (var offset = 0; offset + 3 <= id.length(); ++offset) {
+        builders.computeIfAbsent(trigramOf(id, offset), k -> new Postings())
+          .add(ordinal);
+      }
+    }
+
+    final var result = new HashMap<Long, int[]>(builders.size() * 2);
+    for (final var entry : builders.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().toArray());
+    }
+    return result;
+  }
+
+  private static Long trigramOf(
+    final String text,
+    final int offset)
+  {
+    return Long.valueOf(
+      ((long) text.charAt(offset) << 32)
+        | ((long) text.charAt(offset + 1) << 16)
+        | (long) text.charAt(offset + 2));
+  }
+
+  private static <K> void set(
+    final Map<K, BitSet> index,
+    final K key,
+    final int ordinal)
+  {
+    index.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+  }
+
+  /**
+   * Build an index over the given runtimes. The index retains {@code source} and looks up
+   * candidates in it by ID; the index does not retain {@code runtimes}. A candidate that has since
+   * been removed from {@code source} does not match any search.
+   *
+   * @param source   The map of runtimes from which the index is built
+   * @param runtimes The values of {@code source}
+   *
+   * @return An index
+   */
+
+  public static CoffeePickCatalogIndex create(
+    final Map<String, RuntimeDescription> source,
+    final Collection<RuntimeDescription> runtimes)
+  {
+    Objects.requireNonNull(source, "source");
+    Objects.requireNonNull(runtimes, "runtimes");
+
+    final var sorted = runtimes.toArray(new RuntimeDescription[0]);
+    Arrays.sort(sorted, CoffeePickSearches.runtimeOrder());
+    return new CoffeePickCatalogIndex(source, sorted);
+  }
+
+  /**
+   * @return The number of indexed runtimes
+   */
+
+  public int size()
+  {
+    return this.runtimeIds.length;
+  }
+
+  /**
+   * @return The IDs of the indexed runtimes
+   */
+
+  public List<String> ids()
+  {
+    return Collections.unmodifiableList(Arrays.asList(this.runtimeIds));
+  }
+
+  /**
+   * @return The map of runtimes from which the index was built
+   */
+
+  public Map<String, RuntimeDescription> source()
+  {
+    return this.source;
+  }
+
+  private RuntimeDescription runtime(
+    final int ordinal)
+  {
+    return this.source.get(this.runtimeIds[ordinal]);
+  }
+
+  private int compareOrdinal(
+    final int ordinal,
+    final RuntimeDescription runtime)
+  {
+    /*
+     * Equivalent to CoffeePickSearches.runtimeOrder(), without looking up the runtime.
+     */
+
+    var result = this.versions[ordinal].compareTo(runtime.version());
+    if (result == 0) {
+      result = this.architecturesByOrdinal[ordinal].compareTo(runtime.architecture());
+    }
+    if (result == 0) {
+      result = this.platformsByOrdinal[ordinal].compareTo(runtime.platform());
+    }
+    if (result == 0) {
+      result = this.runtimeIds[ordinal].compareTo(runtime.id());
+    }
+    return result;
+  }
+
+  /**
+   * Search the index. The results are exactly those that would be produced by applying
+   * {@link CoffeePickSearches#matchesExact(RuntimeDescription, CoffeePickSearch)} to every
+   * indexed runtime, in the order given by {@link CoffeePickSearches#runtimeOrder()}.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The matching runtimes
+   */
+
+  public List<RuntimeDescription> search(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    return this.collect(
+      this.candidates(parameters),
+      CoffeePickSearchPredicate.exact(parameters));
+  }
+
+  /**
+   * Search the index for a page of results. The results are the first {@code limit} of the
+   * results that would be produced by {@link #search(CoffeePickSearch)} that follow {@code after}
+   * in the given order. Candidates are visited in order starting from the position of
+   * {@code after}, and no more candidates are examined once the page is full.
+   *
+   * @param parameters The search parameters
+   * @param order      The order of results
+   * @param after      The runtime after which the page begins, if any
+   * @param limit      The maximum number of results
+   *
+   * @return The matching runtimes, in the given order
+   */
+
+  public List<RuntimeDescription> searchPage(
+    final CoffeePickSearch parameters,
+    final CoffeePickSearchOrder order,
+    final Optional<RuntimeDescription> after,
+    final int limit)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(order, "order");
+    Objects.requireNonNull(after, "after");
+
+    final var results = new ArrayList<RuntimeDescription>();
+    final var matching = this.candidates(parameters);
+    final var predicate = CoffeePickSearchPredicate.exact(parameters);
+
+    if (order == CoffeePickSearchOrder.VERSION_DESCENDING) {
+      final var end =
+        after.map(cursor -> Integer.valueOf(this.partition(
+          ordinal -> this.compareOrdinal(ordinal, cursor) < 0)))
+          .orElse(Integer.valueOf(this.runtimeIds.length))
+          .intValue();
+
+      for (var ordinal = matching.previousSetBit(end - 1);
+           ordinal >= 0 && results.size() < limit;
+           ordinal = matching.previousSetBit(ordinal - 1)) {
+        this.check(predicate, ordinal, results);
+      }
+    } else {
+      final var start =
+        after.map(cursor -> Integer.valueOf(this.partition(
+          ordinal -> this.compareOrdinal(ordinal, cursor) <= 0)))
+          .orElse(Integer.valueOf(0))
+          .intValue();
+
+      for (var ordinal = matching.nextSetBit(start);
+           ordinal >= 0 && results.size() < limit;
+           ordinal = matching.nextSetBit(ordinal + 1)) {
+        this.check(predicate, ordinal, results);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Pass each runtime that would be produced by {@link #search(CoffeePickSearch)} to the given
+   * consumer, in the order given by {@link CoffeePickSearches#runtimeOrder()}, without
+   * collecting the runtimes.
+   *
+   * @param parameters The search parameters
+   * @param consumer   The consumer of matching runtimes
+   */
+
+  public void forEachMatching(
+    final CoffeePickSearch parameters,
+    final Consumer<RuntimeDescription> consumer)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(consumer, "consumer");
+
+    final var matching = this.candidates(parameters);
+    final var predicate = CoffeePickSearchPredicate.exact(parameters);
+    for (var ordinal = matching.nextSetBit(0);
+         ordinal >= 0;
+         ordinal = matching.nextSetBit(ordinal + 1)) {
+      final var runtime = this.runtime(ordinal);
+      if (runtime != null && predicate.test(runtime)) {
+        consumer.accept(runtime);
+      }
+    }
+  }
+
+  private BitSet candidates(
+    final CoffeePickSearch parameters)
+  {
+    final var id = parameters.id();
+    if (id.isPresent()) {
+      final var result = new BitSet();
+      final var ordinal = this.ids.get(id.get());
+      if (ordinal != null) {
+        result.set(ordinal.intValue());
+      }
+      return result;
+    }
+
+    final var matching = this.versionsIn(parameters.versionRange());
+    if (matching.isEmpty()
+      || !restrict(matching, this.platforms, parameters.platform())
+      || !restrict(matching, this.architectures, parameters.architecture())
+      || !restrict(matching, this.vms, parameters.vm())
+      || !restrict(matching, this.configurations, parameters.configuration())
+      || !restrict(matching, this.repositories, parameters.repository())) {
+      return new BitSet();
+    }
+    for (final var tag : parameters.requiredTags()) {
+      if (!restrict(matching, this.tags, Optional.of(tag))) {
+        return new BitSet();
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * Search the index inexactly. The results are exactly those that would be produced by applying
+   * {@link CoffeePickSearches#matchesInexact(RuntimeDescription, CoffeePickSearch)} to every
+   * indexed runtime, in the order given by {@link CoffeePickSearches#runtimeOrder()}.
+   *
+   * @param parameters The search parameters
+   *
+   * @return The matching runtimes
+   */
+
+  public List<RuntimeDescription> searchInexact(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var results = new ArrayList<RuntimeDescription>();
+    final var matching = this.versionsIn(parameters.versionRange());
+    if (matching.isEmpty()
+      || !restrictInexact(matching, this.foldedPlatforms, parameters.platform())
+      || !restrictInexact(matching, this.foldedArchitectures, parameters.architecture())
+      || !restrictInexact(matching, this.foldedVms, parameters.vm())
+      || !restrictInexact(matching, this.foldedRepositories, parameters.repository())
+      || !restrict(matching, this.configurations, parameters.configuration())
+      || !this.restrictIdTrigrams(matching, parameters.id())) {
+      return results;
+    }
+    for (final var tag : parameters.requiredTags()) {
+      if (!restrict(matching, this.tags, Optional.of(tag))) {
+        return results;
+      }
+    }
+
+    return this.collect(matching, CoffeePickSearchPredicate.inexact(parameters));
+  }
+
+  private List<RuntimeDescription> collect(
+    final BitSet matching,
+    final Predicate<RuntimeDescription> predicate)
+  {
+    /*
+     * Small sets of candidates are checked on the calling thread; the cost of distributing the
+     * work would exceed the cost of the work.
+     */
+
+    final var parallel = matching.cardinality() >= PARALLEL_THRESHOLD;
+    final var task =
+      new Segment(this, matching, predicate, parallel, 0, this.runtimeIds.length);
+    if (parallel) {
+      return ForkJoinPool.commonPool().invoke(task);
+    }
+    return task.compute();
+  }
+
+  private static boolean restrictInexact(
+    final BitSet matching,
+    final Map<String, BitSet> folded,
+    final Optional<String> pattern)
+  {
+    if (pattern.isEmpty()) {
+      return true;
+    }
+
+    final var folded_pattern = CoffeePickSearches.foldCase(pattern.get());
+    final var union = new BitSet();
+    for (final var entry : folded.entrySet()) {
+      if (entry.getKey().contains(folded_pattern)) {
+        union.or(entry.getValue());
+      }
+    }
+    matching.and(union);
+    return !matching.isEmpty();
+  }
+
+  private boolean restrictIdTrigrams(
+    final BitSet matching,
+    final Optional<String> pattern)
+  {
+    if (pattern.isEmpty()) {
+      return true;
+    }
+
+    /*
+     * Patterns shorter than a trigram cannot be narrowed by the index, and are checked against
+     * each candidate directly.
+     */
+
+    final var folded_pattern = CoffeePickSearches.foldCase(pattern.get());
+    final var lists = new ArrayList<int[]>(folded_pattern.length());
+    for (var offset = 0; offset + 3 <= folded_pattern.length(); ++offset) {
+      final var postings = this.idTrigrams.get(trigramOf(folded_pattern, offset));
+      if (postings == null) {
+        return false;
+      }
+      lists.add(postings);
+    }
+
+    if (lists.isEmpty()) {
+      return true;
+    }
+
+    /*
+     * Intersect the shortest posting lists first so that the result is narrowed as quickly as
+     * possible.
+     */
+
+    lists.sort(Comparator.comparingInt(postings -> postings.length));
+
+    final var result = bitSetOf(lists.get(0));
+    result.and(matching);
+    for (var index = 1; index < lists.size() && !result.isEmpty(); ++index) {
+      result.and(bitSetOf(lists.get(index)));
+    }
+
+    matching.and(result);
+    return !matching.isEmpty();
+  }
+
+  private static BitSet bitSetOf(
+    final int[] postings)
+  {
+    final var result = new BitSet();
+    for (final var ordinal : postings) {
+      result.set(ordinal);
+    }
+    return result;
+  }
+
+  private BitSet versionsIn(
+    final Optional<RuntimeVersionRange> range_opt)
+  {
+    var lower = 0;
+    var upper = this.runtimeIds.length;
+    if (range_opt.isPresent()) {
+      final var range = range_opt.get();
+      lower = this.lowerBoundOf(range);
+      upper = this.upperBoundOf(range);
+    }
+
+    final var result = new BitSet(upper);
+    if (lower < upper) {
+      result.set(lower, upper);
+    }
+    return result;
+  }
+
+  private int lowerBoundOf(
+    final RuntimeVersionRange range)
+  {
+    final var bound = range.lower();
+    final var exclusive = range.lowerExclusive();
+    return this.partition(ordinal -> {
+      final var compare = this.versions[ordinal].compareTo(bound);
+      return exclusive ? compare <= 0 : compare < 0;
+    });
+  }
+
+  private int upperBoundOf(
+    final RuntimeVersionRange range)
+  {
+    final var bound = range.upper();
+    final var exclusive = range.upperExclusive();
+    return this.partition(ordinal -> {
+      final var compare = this.versions[ordinal].compareTo(bound);
+      return exclusive ? compare < 0 : compare <= 0;
+    });
+  }
+
+  private int partition(
+    final IntPredicate before)
+  {
+    /*
+     * The runtimes are sorted, so "before" holds for a (possibly empty) prefix of them. Find the
+     * first ordinal for which it does not hold.
+     */
+
+    var low = 0;
+    var high = this.versions.length;
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+      if (before.test(middle)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static <K> boolean restrict(
+    final BitSet matching,
+    final Map<K, BitSet> index,
+    final Optional<K> key)
+  {
+    if (key.isEmpty()) {
+      return true;
+    }
+
+    final var set = index.get(key.get());
+    if (set == null) {
+      return false;
+    }
+    matching.and(set);
+    return !matching.isEmpty();
+  }
+
+  private void check(
+    final CoffeePickSearchPredicate predicate,
+    final int ordinal,
+    final List<RuntimeDescription> results)
+  {
+    final var runtime = this.runtime(ordinal);
+    if (runtime != null && predicate.test(runtime)) {
+      results.add(runtime);
+    }
+  }
+
+  /**
+   * A task that checks the candidates within a range of ordinals. If the task is parallel, ranges
+   * wider than {@link #SEGMENT_SIZE} are split in half and checked in parallel. The results of each
+   * half are concatenated in ordinal order, so the results remain sorted.
+   */
+
+  private static final class Segment extends RecursiveTask<List<RuntimeDescription>>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final transient CoffeePickCatalogIndex index;
+    private final transient BitSet matching;
+    private final transient Predicate<RuntimeDescription> predicate;
+    private final boolean parallel;
+    private final int from;
+    private final int to;
+
+    Segment(
+      final CoffeePickCatalogIndex inIndex,
+      final BitSet inMatching,
+      final Predicate<RuntimeDescription> inPredicate,
+      final boolean inParallel,
+      final int inFrom,
+      final int inTo)
+    {
+      this.index = inIndex;
+      this.matching = inMatching;
+      this.predicate = inPredicate;
+      this.parallel = inParallel;
+      this.from = inFrom;
+      this.to = inTo;
+    }
+
+    @Override
+    protected List<RuntimeDescription> compute()
+    {
+      if (this.parallel && this.to - this.from > SEGMENT_SIZE) {
+        final var middle = (this.from + this.to) >>> 1;
+        final var lower =
+          new Segment(this.index, this.matching, this.predicate, true, this.from, middle);
+        final var upper =
+          new Segment(this.index, this.matching, this.predicate, true, middle, this.to);
+
+        lower.fork();
+        final var upper_results = upper.compute();
+        final var results = lower.join();
+        results.addAll(upper_results);
+        return results;
+      }
+
+      final var results = new ArrayList<RuntimeDescription>();
+      for (var ordinal = this.matching.nextSetBit(this.from);
+           ordinal >= 0 && ordinal < this.to;
+           ordinal = this.matching.nextSetBit(ordinal + 1)) {
+        final var runtime = this.index.runtime(ordinal);
+        if (runtime != null && this.predicate.test(runtime)) {
+          results.add(runtime);
+        }
+      }
+      return results;
+    }
+  }
+
+  private static final class Postings
+  {
+    private int[] ordinals;
+    private int count;
+
+    Postings()
+    {
+      this.ordinals = new int[8];
+      this.count = 0;
+    }
+
+    void add(
+      final int ordinal)
+    {
+      if (this.count > 0 && this.ordinals[this.count - 1] == ordinal) {
+        return;
+      }
+      if (this.count == this.ordinals.length) {
+        this.ordinals = Arrays.copyOf(this.ordinals, this.count * 2);
+      }
+      this.ordinals[this.count] = ordinal;
+      ++this.count;
+    }
+
+    int[] toArray()
+    {
+      return Arrays.copyOf(this.ordinals, this.count);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.client.vanilla.internal;
+
+import com.io7m.coffeepick.api.CoffeePickLatestKey;
+import com.io7m.coffeepick.api.CoffeePickSearches;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Materialized views of the newest runtime for each {@link CoffeePickLatestKey}, assembled from
+ * the runtimes of any number of repositories.
+ *
+ * <p>Lookups are a single probe of a concurrent hash map and do not take any locks. The views of
+ * each repository are held separately; when the runtimes of a repository are replaced, only the
+ * keys whose newest runtime in that repository changed are recomputed across repositories.</p>
+ */
+
+public final class CoffeePickCatalogLatest
+{
+  private final ConcurrentHashMap<CoffeePickLatestKey, RuntimeDescription> latest;
+  private final Map<URI, Map<CoffeePickLatestKey, RuntimeDescription>> repositories;
+
+  /**
+   * Create an empty set of views.
+   */
+
+  public CoffeePickCatalogLatest()
+  {
+    this.latest = new ConcurrentHashMap<>(256);
+    this.repositories = new HashMap<>(16);
+  }
+
+  private static Map<CoffeePickLatestKey, RuntimeDescription> viewsOf(
+    final Collection<RuntimeDescription> runtimes)
+  {
+    final var views = new HashMap<CoffeePickLatestKey, RuntimeDescription>(256);
+    for (final var runtime : runtimes) {
+      views.merge(CoffeePickSearches.latestKeyOf(runtime), runtime, CoffeePickCatalogLatest::newer);
+    }
+    return views;
+  }
+
+  private static RuntimeDescription newer(
+    final RuntimeDescription x,
+    final RuntimeDescription y)
+  {
+    return CoffeePickSearches.runtimeOrder().compare(x, y) >= 0 ? x : y;
+  }
+
+  /**
+   * @param key The key
+   *
+   * @return The newest runtime for the given key, if any
+   */
+
+  public Optional<RuntimeDescription> get(
+    final CoffeePickLatestKey key)
+  {
+    Objects.requireNonNull(key, "key");
+    return Optional.ofNullable(this.latest.get(key));
+  }
+
+  /**
+   * @param repository The URI of a repository
+   *
+   * @return {@code true} if the views include the runtimes of the given repository
+   */
+
+  public synchronized boolean contains(
+    final URI repository)
+  {
+    Objects.requireNonNull(repository, "repository");
+    return this.repositories.containsKey(repository);
+  }
+
+  /**
+   * Replace the runtimes of the given repository.
+   *
+   * @param repository The URI of a repository
+   * @param runtimes   The runtimes of the repository
+   */
+
+  public synchronized void put(
+    final URI repository,
+    final Collection<RuntimeDescription> runtimes)
+  {
+    Objects.requireNonNull(repository, "repository");
+    Objects.requireNonNull(runtimes, "runtimes");
+
+    final var views = viewsOf(runtimes);
+    final var previous = this.repositories.put(repository, views);
+
+    final var changed = new HashSet<CoffeePickLatestKey>();
+    if (previous != null) {
+      for (final var entry : previous.entrySet()) {
+        if (!Objects.equals(entry.getValue(), views.get(entry.getKey()))) {
+          changed.add(entry.getKey());
+        }
+      }
+    }
+    for (final var entry : views.entrySet()) {
+      if (previous == null || !Objects.equals(entry.getValue(), previous.get(entry.getKey()))) {
+        changed.add(entry.getKey());
+      }
+    }
+    for (final var key : changed) {
+      this.recompute(key);
+    }
+  }
+
+  /**
+   * Remove the runtimes of the given repository.
+   *
+   * @param repository The URI of a repository
+   */
+
+  public synchronized void remove(
+    final URI repository)
+  {
+    Objects.requireNonNull(repository, "repository");
+
+    final var previous = this.repositories.remove(repository);
+    if (previous != null) {
+      for (final var key : previous.keySet()) {
+        this.recompute(key);
+      }
+    }
+  }
+
+  private void recompute(
+    final CoffeePickLatestKey key)
+  {
+    RuntimeDescription newest = null;
+    for (final var views : this.repositories.values()) {
+      final var candidate = views.get(key);
+      if (candidate != null) {
+        newest = newest == null ? candidate : newer(newest, candidate);
+      }
+    }
+
+    if (newest == null) {
+      this.latest.remove(key);
+    } else {
+      this.latest.put(key, newest);
+    }
+  }
+}
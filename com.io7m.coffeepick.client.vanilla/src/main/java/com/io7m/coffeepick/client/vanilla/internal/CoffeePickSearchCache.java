@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.client.vanilla.internal;
+
+import com.io7m.coffeepick.api.CoffeePickSearch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A bounded, least-recently-used cache of search results.
+ *
+ * <p>Search parameters are immutable values and so are used directly as keys. The cache has a
+ * generation number that is incremented each time the cache is invalidated; a result is only
+ * added to the cache if the cache has not been invalidated since the search that produced the
+ * result began, so a search that races with a modification can never leave a stale result in the
+ * cache.</p>
+ *
+ * @param <V> The type of cached results
+ */
+
+public final class CoffeePickSearchCache<V>
+{
+  private final Map<CoffeePickSearch, V> entries;
+  private long generation;
+
+  /**
+   * Create a cache.
+   *
+   * @param inMaximumSize The maximum number of cached results
+   */
+
+  public CoffeePickSearchCache(
+    final int inMaximumSize)
+  {
+    if (inMaximumSize <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+
+    this.entries = new LinkedHashMap<>(inMaximumSize, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<CoffeePickSearch, V> eldest)
+      {
+        return this.size() > inMaximumSize;
+      }
+    };
+  }
+
+  /**
+   * @return The current generation of the cache
+   */
+
+  public synchronized long generation()
+  {
+    return this.generation;
+  }
+
+  /**
+   * @param parameters The search parameters
+   *
+   * @return The cached result of the search, if any
+   */
+
+  public synchronized Optional<V> get(
+    final CoffeePickSearch parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return Optional.ofNullable(this.entries.get(parameters));
+  }
+
+  /**
+   * Add the result of a search to the cache. The result is discarded if the cache has been
+   * invalidated since {@code searchGeneration} was obtained.
+   *
+   * @param searchGeneration The generation of the cache obtained before the search began
+   * @param parameters       The search parameters
+   * @param result           The result of the search
+   */
+
+  public synchronized void put(
+    final long searchGeneration,
+    final CoffeePickSearch parameters,
+    final V result)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(result, "result");
+
+    if (searchGeneration == this.generation) {
+      this.entries.put(parameters, result);
+    }
+  }
+
+  /**
+   * Discard all cached results.
+   */
+
+  public synchronized void invalidate()
+  {
+    ++this.generation;
+    this.entries.clear();
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.client.vanilla.internal;
+
+import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+import com.io7m.coffeepick.runtime.RuntimeVersionRange;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Functions to derive the repository queries that narrow catalog searches.
+ *
+ * <p>Repositories can only answer queries over the attributes that they index, so a query
+ * derived from a search selects a superset of the runtimes that match the search, and the full
+ * search must still be applied to each selected runtime.</p>
+ */
+
+public final class CoffeePickSearchQueries
+{
+  private CoffeePickSearchQueries()
+  {
+
+  }
+
+  /**
+   * @param search A search
+   *
+   * @return A query that selects every runtime that matches {@code search}
+   */
+
+  public static RuntimeDescriptionQuery queryOf(
+    final CoffeePickSearch search)
+  {
+    Objects.requireNonNull(search, "search");
+
+    return RuntimeDescriptionQuery.builder()
+      .setPlatform(search.platform())
+      .setArchitecture(search.architecture())
+      .setVm(search.vm())
+      .setConfiguration(search.configuration())
+      .setVersionRange(search.versionRange())
+      .setRequiredTags(search.requiredTags())
+      .build();
+  }
+
+  /**
+   * Derive a query that selects every runtime that matches any of the given searches. An
+   * attribute is constrained by the query only if every search constrains it: platforms,
+   * architectures, virtual machines, and configurations must be equal across the searches,
+   * version ranges are widened to a range that contains all of them, and the required tags are
+   * those required by every search.
+   *
+   * @param searches A non-empty list of searches
+   *
+   * @return A query that selects every runtime that matches any of {@code searches}
+   */
+
+  public static RuntimeDescriptionQuery queryCovering(
+    final List<CoffeePickSearch> searches)
+  {
+    Objects.requireNonNull(searches, "searches");
+
+    if (searches.isEmpty()) {
+      throw new IllegalArgumentException("At least one search is required");
+    }
+
+    final var first = searches.get(0);
+    var range = first.versionRange();
+    final var tags = new HashSet<>(first.requiredTags());
+    for (final var search : searches) {
+      range = widen(range, search.versionRange());
+      tags.retainAll(search.requiredTags());
+    }
+
+    return RuntimeDescriptionQuery.builder()
+      .setPlatform(common(searches, CoffeePickSearch::platform))
+      .setArchitecture(common(searches, CoffeePickSearch::architecture))
+      .setVm(common(searches, CoffeePickSearch::vm))
+      .setConfiguration(common(searches, CoffeePickSearch::configuration))
+      .setVersionRange(range)
+      .setRequiredTags(tags)
+      .build();
+  }
+
+  /**
+   * @param query A query
+   *
+   * @return {@code true} if the query places no constraints on runtimes
+   */
+
+  public static boolean isUnconstrained(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    return query.platform().isEmpty()
+      && query.architecture().isEmpty()
+      && query.vm().isEmpty()
+      && query.configuration().isEmpty()
+      && query.versionRange().isEmpty()
+      && query.requiredTags().isEmpty();
+  }
+
+  private static <T> Optional<T> common(
+    final List<CoffeePickSearch> searches,
+    final Function<CoffeePickSearch, Optional<T>> attribute)
+  {
+    final var value = attribute.apply(searches.get(0));
+    for (final var search : searches) {
+      if (!value.equals(attribute.apply(search))) {
+        return Optional.empty();
+      }
+    }
+    return value;
+  }
+
+  private static Optional<RuntimeVersionRange> widen(
+    final Optional<RuntimeVersionRange> range0,
+    final Optional<RuntimeVersionRange> range1)
+  {
+    if (range0.isEmpty() || range1.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var r0 = range0.get();
+    final var r1 = range1.get();
+
+    final var lowerOrder = r0.lower().compareTo(r1.lower());
+    final var lower = lowerOrder <= 0 ? r0 : r1;
+    final var lowerExclusive =
+      lowerOrder == 0 ? r0.lowerExclusive() && r1.lowerExclusive() : lower.lowerExclusive();
+
+    final var upperOrder = r0.upper().compareTo(r1.upper());
+    final var upper = upperOrder >= 0 ? r0 : r1;
+    final var upperExclusive =
+      upperOrder == 0 ? r0.upperExclusive() && r1.upperExclusive() : upper.upperExclusive();
+
+    return Optional.of(
+      RuntimeVersionRange.of(lower.lower(), lowerExclusive, upper.upper(), upperExclusive));
+  }
+}
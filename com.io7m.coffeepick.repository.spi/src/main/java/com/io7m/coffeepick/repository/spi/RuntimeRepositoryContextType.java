@@ -20,6 +20,7 @@ import org.osgi.annotation.versioning.ConsumerType;
 
 import java.net.http.HttpClient;
 import java.nio.file.Path;
+import java.util.OptionalInt;
 
 /**
  * A context interface passed to repositories.
@@ -43,4 +44,18 @@ public interface RuntimeRepositoryContextType
    */
 
   HttpClient httpClient();
+
+  /**
+   * The maximum number of runtimes that repositories that store runtimes locally should retain for
+   * each combination of platform, architecture, and major version. If a repository holds more
+   * runtimes for a given combination, the oldest runtimes of that combination are discarded.
+   * Retention is disabled by default, and all runtimes are retained.
+   *
+   * @return The maximum number of runtimes, or nothing if all runtimes should be retained
+   */
+
+  default OptionalInt retainedRuntimesPerMajorVersion()
+  {
+    return OptionalInt.empty();
+  }
 }
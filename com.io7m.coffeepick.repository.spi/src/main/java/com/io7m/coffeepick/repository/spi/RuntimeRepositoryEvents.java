@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.repository.spi;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Functions over repository events.
+ */
+
+public final class RuntimeRepositoryEvents
+{
+  private RuntimeRepositoryEvents()
+  {
+
+  }
+
+  /**
+   * Publish a {@link RuntimeRepositoryEventRuntimesChanged} event for the given repository each
+   * time {@code changes} produces a value.
+   *
+   * <p>Repositories that store runtimes locally typically observe a change for each commit to
+   * their storage, including commits made by other processes and runtimes evicted by a retention
+   * policy. Republishing these changes allows consumers that cache the runtimes of the repository
+   * to discard their caches.</p>
+   *
+   * @param repository The repository URI
+   * @param changes    The changes made to the runtimes of the repository
+   * @param events     The observer of repository events
+   *
+   * @return A subscription to {@code changes}
+   */
+
+  public static Disposable publishRuntimesChanged(
+    final URI repository,
+    final Observable<?> changes,
+    final Observer<? super RuntimeRepositoryEventType> events)
+  {
+    Objects.requireNonNull(repository, "repository");
+    Objects.requireNonNull(changes, "changes");
+    Objects.requireNonNull(events, "events");
+
+    return changes.subscribe(change -> events.onNext(
+      RuntimeRepositoryEventRuntimesChanged.builder()
+        .setRepository(repository)
+        .build()));
+  }
+}
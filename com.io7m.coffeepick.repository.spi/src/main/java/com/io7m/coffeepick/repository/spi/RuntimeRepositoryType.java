@@ -17,12 +17,15 @@
 package com.io7m.coffeepick.repository.spi;
 
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import com.io7m.coffeepick.runtime.RuntimeRepositoryDescription;
 import io.reactivex.rxjava3.core.Observable;
 import net.jcip.annotations.ThreadSafe;
 import org.osgi.annotation.versioning.ProviderType;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CancellationException;
 import java.util.function.BooleanSupplier;
 
@@ -68,6 +71,44 @@ public interface RuntimeRepositoryType
 
   Map<String, RuntimeDescription> runtimes();
 
+  /**
+   * Determine whether the repository maintains indexes over its runtimes. Repositories that
+   * return {@code true} here override {@link #search(RuntimeDescriptionQuery)} to answer queries
+   * without examining every runtime, and callers are encouraged to use it in preference to
+   * {@link #runtimes()}.
+   *
+   * @return {@code true} if the repository answers queries from an index
+   */
+
+  default boolean isSearchIndexed()
+  {
+    return false;
+  }
+
+  /**
+   * Find the available runtimes in the repository that match the given query. Repositories that
+   * maintain indexes over their runtimes are encouraged to override this method, along with
+   * {@link #isSearchIndexed()}, in order to avoid examining every runtime.
+   *
+   * @param query The query
+   *
+   * @return The matching runtimes
+   */
+
+  default Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    final var results = new HashMap<String, RuntimeDescription>();
+    for (final var runtime : this.runtimes().values()) {
+      if (query.matches(runtime)) {
+        results.put(runtime.id(), runtime);
+      }
+    }
+    return results;
+  }
+
   /**
    * @return The current repository description
    */
@@ -17,63 +17,205 @@
 package com.io7m.coffeepick.runtime.database;
 
 import com.io7m.coffeepick.runtime.RuntimeDescription;
-import com.io7m.coffeepick.runtime.RuntimeDescriptionType;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import com.io7m.coffeepick.runtime.RuntimeDescriptions;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
+import com.io7m.coffeepick.runtime.database.internal.RDBJournal;
+import com.io7m.coffeepick.runtime.database.internal.RDBJournalPosition;
+import com.io7m.coffeepick.runtime.database.internal.RDBJournalTransaction;
+import com.io7m.coffeepick.runtime.database.internal.RDBParallel;
+import com.io7m.coffeepick.runtime.database.internal.RDBProcessLock;
+import com.io7m.coffeepick.runtime.database.internal.RDBRetention;
+import com.io7m.coffeepick.runtime.database.internal.RDBSnapshot;
+import com.io7m.coffeepick.runtime.database.internal.RDBStoreEager;
+import com.io7m.coffeepick.runtime.database.internal.RDBStoreLazy;
+import com.io7m.coffeepick.runtime.database.internal.RDBStoreType;
+import com.io7m.coffeepick.runtime.database.internal.RDBWriteBehindQueue;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-import static java.nio.file.StandardOpenOption.CREATE;
-import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
-import static java.nio.file.StandardOpenOption.WRITE;
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 
 /**
  * A persistent database of runtime descriptions.
+ *
+ * <p>The database is stored as an append-only journal in the database directory. Each committed
+ * transaction appends records to the journal, and the journal is replayed when the database is
+ * opened. When the proportion of dead records in the journal exceeds the configured threshold, the
+ * journal is compacted in the background by rewriting it to contain only the live set of
+ * runtimes.</p>
+ *
+ * <p>In order to avoid replaying the entire journal each time the database is opened, a binary
+ * snapshot of the live set of runtimes is written alongside the journal whenever the journal is
+ * compacted, and whenever the configured number of records has been appended to the journal since
+ * the last snapshot. Opening the database memory-maps the snapshot and replays only the part of the
+ * journal written after it. If the snapshot is missing, damaged, or does not match the journal, the
+ * entire journal is replayed instead.</p>
+ *
+ * <p>If the database is configured to use lazy decoding, opening the database reads only the
+ * index of runtime IDs from the snapshot, and runtime descriptions are decoded from the snapshot
+ * on first access and held in a bounded cache.</p>
+ *
+ * <p>Each snapshot is accompanied by a set of secondary indexes over the platform, architecture,
+ * VM, configuration, tags, and major version of the runtimes in the snapshot. The indexes are
+ * written whenever a snapshot is written, and runtimes committed since the last snapshot are
+ * searched directly, so {@link #search(RuntimeDescriptionQuery)} always reflects every committed
+ * transaction. With lazy decoding enabled, a search decodes only the runtimes that match it.</p>
+ *
+ * <p>If the database is configured to use write-behind persistence, committed changes are applied
+ * to the in-memory set of runtimes immediately, and are written to the journal by a dedicated
+ * writer thread that combines all of the commits queued at any given time into a single write. The
+ * number of queued commits is bounded, and committing blocks while the queue is full. Use
+ * {@link #flush()} or {@link #close()} to wait for queued commits to be written.</p>
+ *
+ * <p>The in-memory set of runtimes is versioned: each committed transaction publishes a new
+ * immutable generation atomically, and {@link #descriptions()} returns the generation that is
+ * current at the time of the call. Readers therefore never block and never observe a partially
+ * applied transaction.</p>
+ *
+ * <p>If the database is configured with a retention policy, runtimes that fall outside the policy
+ * are evicted as part of each committed transaction, and when the database is opened.</p>
+ *
+ * <p>If the database is configured as shared, several processes may open the same database
+ * directory. Access to the files in the directory is serialized with a lock file, and each process
+ * reads the transactions appended to the journal by the other processes before committing its own
+ * transactions, and periodically in the background. Only the appended transactions are decoded,
+ * unless another process has compacted the journal, in which case the database is reloaded.</p>
  */
 
 @ThreadSafe
-public final class RuntimeDescriptionDatabase
+public final class RuntimeDescriptionDatabase implements AutoCloseable
 {
   private static final Logger LOG = LoggerFactory.getLogger(RuntimeDescriptionDatabase.class);
+
+  private static final String JOURNAL = "journal";
+  private static final String SNAPSHOT = "snapshot";
+  private static final String LOCK = "lock";
+  private static final String LEGACY_UPDATED = "updated";
+  private static final String LEGACY_SUFFIX = ".properties";
+
+  private static final ExecutorService COMPACTOR =
+    Executors.newSingleThreadExecutor(runnable -> {
+      final var thread = new Thread(runnable);
+      thread.setDaemon(true);
+      thread.setName(
+        new StringBuilder(32)
+          .append("com.io7m.coffeepick.runtime.database.compactor.")
+          .append(thread.getId())
+          .toString());
+      return thread;
+    });
+
+  private static final ScheduledExecutorService REFRESHER =
+    Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final var thread = new Thread(runnable);
+      thread.setDaemon(true);
+      thread.setName(
+        new StringBuilder(32)
+          .append("com.io7m.coffeepick.runtime.database.refresher.")
+          .append(thread.getId())
+          .toString());
+      return thread;
+    });
+
   private final Path path;
-  private final ConcurrentHashMap<String, RuntimeDescription> descriptions;
-  private final Map<String, RuntimeDescription> descriptions_read;
+  private final RuntimeDescriptionDatabaseConfiguration configuration;
+  private final Optional<RDBProcessLock> processLock;
+  private final Object commitLock;
+  private final Object journalLock;
+  private final Optional<RDBWriteBehindQueue> writer;
+  private final PublishSubject<RuntimeDescriptionDatabaseChange> changes;
+  private final AtomicBoolean compactionScheduled;
+  private final AtomicBoolean snapshotScheduled;
   private volatile Optional<OffsetDateTime> updated;
+  private volatile RDBStoreType store;
+  private volatile Optional<ScheduledFuture<?>> refresher;
+  private RDBJournal journal;
+  private Optional<RDBRetention> retention;
+  private long snapshotRecords;
+  private volatile boolean closed;
 
   private RuntimeDescriptionDatabase(
     final Path in_path,
-    final Map<String, RuntimeDescription> in_descriptions,
-    final Optional<OffsetDateTime> in_updated)
+    final RuntimeDescriptionDatabaseConfiguration in_configuration,
+    final Optional<RDBProcessLock> in_process_lock,
+    final RDBJournal in_journal,
+    final RDBStoreType in_store)
   {
     this.path =
       Objects.requireNonNull(in_path, "path");
-    this.descriptions =
-      new ConcurrentHashMap<>(Objects.requireNonNull(in_descriptions, "runtimes"));
+    this.configuration =
+      Objects.requireNonNull(in_configuration, "configuration");
+    this.processLock =
+      Objects.requireNonNull(in_process_lock, "process_lock");
+    this.journal =
+      Objects.requireNonNull(in_journal, "journal");
+    this.store =
+      Objects.requireNonNull(in_store, "store");
     this.updated =
-      Objects.requireNonNull(in_updated, "updated");
-    this.descriptions_read =
-      Collections.unmodifiableMap(this.descriptions);
+      in_journal.updated();
+    this.commitLock =
+      new Object();
+    this.journalLock =
+      new Object();
+    this.changes =
+      PublishSubject.create();
+    this.compactionScheduled =
+      new AtomicBoolean(false);
+    this.snapshotScheduled =
+      new AtomicBoolean(false);
+    this.snapshotRecords =
+      in_journal.snapshotRecords();
+    this.retention =
+      in_configuration.retention()
+        .map(policy -> createRetention(policy, in_store.view()));
+    this.refresher =
+      Optional.empty();
+    this.closed =
+      false;
+
+    if (in_configuration.writeBehind()) {
+      this.writer = Optional.of(
+        new RDBWriteBehindQueue(
+          new StringBuilder(64)
+            .append("com.io7m.coffeepick.runtime.database.writer[")
+            .append(in_path)
+            .append(']')
+            .toString(),
+          in_configuration.writeBehindCapacity(),
+          this::writeBehind));
+    } else {
+      this.writer = Optional.empty();
+    }
   }
 
   /**
@@ -91,52 +233,200 @@ public final class RuntimeDescriptionDatabase
     final Path path)
     throws IOException
   {
+    return open(path, RuntimeDescriptionDatabaseConfiguration.builder().build());
+  }
+
+  /**
+   * Open an existing, or create a new, on-disk cache. The cache will be populated from the contents
+   * of the given directory if it exists and contains runtime descriptions. Caches written by older
+   * versions (consisting of one properties file per runtime) are migrated to the journal.
+   *
+   * @param path          The directory
+   * @param configuration The database configuration
+   *
+   * @return A new cache
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static RuntimeDescriptionDatabase open(
+    final Path path,
+    final RuntimeDescriptionDatabaseConfiguration configuration)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(configuration, "configuration");
+
     Files.createDirectories(path);
 
-    final var updated = loadUpdatedFile(path);
+    final Optional<RDBProcessLock> process_lock;
+    if (configuration.shared()) {
+      process_lock = Optional.of(RDBProcessLock.forFile(path.resolve(LOCK)));
+    } else {
+      process_lock = Optional.empty();
+    }
 
-    final var descriptions =
-      Files.list(path)
-        .filter(file -> Files.isRegularFile(file))
-        .filter(RuntimeDescriptionDatabase::isNotUpdatedFile)
-        .flatMap(RuntimeDescriptionDatabase::parseAsStream)
-        .collect(Collectors.toMap(RuntimeDescriptionType::id, Function.identity()));
+    final var store = createStore(configuration);
+    final RDBJournal journal;
+    try (var ignored = acquire(process_lock)) {
+      journal = openJournal(path, store);
+      migrateLegacyFiles(path, configuration, journal, store);
+    }
+    store.publish();
 
-    return new RuntimeDescriptionDatabase(path, descriptions, updated);
+    final var database =
+      new RuntimeDescriptionDatabase(path, configuration, process_lock, journal, store);
+    database.enforceRetention();
+    database.compactIfNecessary();
+    database.snapshotIfNecessary();
+    database.startRefreshing();
+    return database;
   }
 
-  private static Optional<OffsetDateTime> loadUpdatedFile(final Path path)
+  private static RDBStoreType createStore(
+    final RuntimeDescriptionDatabaseConfiguration configuration)
   {
-    Optional<OffsetDateTime> updated;
-    final var update_file = path.resolve("updated").toAbsolutePath();
-    try {
-      final var filedate =
-        OffsetDateTime.from(ISO_OFFSET_DATE_TIME.parse(Files.readString(update_file).trim()));
-      updated = Optional.of(filedate);
-    } catch (final NoSuchFileException e) {
-      LOG.debug("updated file does not exist");
-      updated = Optional.empty();
-    } catch (final IOException | DateTimeParseException e) {
-      LOG.debug("unable to load {}: ", update_file, e);
-      updated = Optional.empty();
+    if (configuration.lazyDecoding()) {
+      return new RDBStoreLazy(configuration.lazyCacheSize());
     }
-    return updated;
+    return new RDBStoreEager(configuration.loadParallelism());
   }
 
-  private static boolean isNotUpdatedFile(
-    final Path file)
+  private static RDBJournal openJournal(
+    final Path path,
+    final RDBStoreType store)
+    throws IOException
+  {
+    final var snapshot = RDBSnapshot.open(path.resolve(SNAPSHOT));
+    return RDBJournal.open(path.resolve(JOURNAL), store, snapshot);
+  }
+
+  private static RDBProcessLock.HeldType acquire(
+    final Optional<RDBProcessLock> lock)
+    throws IOException
+  {
+    if (lock.isPresent()) {
+      return lock.get().acquire();
+    }
+    return () -> {
+    };
+  }
+
+  private void startRefreshing()
+  {
+    if (this.configuration.shared()) {
+      final var interval = this.configuration.refreshInterval().toMillis();
+      this.refresher = Optional.of(
+        REFRESHER.scheduleWithFixedDelay(() -> {
+          try {
+            this.refresh();
+          } catch (final Exception e) {
+            LOG.error("could not refresh {}: ", this.path, e);
+          }
+        }, interval, interval, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private static RDBRetention createRetention(
+    final RuntimeDescriptionDatabaseRetentionPolicy policy,
+    final Map<String, RuntimeDescription> descriptions)
   {
-    return !Objects.equals(file.getFileName().toString(), "updated");
+    final var retention =
+      new RDBRetention(
+        policy.maximumRuntimes(),
+        policy.maximumAge(),
+        policy.maximumRuntimesPerMajorVersion());
+
+    for (final var description : descriptions.values()) {
+      retention.put(description);
+    }
+    return retention;
   }
 
-  private static Stream<RuntimeDescription> parseAsStream(
+  /**
+   * Evict any runtimes that fall outside the retention policy when the database is opened. The
+   * policy may have changed since the database was last opened, or runtimes may have aged.
+   */
+
+  private void enforceRetention()
+  {
+    if (this.retention.isEmpty()) {
+      return;
+    }
+
+    final Set<String> evicted;
+    synchronized (this.commitLock) {
+      evicted = this.retention.get().evict(OffsetDateTime.now(ZoneId.of("UTC")));
+    }
+
+    if (!evicted.isEmpty()) {
+      LOG.debug("evicting {} runtimes from {}", Integer.valueOf(evicted.size()), this.path);
+      final var transaction = this.transaction();
+      for (final var id : evicted) {
+        transaction.delete(id);
+      }
+      transaction.commit();
+    }
+  }
+
+  private static void migrateLegacyFiles(
+    final Path path,
+    final RuntimeDescriptionDatabaseConfiguration configuration,
+    final RDBJournal journal,
+    final RDBStoreType store)
+    throws IOException
+  {
+    final List<Path> files;
+    try (var stream = Files.list(path)) {
+      files = stream.filter(Files::isRegularFile)
+        .filter(file -> file.getFileName().toString().endsWith(LEGACY_SUFFIX))
+        .collect(Collectors.toList());
+    }
+
+    final var updated_file = path.resolve(LEGACY_UPDATED);
+    if (files.isEmpty() && !Files.exists(updated_file)) {
+      return;
+    }
+
+    LOG.info("migrating {} runtimes in {} to journal", Integer.valueOf(files.size()), path);
+
+    final var migrated = new ConcurrentHashMap<String, RuntimeDescription>(files.size());
+    RDBParallel.forEachIndex(configuration.loadParallelism(), files.size(), index -> {
+      final var file = files.get(index);
+      try {
+        final var description = parse(file);
+        migrated.put(description.id(), description);
+      } catch (final IOException e) {
+        LOG.debug("could not parse {}: ", file, e);
+      }
+    });
+
+    journal.append(
+      migrated.values(),
+      List.of(),
+      loadUpdatedFile(updated_file).orElseGet(() -> OffsetDateTime.now(ZoneId.of("UTC"))));
+
+    for (final var description : migrated.values()) {
+      store.put(description);
+    }
+    for (final var file : files) {
+      Files.deleteIfExists(file);
+    }
+    Files.deleteIfExists(updated_file);
+  }
+
+  private static Optional<OffsetDateTime> loadUpdatedFile(
     final Path file)
   {
     try {
-      return Stream.of(parse(file));
-    } catch (final IOException e) {
-      LOG.debug("could not parse {}: ", file, e);
-      return Stream.empty();
+      return Optional.of(
+        OffsetDateTime.from(ISO_OFFSET_DATE_TIME.parse(Files.readString(file).trim())));
+    } catch (final NoSuchFileException e) {
+      LOG.debug("updated file does not exist");
+      return Optional.empty();
+    } catch (final IOException | DateTimeParseException e) {
+      LOG.debug("unable to load {}: ", file, e);
+      return Optional.empty();
     }
   }
 
@@ -148,9 +438,6 @@ public final class RuntimeDescriptionDatabase
       final var props = new Properties();
       props.load(stream);
       return RuntimeDescriptions.parseFromProperties(props);
-    } catch (final IOException e) {
-      Files.deleteIfExists(file);
-      throw e;
     }
   }
 
@@ -175,16 +462,26 @@ public final class RuntimeDescriptionDatabase
   {
     Objects.requireNonNull(description, "description");
 
-    this.descriptions.put(description.id(), description);
+    this.transaction()
+      .add(description)
+      .commit();
+  }
 
-    try {
-      this.write(description);
-      final var time = OffsetDateTime.now(ZoneId.of("UTC"));
-      this.updated = Optional.of(time);
-      this.writeUpdated(time);
-    } catch (final IOException e) {
-      LOG.debug("could not cache {}: ", description.id(), e);
-    }
+  /**
+   * Add a set of runtimes to the cache in a single transaction. The runtimes will be persisted to
+   * disk, but no exception will be raised if persisting the files fails.
+   *
+   * @param runtimes The runtimes to be added
+   */
+
+  public void addAll(
+    final Collection<RuntimeDescription> runtimes)
+  {
+    Objects.requireNonNull(runtimes, "runtimes");
+
+    this.transaction()
+      .addAll(runtimes)
+      .commit();
   }
 
   /**
@@ -198,63 +495,650 @@ public final class RuntimeDescriptionDatabase
   {
     Objects.requireNonNull(id, "id");
 
-    this.descriptions.remove(id);
+    this.transaction()
+      .delete(id)
+      .commit();
+  }
+
+  /**
+   * Begin a new transaction. Changes made in the transaction are applied to the database, and
+   * written to disk, when the transaction is committed.
+   *
+   * @return A new transaction
+   */
 
+  public RuntimeDescriptionDatabaseTransaction transaction()
+  {
+    return new RuntimeDescriptionDatabaseTransaction(this);
+  }
+
+  RuntimeDescriptionDatabaseCommitResult commit(
+    final RuntimeDescriptionDatabaseTransaction transaction)
+  {
+    final var added = transaction.added();
+    final var deleted = transaction.deleted();
+    if (added.isEmpty() && deleted.isEmpty()) {
+      return RuntimeDescriptionDatabaseCommitResult.of(0, 0, 0, 0);
+    }
+
+    this.checkNotClosed();
+
+    /*
+     * A slot in the write-behind queue is reserved before the commit lock is taken, so that a
+     * full queue does not block other threads while they hold the lock. The slot is released if
+     * the commit fails before its change is enqueued.
+     */
+
+    this.writer.ifPresent(RDBWriteBehindQueue::reserve);
+    var enqueued = false;
+
+    final RuntimeDescriptionDatabaseCommitResult result;
     try {
-      this.deleteFile(id);
-      final var time = OffsetDateTime.now(ZoneId.of("UTC"));
+      synchronized (this.commitLock) {
+        this.checkNotClosed();
+
+        try (var ignored = this.lockProcessQuietly()) {
+          this.refreshQuietly();
+
+          final var time = OffsetDateTime.now(ZoneId.of("UTC"));
+          final var classified = this.classify(added, deleted, time);
+          final var evicted = this.evict(classified);
+          final var change = this.withoutEvicted(classified, evicted);
+          final var puts = new ArrayList<RuntimeDescription>(added.size());
+          puts.addAll(change.added());
+          puts.addAll(change.replaced());
+          final var deletes = new ArrayList<String>(change.removed().size());
+          for (final var description : change.removed()) {
+            deletes.add(description.id());
+          }
+
+          this.applyChange(change);
+
+          result = RuntimeDescriptionDatabaseCommitResult.of(
+            classified.added().size(),
+            classified.replaced().size(),
+            added.size() - classified.added().size() - classified.replaced().size(),
+            classified.removed().size())
+            .withEvicted(evicted.size());
+
+          /*
+           * A commit record is written even if nothing changed, so that the time of the most
+           * recent update is retained.
+           */
+
+          if (this.writer.isPresent()) {
+            this.writer.get().enqueue(puts, deletes, time);
+            enqueued = true;
+            return result;
+          }
+          this.append(puts, deletes, time);
+        }
+      }
+    } finally {
+      if (!enqueued) {
+        this.writer.ifPresent(RDBWriteBehindQueue::release);
+      }
+    }
+
+    this.compactIfNecessary();
+    this.snapshotIfNecessary();
+    return result;
+  }
+
+  private void checkNotClosed()
+  {
+    if (this.closed) {
+      throw new IllegalStateException("Database is closed");
+    }
+  }
+
+  private RuntimeDescriptionDatabaseChange classify(
+    final Map<String, RuntimeDescription> added,
+    final Set<String> deleted,
+    final OffsetDateTime time)
+  {
+    final var current = this.store.view();
+    final var change = RuntimeDescriptionDatabaseChange.builder();
+    change.setTime(time);
+
+    for (final var description : added.values()) {
+      final var existing = current.get(description.id());
+      if (existing == null) {
+        change.addAdded(RuntimeInterner.description(description));
+      } else if (!existing.equals(description)) {
+        change.addReplaced(RuntimeInterner.description(description));
+      }
+    }
+    for (final var id : deleted) {
+      final var existing = current.get(id);
+      if (existing != null) {
+        change.addRemoved(existing);
+      }
+    }
+    return change.build();
+  }
+
+  private Set<String> evict(
+    final RuntimeDescriptionDatabaseChange change)
+  {
+    if (this.retention.isEmpty()) {
+      return Set.of();
+    }
+
+    this.indexChange(change);
+    return this.retention.get().evict(change.time());
+  }
+
+  private void indexChange(
+    final RuntimeDescriptionDatabaseChange change)
+  {
+    if (this.retention.isEmpty()) {
+      return;
+    }
+
+    final var index = this.retention.get();
+    for (final var description : change.removed()) {
+      index.remove(description.id());
+    }
+    for (final var description : change.added()) {
+      index.put(description);
+    }
+    for (final var description : change.replaced()) {
+      index.put(description);
+    }
+  }
+
+  private void applyChange(
+    final RuntimeDescriptionDatabaseChange change)
+  {
+    final var target = this.store;
+    for (final var description : change.added()) {
+      target.put(description);
+    }
+    for (final var description : change.replaced()) {
+      target.put(description);
+    }
+    for (final var description : change.removed()) {
+      target.remove(description.id());
+    }
+    target.publish();
+
+    final var time = change.time();
+    final var previous = this.updated;
+    if (previous.isEmpty() || !previous.get().isAfter(time)) {
       this.updated = Optional.of(time);
-      this.writeUpdated(time);
-    } catch (final IOException e) {
-      LOG.debug("could not delete {}: ", id, e);
+    }
+    if (isModified(change)) {
+      this.changes.onNext(change);
     }
   }
 
-  private void writeUpdated(
+  private static boolean isModified(
+    final RuntimeDescriptionDatabaseChange change)
+  {
+    return !change.added().isEmpty()
+      || !change.replaced().isEmpty()
+      || !change.removed().isEmpty();
+  }
+
+  private RuntimeDescriptionDatabaseChange withoutEvicted(
+    final RuntimeDescriptionDatabaseChange change,
+    final Set<String> evicted)
+  {
+    if (evicted.isEmpty()) {
+      return change;
+    }
+
+    /*
+     * Runtimes added by the transaction and then immediately evicted are never written. Evicted
+     * runtimes that were already in the database are removed along with the transaction's own
+     * deletions.
+     */
+
+    final var current = this.store.view();
+    final var result = RuntimeDescriptionDatabaseChange.builder();
+    result.setTime(change.time());
+    result.addAllRemoved(change.removed());
+
+    for (final var description : change.added()) {
+      if (!evicted.contains(description.id())) {
+        result.addAdded(description);
+      }
+    }
+    for (final var description : change.replaced()) {
+      if (!evicted.contains(description.id())) {
+        result.addReplaced(description);
+      }
+    }
+    for (final var id : evicted) {
+      final var existing = current.get(id);
+      if (existing != null) {
+        result.addRemoved(existing);
+      }
+    }
+    return result.build();
+  }
+
+  private void writeBehind(
+    final Collection<RuntimeDescription> puts,
+    final Collection<String> deletes,
+    final OffsetDateTime time)
+  {
+    if (this.processLock.isEmpty()) {
+      this.append(puts, deletes, time);
+    } else {
+      this.writeBehindShared(puts, deletes, time);
+    }
+    this.compactIfNecessary();
+    this.snapshotIfNecessary();
+  }
+
+  private void writeBehindShared(
+    final Collection<RuntimeDescription> puts,
+    final Collection<String> deletes,
     final OffsetDateTime time)
+  {
+    /*
+     * Changes committed by other processes after this group was applied in memory will be written
+     * to the journal before this group, so the group is applied again afterwards in order that the
+     * in-memory runtimes match the journal.
+     */
+
+    synchronized (this.commitLock) {
+      try (var ignored = this.lockProcessQuietly()) {
+        if (this.refreshQuietly()) {
+          this.applyTransaction(new RDBJournalTransaction(
+            List.copyOf(puts),
+            List.copyOf(deletes),
+            time));
+        }
+        this.append(puts, deletes, time);
+      }
+    }
+  }
+
+  private void append(
+    final Collection<RuntimeDescription> puts,
+    final Collection<String> deletes,
+    final OffsetDateTime time)
+  {
+    synchronized (this.journalLock) {
+      try {
+        this.journal.append(puts, deletes, time);
+      } catch (final IOException e) {
+        LOG.error(
+          "could not write journal for {}; the transaction is retained only in memory: ",
+          this.path,
+          e);
+      }
+    }
+  }
+
+  /**
+   * Read the changes committed to the database by other processes since the database was opened
+   * or last refreshed, and publish them to {@link #changes()}. Only the transactions that have been
+   * appended to the journal since it was last read are decoded, unless another process has
+   * compacted the journal, in which case the database is reloaded. The database is refreshed
+   * automatically each time a transaction is committed, and periodically in the background, so
+   * calling this method is not usually necessary. This method does nothing unless the database is
+   * configured as shared.
+   *
+   * @throws IOException On I/O errors
+   *
+   * @see RuntimeDescriptionDatabaseConfigurationType#shared()
+   */
+
+  public void refresh()
+    throws IOException
+  {
+    if (this.processLock.isEmpty()) {
+      return;
+    }
+
+    synchronized (this.commitLock) {
+      try (var ignored = this.lockProcess()) {
+        this.refreshLocked();
+      }
+    }
+  }
+
+  private boolean refreshQuietly()
+  {
+    try {
+      return this.refreshLocked();
+    } catch (final IOException e) {
+      LOG.debug("could not refresh {}: ", this.path, e);
+      return false;
+    }
+  }
+
+  /**
+   * Apply external changes. The caller must hold the commit lock and the process lock.
+   *
+   * @return {@code true} if any external changes were found
+   */
+
+  private boolean refreshLocked()
     throws IOException
   {
-    final var file =
-      this.path.resolve("updated");
-    final var file_tmp =
-      this.path.resolve("updated.tmp");
+    if (this.processLock.isEmpty()) {
+      return false;
+    }
+
+    final Optional<List<RDBJournalTransaction>> external;
+    synchronized (this.journalLock) {
+      external = this.journal.readExternal();
+    }
+
+    if (external.isEmpty()) {
+      this.reload();
+      return true;
+    }
+
+    final var transactions = external.get();
+    if (!transactions.isEmpty()) {
+      LOG.debug(
+        "applying {} external transactions to {}",
+        Integer.valueOf(transactions.size()),
+        this.path);
+    }
+    for (final var transaction : transactions) {
+      this.applyTransaction(transaction);
+    }
+    return !transactions.isEmpty();
+  }
 
-    try (var output = Files.newOutputStream(file_tmp, TRUNCATE_EXISTING, CREATE, WRITE)) {
-      output.write(ISO_OFFSET_DATE_TIME.format(time).getBytes(StandardCharsets.UTF_8));
-      Files.move(file_tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+  private void applyTransaction(
+    final RDBJournalTransaction transaction)
+  {
+    final var puts = new HashMap<String, RuntimeDescription>(transaction.puts().size());
+    for (final var description : transaction.puts()) {
+      puts.put(description.id(), description);
     }
+
+    final var change =
+      this.classify(puts, new HashSet<>(transaction.deletes()), transaction.time());
+    this.indexChange(change);
+    this.applyChange(change);
   }
 
-  private void deleteFile(
-    final String id)
+  /**
+   * Reload the database after the journal has been rewritten by another process. The caller must
+   * hold the commit lock and the process lock.
+   */
+
+  private void reload()
     throws IOException
   {
-    final var file = this.path.resolve(id + ".properties");
-    Files.deleteIfExists(file);
+    LOG.debug("journal {} was rewritten externally; reloading", this.path);
+
+    final var fresh = createStore(this.configuration);
+    final var fresh_journal = openJournal(this.path, fresh);
+    fresh.publish();
+
+    final var current = this.store.view();
+    final var next = fresh.view();
+    final var change = RuntimeDescriptionDatabaseChange.builder();
+    change.setTime(fresh_journal.updated().orElseGet(() -> OffsetDateTime.now(ZoneId.of("UTC"))));
+    for (final var entry : next.entrySet()) {
+      final var existing = current.get(entry.getKey());
+      if (existing == null) {
+        change.addAdded(entry.getValue());
+      } else if (!existing.equals(entry.getValue())) {
+        change.addReplaced(entry.getValue());
+      }
+    }
+    for (final var entry : current.entrySet()) {
+      if (!next.containsKey(entry.getKey())) {
+        change.addRemoved(entry.getValue());
+      }
+    }
+
+    synchronized (this.journalLock) {
+      this.journal = fresh_journal;
+    }
+    this.snapshotRecords = fresh_journal.snapshotRecords();
+    this.store = fresh;
+    this.updated = fresh_journal.updated();
+    this.retention =
+      this.configuration.retention()
+        .map(policy -> createRetention(policy, next));
+
+    final var built = change.build();
+    if (isModified(built)) {
+      this.changes.onNext(built);
+    }
   }
 
-  private void write(
-    final RuntimeDescription description)
+  private RDBProcessLock.HeldType lockProcess()
     throws IOException
   {
-    final var file =
-      this.path.resolve(description.id() + ".properties");
-    final var file_tmp =
-      this.path.resolve(description.id() + ".properties.tmp");
+    return acquire(this.processLock);
+  }
 
-    try (var output = Files.newOutputStream(file_tmp, TRUNCATE_EXISTING, CREATE, WRITE)) {
-      RuntimeDescriptions.serializeToProperties(description)
-        .store(output, "");
-      Files.move(file_tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+  private RDBProcessLock.HeldType lockProcessQuietly()
+  {
+    try {
+      return this.lockProcess();
+    } catch (final IOException e) {
+      LOG.debug("could not lock {}: ", this.path, e);
+      return () -> {
+      };
     }
   }
 
   /**
+   * Wait until all committed changes have been written to disk. This method returns immediately
+   * unless the database is configured to use write-behind persistence.
+   */
+
+  public void flush()
+  {
+    this.writer.ifPresent(RDBWriteBehindQueue::flush);
+  }
+
+  /**
+   * Write all committed changes to disk, stop the writer thread and background refreshing, if
+   * any, and complete the stream of changes. Committing a transaction after the database has been
+   * closed raises {@link IllegalStateException} without modifying the database.
+   */
+
+  @Override
+  public void close()
+  {
+    /*
+     * The flag is set while holding the commit lock, so any commit in progress enqueues its change
+     * before the writer is closed, and any later commit fails before modifying the database.
+     */
+
+    synchronized (this.commitLock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+    }
+
+    this.refresher.ifPresent(task -> task.cancel(false));
+    this.writer.ifPresent(RDBWriteBehindQueue::close);
+    this.changes.onComplete();
+  }
+
+  /**
+   * Compact the on-disk journal, rewriting it so that it contains only the current set of runtimes.
+   * Compaction happens automatically in the background when the journal contains too many dead
+   * records, so calling this method is not usually necessary.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void compact()
+    throws IOException
+  {
+    synchronized (this.commitLock) {
+      try (var ignored = this.lockProcess()) {
+        this.compactLocked();
+      }
+    }
+  }
+
+  private void compactLocked()
+    throws IOException
+  {
+    /*
+     * Changes committed by other processes must be read before the journal is rewritten, or
+     * they would be lost.
+     */
+
+    this.refreshLocked();
+
+    synchronized (this.journalLock) {
+      LOG.debug(
+        "compacting {} ({} records, {} live)",
+        this.path,
+        Long.valueOf(this.journal.records()),
+        Integer.valueOf(this.store.size()));
+
+      this.journal.rewrite(
+        List.copyOf(this.store.view().values()),
+        this.updated.orElseGet(() -> OffsetDateTime.now(ZoneId.of("UTC"))));
+    }
+    this.snapshot();
+  }
+
+  /**
+   * Write a snapshot of the current set of runtimes. Snapshots are written automatically in the
+   * background, so calling this method is not usually necessary.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void snapshot()
+    throws IOException
+  {
+    synchronized (this.commitLock) {
+      try (var ignored = this.lockProcess()) {
+        final var position = this.journalPosition();
+        LOG.debug(
+          "writing snapshot of {} ({} runtimes)",
+          this.path,
+          Integer.valueOf(this.store.size()));
+
+        final var file = this.path.resolve(SNAPSHOT);
+        RDBSnapshot.write(file, position, this.updated, List.copyOf(this.store.view().values()));
+        this.snapshotRecords = position.records();
+        this.store.snapshotWritten(file);
+      }
+    }
+  }
+
+  private RDBJournalPosition journalPosition()
+  {
+    synchronized (this.journalLock) {
+      return this.journal.position();
+    }
+  }
+
+  private long journalRecords()
+  {
+    synchronized (this.journalLock) {
+      return this.journal.records();
+    }
+  }
+
+  private void snapshotIfNecessary()
+  {
+    if (this.needsSnapshot() && this.snapshotScheduled.compareAndSet(false, true)) {
+      COMPACTOR.execute(() -> {
+        try {
+          if (this.needsSnapshot()) {
+            this.snapshot();
+          }
+        } catch (final IOException e) {
+          LOG.error("could not write snapshot of {}: ", this.path, e);
+        } finally {
+          this.snapshotScheduled.set(false);
+        }
+      });
+    }
+  }
+
+  private boolean needsSnapshot()
+  {
+    synchronized (this.commitLock) {
+      final var unsnapshotted = this.journalRecords() - this.snapshotRecords;
+      return unsnapshotted >= this.configuration.snapshotInterval();
+    }
+  }
+
+  private void compactIfNecessary()
+  {
+    if (this.needsCompaction() && this.compactionScheduled.compareAndSet(false, true)) {
+      COMPACTOR.execute(() -> {
+        try {
+          this.compact();
+        } catch (final IOException e) {
+          LOG.error("could not compact {}: ", this.path, e);
+        } finally {
+          this.compactionScheduled.set(false);
+        }
+      });
+    }
+  }
+
+  private boolean needsCompaction()
+  {
+    synchronized (this.commitLock) {
+      final var records = this.journalRecords();
+      if (records < this.configuration.compactionMinimumRecords()) {
+        return false;
+      }
+
+      final var dead = Math.max(0L, records - (long) this.store.size());
+      return (double) dead / (double) records > this.configuration.compactionThreshold();
+    }
+  }
+
+  /**
+   * The stream of changes made to the database. One change is published for each committed
+   * transaction that modifies the database, in commit order. Changes are published on the
+   * committing thread before the commit returns, and before the changes have necessarily been
+   * written to disk; subscribers that perform expensive work should observe the stream on a
+   * separate scheduler.
+   *
+   * @return The stream of changes
+   */
+
+  public Observable<RuntimeDescriptionDatabaseChange> changes()
+  {
+    return this.changes;
+  }
+
+  /**
+   * Obtain an immutable snapshot of the current runtimes. The snapshot reflects every transaction
+   * committed before this method was called, and is not affected by transactions committed
+   * afterwards; a transaction is never partially visible.
+   *
    * @return A read-only map of the current runtimes
    */
 
   public Map<String, RuntimeDescription> descriptions()
   {
-    return this.descriptions_read;
+    return this.store.view();
+  }
+
+  /**
+   * Find the current runtimes that match the given query. As with {@link #descriptions()}, the
+   * result reflects every transaction committed before this method was called.
+   *
+   * @param query The query
+   *
+   * @return A read-only map of the matching runtimes
+   */
+
+  public Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+    return this.store.search(query);
   }
 }
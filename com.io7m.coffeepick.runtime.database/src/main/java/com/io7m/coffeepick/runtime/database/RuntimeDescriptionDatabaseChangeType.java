@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * The set of changes made to a database by a single committed transaction.
+ *
+ * @see RuntimeDescriptionDatabase#changes()
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface RuntimeDescriptionDatabaseChangeType
+{
+  /**
+   * @return The time of the commit
+   */
+
+  OffsetDateTime time();
+
+  /**
+   * @return The runtimes that were not previously present in the database
+   */
+
+  List<RuntimeDescription> added();
+
+  /**
+   * @return The runtimes that replaced different runtimes with the same ID
+   */
+
+  List<RuntimeDescription> replaced();
+
+  /**
+   * @return The runtimes that were removed from the database
+   */
+
+  List<RuntimeDescription> removed();
+}
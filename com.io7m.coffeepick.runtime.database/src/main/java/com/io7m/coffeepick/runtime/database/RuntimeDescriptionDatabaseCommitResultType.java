@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+/**
+ * The result of committing a transaction. Runtimes that were added to the transaction but that
+ * were identical to the runtimes already in the database are counted as unchanged and are not
+ * written to disk. Runtimes that were evicted by the database retention policy are counted
+ * separately from runtimes that were explicitly removed.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface RuntimeDescriptionDatabaseCommitResultType
+{
+  /**
+   * @return The number of runtimes that were not previously present in the database
+   */
+
+  @Value.Parameter
+  int added();
+
+  /**
+   * @return The number of runtimes that replaced different runtimes with the same ID
+   */
+
+  @Value.Parameter
+  int changed();
+
+  /**
+   * @return The number of runtimes that were identical to the runtimes already in the database
+   */
+
+  @Value.Parameter
+  int unchanged();
+
+  /**
+   * @return The number of runtimes that were removed from the database
+   */
+
+  @Value.Parameter
+  int removed();
+
+  /**
+   * @return The number of runtimes that were evicted by the database retention policy
+   */
+
+  @Value.Default
+  default int evicted()
+  {
+    return 0;
+  }
+
+  /**
+   * @return {@code true} if the commit modified the database
+   */
+
+  default boolean isModified()
+  {
+    return this.added() + this.changed() + this.removed() + this.evicted() > 0;
+  }
+}
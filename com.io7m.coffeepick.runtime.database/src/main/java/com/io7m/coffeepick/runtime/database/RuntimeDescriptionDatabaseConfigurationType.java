@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The configuration of a runtime description database.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface RuntimeDescriptionDatabaseConfigurationType
+{
+  /**
+   * The ratio of dead records to total records in the journal above which the journal will be
+   * compacted. A record is dead if it has been replaced or deleted by a later record.
+   *
+   * @return The compaction threshold in the range {@code (0, 1]}
+   */
+
+  @Value.Default
+  default double compactionThreshold()
+  {
+    return 0.5;
+  }
+
+  /**
+   * The number of records that must be present in the journal before compaction will be
+   * considered. This avoids repeatedly compacting small journals.
+   *
+   * @return The minimum number of journal records
+   */
+
+  @Value.Default
+  default long compactionMinimumRecords()
+  {
+    return 1_000L;
+  }
+
+  /**
+   * The number of records that must be appended to the journal after the most recent snapshot
+   * before a new snapshot will be written.
+   *
+   * @return The snapshot interval in journal records
+   */
+
+  @Value.Default
+  default long snapshotInterval()
+  {
+    return 1_000L;
+  }
+
+  /**
+   * Whether runtime descriptions should be decoded lazily. If lazy decoding is enabled, opening
+   * the database reads only the index of runtime IDs from the most recent snapshot, and each runtime
+   * description is decoded when it is first accessed. This reduces startup time and heap usage for
+   * clients that access only a small number of runtimes.
+   *
+   * @return {@code true} if runtime descriptions should be decoded lazily
+   */
+
+  @Value.Default
+  default boolean lazyDecoding()
+  {
+    return false;
+  }
+
+  /**
+   * The maximum number of decoded runtime descriptions that will be cached when lazy decoding is
+   * enabled.
+   *
+   * @return The cache size
+   *
+   * @see #lazyDecoding()
+   */
+
+  @Value.Default
+  default int lazyCacheSize()
+  {
+    return 1_000;
+  }
+
+  /**
+   * The maximum number of threads that will be used to decode runtime descriptions when the
+   * database is opened.
+   *
+   * @return The load parallelism
+   */
+
+  @Value.Default
+  default int loadParallelism()
+  {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Whether committed changes should be written to disk by a dedicated writer thread. If
+   * write-behind persistence is enabled, committing a transaction applies the changes in memory and
+   * returns without waiting for the changes to be written to disk.
+   *
+   * @return {@code true} if write-behind persistence is enabled
+   */
+
+  @Value.Default
+  default boolean writeBehind()
+  {
+    return false;
+  }
+
+  /**
+   * The maximum number of commits that may be waiting to be written when write-behind persistence
+   * is enabled. Committing blocks while this many commits are waiting.
+   *
+   * @return The write-behind queue capacity
+   *
+   * @see #writeBehind()
+   */
+
+  @Value.Default
+  default int writeBehindCapacity()
+  {
+    return 64;
+  }
+
+  /**
+   * Whether the database directory is shared with other processes. If the directory is shared,
+   * access to the files in the directory is serialized with a lock file, and changes committed by
+   * other processes are read from the journal each time a transaction is committed and periodically
+   * in the background.
+   *
+   * @return {@code true} if the database directory is shared with other processes
+   *
+   * @see #refreshInterval()
+   */
+
+  @Value.Default
+  default boolean shared()
+  {
+    return false;
+  }
+
+  /**
+   * The interval at which the journal is checked for changes committed by other processes when
+   * the database directory is shared.
+   *
+   * @return The refresh interval
+   *
+   * @see #shared()
+   */
+
+  @Value.Default
+  default Duration refreshInterval()
+  {
+    return Duration.ofSeconds(5L);
+  }
+
+  /**
+   * The policy that bounds the set of runtimes retained by the database. If no policy is
+   * specified, runtimes are retained until they are explicitly deleted.
+   *
+   * @return The retention policy, if any
+   */
+
+  Optional<RuntimeDescriptionDatabaseRetentionPolicy> retention();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var threshold = this.compactionThreshold();
+    if (!(threshold > 0.0 && threshold <= 1.0)) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid compaction threshold.")
+          .append(separator)
+          .append("  Expected: A value in the range (0, 1]")
+          .append(separator)
+          .append("  Received: ")
+          .append(threshold)
+          .append(separator)
+          .toString());
+    }
+
+    final var parallelism = this.loadParallelism();
+    if (parallelism <= 0) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid load parallelism.")
+          .append(separator)
+          .append("  Expected: A positive value")
+          .append(separator)
+          .append("  Received: ")
+          .append(parallelism)
+          .append(separator)
+          .toString());
+    }
+
+    final var capacity = this.writeBehindCapacity();
+    if (capacity <= 0) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid write-behind capacity.")
+          .append(separator)
+          .append("  Expected: A positive value")
+          .append(separator)
+          .append("  Received: ")
+          .append(capacity)
+          .append(separator)
+          .toString());
+    }
+
+    final var interval = this.refreshInterval();
+    if (interval.isNegative() || interval.isZero()) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid refresh interval.")
+          .append(separator)
+          .append("  Expected: A positive duration")
+          .append(separator)
+          .append("  Received: ")
+          .append(interval)
+          .append(separator)
+          .toString());
+    }
+
+    final var cache_size = this.lazyCacheSize();
+    if (cache_size <= 0) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid lazy cache size.")
+          .append(separator)
+          .append("  Expected: A positive value")
+          .append(separator)
+          .append("  Received: ")
+          .append(cache_size)
+          .append(separator)
+          .toString());
+    }
+  }
+}
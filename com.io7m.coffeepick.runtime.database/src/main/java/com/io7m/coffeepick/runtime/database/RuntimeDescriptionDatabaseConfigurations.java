@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.runtime.database;
+
+import java.util.Objects;
+import java.util.OptionalInt;
+
+/**
+ * Functions over database configurations.
+ */
+
+public final class RuntimeDescriptionDatabaseConfigurations
+{
+  private RuntimeDescriptionDatabaseConfigurations()
+  {
+
+  }
+
+  /**
+   * Create the configuration used by repositories that store runtimes in a database.
+   *
+   * @param retained The maximum number of runtimes to retain for each combination of platform,
+   *                 architecture, and major version, or nothing if all runtimes should be
+   *                 retained
+   *
+   * @return A database configuration
+   */
+
+  public static RuntimeDescriptionDatabaseConfiguration forRepository(
+    final OptionalInt retained)
+  {
+    Objects.requireNonNull(retained, "retained");
+
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder();
+
+    if (retained.isPresent()) {
+      configuration.setRetention(
+        RuntimeDescriptionDatabaseRetentionPolicy.builder()
+          .setMaximumRuntimesPerMajorVersion(retained.getAsInt())
+          .build());
+    }
+    return configuration.build();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * A policy that bounds the set of runtimes retained by a database. Runtimes that fall outside the
+ * policy are evicted from the database as part of the transaction that causes them to fall outside
+ * the policy.
+ *
+ * <p>Where a policy must choose between runtimes, runtimes are ordered from oldest to newest by
+ * build time, then by version, and then by ID. Runtimes without build information are considered
+ * to be older than runtimes with build information.</p>
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface RuntimeDescriptionDatabaseRetentionPolicyType
+{
+  /**
+   * The maximum number of runtimes retained by the database. If the database holds more runtimes,
+   * the oldest runtimes are evicted.
+   *
+   * @return The maximum number of runtimes, if any
+   */
+
+  OptionalInt maximumRuntimes();
+
+  /**
+   * The maximum age of retained runtimes, measured from the build time of each runtime to the time
+   * of the most recent commit. Runtimes without build information are never evicted by age.
+   *
+   * @return The maximum age, if any
+   */
+
+  Optional<Duration> maximumAge();
+
+  /**
+   * The maximum number of runtimes retained for each combination of platform, architecture, and
+   * major version. If the database holds more runtimes for a given combination, the oldest
+   * runtimes of that combination are evicted.
+   *
+   * @return The maximum number of runtimes per platform, architecture, and major version, if any
+   */
+
+  OptionalInt maximumRuntimesPerMajorVersion();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    checkPositive("maximum runtime count", this.maximumRuntimes());
+    checkPositive("maximum runtime count per major version", this.maximumRuntimesPerMajorVersion());
+
+    final var age = this.maximumAge();
+    if (age.isPresent() && (age.get().isNegative() || age.get().isZero())) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid maximum age.")
+          .append(separator)
+          .append("  Expected: A positive duration")
+          .append(separator)
+          .append("  Received: ")
+          .append(age.get())
+          .append(separator)
+          .toString());
+    }
+  }
+
+  private static void checkPositive(
+    final String name,
+    final OptionalInt value)
+  {
+    if (value.isPresent() && value.getAsInt() <= 0) {
+      final var separator = System.lineSeparator();
+      throw new IllegalArgumentException(
+        new StringBuilder(128)
+          .append("Invalid ")
+          .append(name)
+          .append('.')
+          .append(separator)
+          .append("  Expected: A positive value")
+          .append(separator)
+          .append("  Received: ")
+          .append(value.getAsInt())
+          .append(separator)
+          .toString());
+    }
+  }
+}
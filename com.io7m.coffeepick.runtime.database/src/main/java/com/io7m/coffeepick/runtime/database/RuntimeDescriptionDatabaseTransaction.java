@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import net.jcip.annotations.NotThreadSafe;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A batch of changes to a runtime description database. Changes made to a transaction are not
+ * visible in the database (and are not written to disk) until the transaction is committed.
+ *
+ * @see RuntimeDescriptionDatabase#transaction()
+ */
+
+@NotThreadSafe
+public final class RuntimeDescriptionDatabaseTransaction
+{
+  private final RuntimeDescriptionDatabase database;
+  private final LinkedHashMap<String, RuntimeDescription> added;
+  private final HashSet<String> deleted;
+  private boolean committed;
+
+  RuntimeDescriptionDatabaseTransaction(
+    final RuntimeDescriptionDatabase in_database)
+  {
+    this.database =
+      Objects.requireNonNull(in_database, "database");
+    this.added =
+      new LinkedHashMap<>(128);
+    this.deleted =
+      new HashSet<>(16);
+    this.committed =
+      false;
+  }
+
+  /**
+   * Add a runtime to the transaction, replacing any existing runtime with the same ID.
+   *
+   * @param description The runtime to be added
+   *
+   * @return this
+   */
+
+  public RuntimeDescriptionDatabaseTransaction add(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+    this.checkNotCommitted();
+
+    final var id = description.id();
+    this.deleted.remove(id);
+    this.added.put(id, description);
+    return this;
+  }
+
+  /**
+   * Add all of the given runtimes to the transaction.
+   *
+   * @param descriptions The runtimes to be added
+   *
+   * @return this
+   */
+
+  public RuntimeDescriptionDatabaseTransaction addAll(
+    final Collection<RuntimeDescription> descriptions)
+  {
+    Objects.requireNonNull(descriptions, "descriptions");
+
+    for (final var description : descriptions) {
+      this.add(description);
+    }
+    return this;
+  }
+
+  /**
+   * Delete a runtime in the transaction.
+   *
+   * @param id The ID of the runtime to be deleted
+   *
+   * @return this
+   */
+
+  public RuntimeDescriptionDatabaseTransaction delete(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+    this.checkNotCommitted();
+
+    this.added.remove(id);
+    this.deleted.add(id);
+    return this;
+  }
+
+  /**
+   * Commit the transaction. All changes are appended to the database journal as a single unit, so
+   * either all or none of the changes will be visible when the database is next opened. Added
+   * runtimes that are identical to those already in the database, and deletions of runtimes that
+   * are not in the database, are not written. No exception will be raised if persisting the
+   * changes fails. A transaction can be committed at most once.
+   *
+   * @return The result of committing the transaction
+   *
+   * @throws IllegalStateException If the database has been closed
+   */
+
+  public RuntimeDescriptionDatabaseCommitResult commit()
+  {
+    this.checkNotCommitted();
+    this.committed = true;
+    return this.database.commit(this);
+  }
+
+  Map<String, RuntimeDescription> added()
+  {
+    return this.added;
+  }
+
+  Set<String> deleted()
+  {
+    return this.deleted;
+  }
+
+  private void checkNotCommitted()
+  {
+    if (this.committed) {
+      throw new IllegalStateException("Transaction has already been committed");
+    }
+  }
+}
@@ -0,0 +1,513 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A set of secondary indexes over the records in a snapshot.
+ *
+ * <p>For each indexed attribute, the index maps each distinct value of the attribute to the sorted
+ * list of the indices of the records in the snapshot that have that value. Queries are answered by
+ * intersecting the lists for each attribute specified in the query, so only the records that
+ * actually match the query need to be decoded. The index is written to a file alongside the
+ * snapshot, and is tied to the snapshot by the snapshot's checksum; an index that does not match
+ * its snapshot is ignored.</p>
+ */
+
+@ThreadSafe
+public final class RDBIndex
+{
+  private static final Logger LOG = LoggerFactory.getLogger(RDBIndex.class);
+
+  private static final int MAGIC = 0x43504958;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int[] EMPTY = new int[0];
+
+  private final EnumMap<Attribute, Map<String, int[]>> postings;
+
+  private RDBIndex(
+    final EnumMap<Attribute, Map<String, int[]>> in_postings)
+  {
+    this.postings = Objects.requireNonNull(in_postings, "postings");
+  }
+
+  /**
+   * The indexed attributes of runtime descriptions. The declaration order of the attributes is
+   * the order in which they appear in index files.
+   */
+
+  public enum Attribute
+  {
+    /**
+     * The runtime platform.
+     */
+
+    PLATFORM,
+
+    /**
+     * The runtime architecture.
+     */
+
+    ARCHITECTURE,
+
+    /**
+     * The runtime VM.
+     */
+
+    VM,
+
+    /**
+     * The name of the runtime configuration.
+     */
+
+    CONFIGURATION,
+
+    /**
+     * The runtime tags. A runtime appears once for each of its tags.
+     */
+
+    TAG,
+
+    /**
+     * The major version of the runtime.
+     */
+
+    MAJOR_VERSION
+  }
+
+  /**
+   * @return A new builder for indexes
+   */
+
+  public static Builder builder()
+  {
+    return new Builder();
+  }
+
+  /**
+   * The name of the file that holds the index for the given snapshot file.
+   *
+   * @param snapshot The snapshot file
+   *
+   * @return The index file
+   */
+
+  public static Path fileFor(
+    final Path snapshot)
+  {
+    Objects.requireNonNull(snapshot, "snapshot");
+    return snapshot.resolveSibling(snapshot.getFileName() + ".index");
+  }
+
+  /**
+   * Open an index.
+   *
+   * @param file             The index file
+   * @param snapshotChecksum The checksum of the snapshot that the index must match
+   * @param records          The number of records in the snapshot
+   *
+   * @return The index, or nothing if the file does not exist, is not a valid index, or does not
+   *   match the snapshot
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Optional<RDBIndex> open(
+    final Path file,
+    final int snapshotChecksum,
+    final int records)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final ByteBuffer buffer;
+    try (var channel = FileChannel.open(file, READ)) {
+      final var size = channel.size();
+      if (size < (long) HEADER_SIZE || size > (long) Integer.MAX_VALUE) {
+        LOG.warn("{}: ignoring index of invalid size {}", file, Long.valueOf(size));
+        return Optional.empty();
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    }
+
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      LOG.warn("{}: ignoring index with an unrecognized header", file);
+      return Optional.empty();
+    }
+    if (buffer.getInt(8) != snapshotChecksum || buffer.getInt(12) != records) {
+      LOG.debug("{}: ignoring index that does not match the snapshot", file);
+      return Optional.empty();
+    }
+    if (buffer.getInt(20) != checksumOf(buffer)) {
+      LOG.warn("{}: ignoring index with an incorrect checksum", file);
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(decode(buffer.position(HEADER_SIZE), records));
+    } catch (final IndexOutOfBoundsException
+                   | BufferUnderflowException
+                   | IllegalArgumentException e) {
+      LOG.warn("{}: ignoring malformed index: ", file, e);
+      return Optional.empty();
+    }
+  }
+
+  private static RDBIndex decode(
+    final ByteBuffer input,
+    final int records)
+  {
+    final var attributes = Attribute.values();
+    final var postings = new EnumMap<Attribute, Map<String, int[]>>(Attribute.class);
+    for (final var attribute : attributes) {
+      final var key_count = input.getInt();
+      if (key_count < 0 || key_count > input.remaining()) {
+        throw new IllegalArgumentException("Invalid key count: " + key_count);
+      }
+
+      final var keys = new HashMap<String, int[]>(key_count * 2);
+      for (var key_index = 0; key_index < key_count; ++key_index) {
+        final var length = input.getInt();
+        final var key =
+          StandardCharsets.UTF_8.decode(input.slice().limit(length)).toString();
+        input.position(input.position() + length);
+
+        final var count = input.getInt();
+        if (count < 0 || count > records) {
+          throw new IllegalArgumentException("Invalid posting count: " + count);
+        }
+        final var list = new int[count];
+        for (var index = 0; index < count; ++index) {
+          list[index] = Objects.checkIndex(input.getInt(), records);
+        }
+        keys.put(RuntimeInterner.string(key), list);
+      }
+      postings.put(attribute, keys);
+    }
+    return new RDBIndex(postings);
+  }
+
+  private static int checksumOf(
+    final ByteBuffer buffer)
+  {
+    final var crc = new CRC32();
+    crc.update(buffer.duplicate().position(HEADER_SIZE).limit(buffer.capacity()));
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Atomically write the index.
+   *
+   * @param file             The index file
+   * @param snapshotChecksum The checksum of the snapshot that the index describes
+   * @param records          The number of records in the snapshot
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final Path file,
+    final int snapshotChecksum,
+    final int records)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var bytes = new ByteArrayOutputStream(16 * 1024);
+    try (var output = new DataOutputStream(bytes)) {
+      output.write(new byte[HEADER_SIZE]);
+      for (final var attribute : Attribute.values()) {
+        final var keys = this.postings.get(attribute);
+        output.writeInt(keys.size());
+        for (final var entry : keys.entrySet()) {
+          final var data = entry.getKey().getBytes(StandardCharsets.UTF_8);
+          output.writeInt(data.length);
+          output.write(data);
+
+          final var list = entry.getValue();
+          output.writeInt(list.length);
+          for (final var record : list) {
+            output.writeInt(record);
+          }
+        }
+      }
+    }
+
+    final var buffer = ByteBuffer.wrap(bytes.toByteArray());
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, snapshotChecksum);
+    buffer.putInt(12, records);
+    buffer.putInt(16, 0);
+    buffer.putInt(20, checksumOf(buffer));
+
+    final var file_tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (var channel = FileChannel.open(file_tmp, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+
+    try {
+      Files.move(file_tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (final IOException e) {
+      Files.deleteIfExists(file_tmp);
+      throw e;
+    }
+  }
+
+  /**
+   * Determine the records that may match the given query. Every record that matches the query is
+   * guaranteed to be included in the result, but the caller is responsible for checking any parts
+   * of the query that the index cannot answer exactly (such as the minor components of a version
+   * range).
+   *
+   * @param query The query
+   *
+   * @return The sorted indices of the candidate records, or nothing if the query does not
+   *   constrain any indexed attribute (in which case every record is a candidate)
+   */
+
+  public Optional<int[]> select(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    int[] result = null;
+    if (query.platform().isPresent()) {
+      result = intersect(result, this.exact(Attribute.PLATFORM, query.platform().get()));
+    }
+    if (query.architecture().isPresent()) {
+      result = intersect(result, this.exact(Attribute.ARCHITECTURE, query.architecture().get()));
+    }
+    if (query.vm().isPresent()) {
+      result = intersect(result, this.exact(Attribute.VM, query.vm().get()));
+    }
+    if (query.configuration().isPresent()) {
+      final var name = query.configuration().get().configurationName();
+      result = intersect(result, this.exact(Attribute.CONFIGURATION, name));
+    }
+    for (final var tag : query.requiredTags()) {
+      result = intersect(result, this.exact(Attribute.TAG, tag));
+    }
+    if (query.versionRange().isPresent()) {
+      final var range = query.versionRange().get();
+      final var lower = range.lower().major();
+      final var upper = range.upper().major();
+      result = intersect(result, this.matching(Attribute.MAJOR_VERSION, key -> {
+        final var major = new BigInteger(key);
+        return major.compareTo(lower) >= 0 && major.compareTo(upper) <= 0;
+      }));
+    }
+    return Optional.ofNullable(result);
+  }
+
+  private int[] exact(
+    final Attribute attribute,
+    final String key)
+  {
+    return this.postings.get(attribute).getOrDefault(key, EMPTY);
+  }
+
+  private int[] matching(
+    final Attribute attribute,
+    final Predicate<String> keys)
+  {
+    final var lists = new ArrayList<int[]>();
+    var total = 0;
+    for (final var entry : this.postings.get(attribute).entrySet()) {
+      if (keys.test(entry.getKey())) {
+        lists.add(entry.getValue());
+        total += entry.getValue().length;
+      }
+    }
+
+    final var union = new int[total];
+    var position = 0;
+    for (final var list : lists) {
+      System.arraycopy(list, 0, union, position, list.length);
+      position += list.length;
+    }
+    Arrays.sort(union);
+    return union;
+  }
+
+  private static int[] intersect(
+    final int[] current,
+    final int[] list)
+  {
+    if (current == null) {
+      return list;
+    }
+
+    final var result = new int[Math.min(current.length, list.length)];
+    var count = 0;
+    var left = 0;
+    var right = 0;
+    while (left < current.length && right < list.length) {
+      final var compare = Integer.compare(current[left], list[right]);
+      if (compare == 0) {
+        result[count] = current[left];
+        ++count;
+        ++left;
+        ++right;
+      } else if (compare < 0) {
+        ++left;
+      } else {
+        ++right;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * A mutable builder for indexes. Records must be added in ascending order of record index.
+   */
+
+  public static final class Builder
+  {
+    private final EnumMap<Attribute, Map<String, Postings>> postings;
+
+    private Builder()
+    {
+      this.postings = new EnumMap<>(Attribute.class);
+      for (final var attribute : Attribute.values()) {
+        this.postings.put(attribute, new HashMap<>(64));
+      }
+    }
+
+    /**
+     * Add a record to the index.
+     *
+     * @param record      The record index
+     * @param description The runtime description held in the record
+     *
+     * @return this
+     */
+
+    public Builder add(
+      final int record,
+      final RuntimeDescription description)
+    {
+      Objects.requireNonNull(description, "description");
+
+      this.addKey(Attribute.PLATFORM, description.platform(), record);
+      this.addKey(Attribute.ARCHITECTURE, description.architecture(), record);
+      this.addKey(Attribute.VM, description.vm(), record);
+      this.addKey(
+        Attribute.CONFIGURATION, description.configuration().configurationName(), record);
+      for (final var tag : description.tags()) {
+        this.addKey(Attribute.TAG, tag, record);
+      }
+      this.addKey(
+        Attribute.MAJOR_VERSION, description.version().major().toString(), record);
+      return this;
+    }
+
+    private void addKey(
+      final Attribute attribute,
+      final String key,
+      final int record)
+    {
+      this.postings.get(attribute)
+        .computeIfAbsent(key, k -> new Postings())
+        .add(record);
+    }
+
+    /**
+     * @return An immutable index containing every record added so far
+     */
+
+    public RDBIndex build()
+    {
+      final var result = new EnumMap<Attribute, Map<String, int[]>>(Attribute.class);
+      for (final var entry : this.postings.entrySet()) {
+        final var keys = new HashMap<String, int[]>(entry.getValue().size() * 2);
+        for (final var key : entry.getValue().entrySet()) {
+          keys.put(key.getKey(), key.getValue().toArray());
+        }
+        result.put(entry.getKey(), keys);
+      }
+      return new RDBIndex(result);
+    }
+  }
+
+  private static final class Postings
+  {
+    private int[] records;
+    private int count;
+
+    Postings()
+    {
+      this.records = new int[16];
+      this.count = 0;
+    }
+
+    void add(
+      final int record)
+    {
+      if (this.count == this.records.length) {
+        this.records = Arrays.copyOf(this.records, this.count * 2);
+      }
+      this.records[this.count] = record;
+      ++this.count;
+    }
+
+    int[] toArray()
+    {
+      return Arrays.copyOf(this.records, this.count);
+    }
+  }
+}
@@ -0,0 +1,641 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import net.jcip.annotations.NotThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only journal of runtime description changes.
+ *
+ * <p>The journal consists of a header followed by a sequence of checksummed records. Each
+ * transaction is written as zero or more {@code PUT} and {@code DELETE} records followed by a
+ * single {@code COMMIT} record carrying the time of the commit. When the journal is replayed,
+ * records that are not followed by a {@code COMMIT} record (such as those left behind by a crash
+ * part way through an append) are discarded and the journal is truncated to the end of the last
+ * complete transaction.</p>
+ *
+ * <p>The header carries a generation number that changes each time the journal is rewritten, so
+ * that a {@link RDBJournalPosition} recorded against one generation of the journal can be
+ * recognized as stale after compaction.</p>
+ */
+
+@NotThreadSafe
+public final class RDBJournal
+{
+  private static final Logger LOG = LoggerFactory.getLogger(RDBJournal.class);
+
+  private static final int MAGIC = 0x43504a4c;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 16;
+  private static final int MAXIMUM_RECORD_SIZE = 1_000_000;
+
+  private static final byte RECORD_PUT = 1;
+  private static final byte RECORD_DELETE = 2;
+  private static final byte RECORD_COMMIT = 3;
+
+  private final Path file;
+  private final Path file_tmp;
+  private long generation;
+  private Optional<OffsetDateTime> updated;
+  private long records;
+  private long size;
+  private int checksum;
+  private long snapshot_records;
+
+  private RDBJournal(
+    final Path in_file,
+    final long in_generation,
+    final long in_size)
+  {
+    this.file =
+      Objects.requireNonNull(in_file, "file");
+    this.file_tmp =
+      in_file.resolveSibling(in_file.getFileName() + ".tmp");
+    this.generation = in_generation;
+    this.updated = Optional.empty();
+    this.records = 0L;
+    this.size = in_size;
+    this.checksum = 0;
+    this.snapshot_records = 0L;
+  }
+
+  /**
+   * Open a journal, creating it if it does not exist. If the given snapshot represents a position
+   * in the current generation of the journal, the snapshot is restored into {@code target} and only
+   * the records after that position are replayed. Otherwise, the entire journal is replayed into
+   * {@code target}. A journal with an unrecognized header is left untouched and is not opened.
+   *
+   * @param file     The journal file
+   * @param target   The store that will receive the replayed runtime descriptions
+   * @param snapshot The most recent snapshot, if any
+   *
+   * @return A journal
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static RDBJournal open(
+    final Path file,
+    final RDBStoreType target,
+    final Optional<RDBSnapshot> snapshot)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(target, "target");
+    Objects.requireNonNull(snapshot, "snapshot");
+
+    try (var stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final var journal = readHeader(file, stream);
+      if (journal == null) {
+        throw new IOException(
+          new StringBuilder(64)
+            .append("Journal has an unrecognized header: ")
+            .append(file)
+            .toString());
+      }
+
+      if (snapshot.isPresent()) {
+        journal.restoreSnapshot(stream, target, snapshot.get());
+      }
+      journal.replay(stream, (pending, time) -> applyPending(pending, target), true);
+      return journal;
+    } catch (final NoSuchFileException e) {
+      return create(file);
+    }
+  }
+
+  private static RDBJournal create(
+    final Path file)
+    throws IOException
+  {
+    final var journal = new RDBJournal(file, newGeneration(0L), HEADER_SIZE);
+    journal.rewriteWith(List.of(), Optional.empty());
+    return journal;
+  }
+
+  private static long newGeneration(
+    final long previous)
+  {
+    while (true) {
+      final var generation = ThreadLocalRandom.current().nextLong();
+      if (generation != previous) {
+        return generation;
+      }
+    }
+  }
+
+  private static RDBJournal readHeader(
+    final Path file,
+    final DataInputStream stream)
+    throws IOException
+  {
+    try {
+      if (stream.readInt() != MAGIC) {
+        return null;
+      }
+      if (stream.readInt() != VERSION) {
+        return null;
+      }
+      return new RDBJournal(file, stream.readLong(), HEADER_SIZE);
+    } catch (final EOFException e) {
+      return null;
+    }
+  }
+
+  private void restoreSnapshot(
+    final DataInputStream stream,
+    final RDBStoreType target,
+    final RDBSnapshot snapshot)
+    throws IOException
+  {
+    final var position = snapshot.position();
+    if (position.generation() != this.generation
+      || position.offset() < this.size
+      || position.offset() > Files.size(this.file)
+      || position.checksum() != this.checksumBefore(position.offset())) {
+      LOG.debug("{}: snapshot is stale", this.file);
+      return;
+    }
+
+    try {
+      target.restore(snapshot);
+    } catch (final IOException e) {
+      LOG.warn("{}: unable to decode snapshot: ", this.file, e);
+      return;
+    }
+
+    stream.skipNBytes(position.offset() - this.size);
+    this.size = position.offset();
+    this.records = position.records();
+    this.checksum = position.checksum();
+    this.snapshot_records = position.records();
+    this.updated = snapshot.updated();
+  }
+
+  private int checksumBefore(
+    final long offset)
+    throws IOException
+  {
+    if (offset == this.size) {
+      return 0;
+    }
+
+    try (var channel = FileChannel.open(this.file, READ)) {
+      final var buffer = ByteBuffer.allocate(4);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset - 4L + (long) buffer.position()) < 0) {
+          return 0;
+        }
+      }
+      return buffer.getInt(0);
+    }
+  }
+
+  /**
+   * Read the transactions that have been appended to the journal by other processes since the
+   * journal was opened or last read or written by this process. The caller must prevent other
+   * processes from writing to the journal while this method executes.
+   *
+   * @return The transactions, in journal order, or nothing if the journal has been rewritten or
+   * removed by another process and must be reopened
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Optional<List<RDBJournalTransaction>> readExternal()
+    throws IOException
+  {
+    try (var channel = FileChannel.open(this.file, READ)) {
+      final var file_size = channel.size();
+      if (file_size < this.size) {
+        return Optional.empty();
+      }
+
+      final var stream =
+        new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      final var header = readHeader(this.file, stream);
+      if (header == null || header.generation != this.generation || header.size > this.size) {
+        return Optional.empty();
+      }
+      if (file_size == this.size) {
+        return Optional.of(List.of());
+      }
+
+      stream.skipNBytes(this.size - header.size);
+
+      final var transactions = new ArrayList<RDBJournalTransaction>();
+      this.replay(
+        stream,
+        (pending, time) -> transactions.add(transactionOf(pending, time)),
+        false);
+      return Optional.of(transactions);
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static RDBJournalTransaction transactionOf(
+    final List<Object> pending,
+    final OffsetDateTime time)
+  {
+    final var puts = new LinkedHashMap<String, RuntimeDescription>(pending.size());
+    final var deletes = new LinkedHashSet<String>();
+    for (final var item : pending) {
+      if (item instanceof RuntimeDescription) {
+        final var description = (RuntimeDescription) item;
+        deletes.remove(description.id());
+        puts.put(description.id(), description);
+      } else {
+        final var id = (String) item;
+        puts.remove(id);
+        deletes.add(id);
+      }
+    }
+    return new RDBJournalTransaction(
+      new ArrayList<>(puts.values()),
+      new ArrayList<>(deletes),
+      time);
+  }
+
+  private void replay(
+    final DataInputStream stream,
+    final PendingReceiverType receiver,
+    final boolean truncate)
+    throws IOException
+  {
+    final var pending = new ArrayList<Object>(128);
+    long position = this.size;
+
+    while (true) {
+      final byte[] data;
+      final int record_checksum;
+      try {
+        final var length = stream.readInt();
+        if (length <= 0 || length > MAXIMUM_RECORD_SIZE) {
+          LOG.warn(
+            "{}: invalid record length {} at offset {}",
+            this.file,
+            Integer.valueOf(length),
+            Long.valueOf(position));
+          break;
+        }
+        data = new byte[length];
+        stream.readFully(data);
+        record_checksum = stream.readInt();
+        if (record_checksum != checksumOf(data)) {
+          LOG.warn("{}: checksum mismatch at offset {}", this.file, Long.valueOf(position));
+          break;
+        }
+        position += 8L + (long) length;
+      } catch (final EOFException e) {
+        break;
+      }
+
+      final var record = new DataInputStream(new ByteArrayInputStream(data));
+      try {
+        switch (record.readByte()) {
+          case RECORD_PUT: {
+            pending.add(RDBRecordCodec.decode(record));
+            break;
+          }
+          case RECORD_DELETE: {
+            pending.add(record.readUTF());
+            break;
+          }
+          case RECORD_COMMIT: {
+            final var time = RDBRecordCodec.decodeTime(record);
+            this.updated = Optional.of(time);
+            this.records += (long) pending.size();
+            receiver.receive(pending, time);
+            pending.clear();
+            this.size = position;
+            this.checksum = record_checksum;
+            break;
+          }
+          default: {
+            LOG.warn(
+              "{}: unrecognized record at offset {}",
+              this.file,
+              Long.valueOf(position));
+            break;
+          }
+        }
+      } catch (final IOException e) {
+        LOG.warn(
+          "{}: unparseable record at offset {}: ",
+          this.file,
+          Long.valueOf(position),
+          e);
+        break;
+      }
+    }
+
+    if (!truncate) {
+      return;
+    }
+
+    if (!pending.isEmpty() || this.size != position) {
+      LOG.warn(
+        "{}: discarding incomplete transaction at offset {}",
+        this.file,
+        Long.valueOf(this.size));
+    }
+
+    truncateIfNecessary(this.file, this.size);
+  }
+
+  private static void applyPending(
+    final List<Object> pending,
+    final RDBStoreType target)
+  {
+    for (final var item : pending) {
+      if (item instanceof RuntimeDescription) {
+        target.put((RuntimeDescription) item);
+      } else {
+        target.remove((String) item);
+      }
+    }
+  }
+
+  private static void truncateIfNecessary(
+    final Path file,
+    final long size)
+    throws IOException
+  {
+    try (var channel = FileChannel.open(file, WRITE)) {
+      if (channel.size() > size) {
+        channel.truncate(size);
+        channel.force(true);
+      }
+    }
+  }
+
+  private static int checksumOf(
+    final byte[] data)
+  {
+    final var crc = new CRC32();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  private static int writeRecord(
+    final DataOutputStream output,
+    final ByteArrayOutputStream record_bytes)
+    throws IOException
+  {
+    final var data = record_bytes.toByteArray();
+    final var record_checksum = checksumOf(data);
+    output.writeInt(data.length);
+    output.write(data);
+    output.writeInt(record_checksum);
+    record_bytes.reset();
+    return record_checksum;
+  }
+
+  private static void encodePut(
+    final DataOutputStream output,
+    final ByteArrayOutputStream record_bytes,
+    final DataOutputStream record,
+    final RuntimeDescription description)
+    throws IOException
+  {
+    record.writeByte(RECORD_PUT);
+    RDBRecordCodec.encode(record, description);
+    record.flush();
+    writeRecord(output, record_bytes);
+  }
+
+  private static int encodeCommit(
+    final DataOutputStream output,
+    final ByteArrayOutputStream record_bytes,
+    final DataOutputStream record,
+    final Optional<OffsetDateTime> time)
+    throws IOException
+  {
+    if (time.isPresent()) {
+      record.writeByte(RECORD_COMMIT);
+      RDBRecordCodec.encodeTime(record, time.get());
+      record.flush();
+      return writeRecord(output, record_bytes);
+    }
+    return 0;
+  }
+
+  /**
+   * @return The time of the most recent commit
+   */
+
+  public Optional<OffsetDateTime> updated()
+  {
+    return this.updated;
+  }
+
+  /**
+   * @return The number of {@code PUT} and {@code DELETE} records in the journal
+   */
+
+  public long records()
+  {
+    return this.records;
+  }
+
+  /**
+   * @return The number of records that were restored from a snapshot when the journal was opened
+   */
+
+  public long snapshotRecords()
+  {
+    return this.snapshot_records;
+  }
+
+  /**
+   * @return The position of the end of the most recently committed transaction
+   */
+
+  public RDBJournalPosition position()
+  {
+    return new RDBJournalPosition(this.generation, this.size, this.records, this.checksum);
+  }
+
+  /**
+   * Append a transaction to the journal. The journal is synced to disk before this method returns.
+   *
+   * @param puts    The added or replaced runtime descriptions
+   * @param deletes The IDs of the deleted runtime descriptions
+   * @param time    The commit time
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void append(
+    final Collection<RuntimeDescription> puts,
+    final Collection<String> deletes,
+    final OffsetDateTime time)
+    throws IOException
+  {
+    Objects.requireNonNull(puts, "puts");
+    Objects.requireNonNull(deletes, "deletes");
+    Objects.requireNonNull(time, "time");
+
+    final var bytes = new ByteArrayOutputStream(1024 * Math.max(1, puts.size()));
+    final var record_bytes = new ByteArrayOutputStream(1024);
+    final int commit_checksum;
+
+    try (var output = new DataOutputStream(bytes);
+         var record = new DataOutputStream(record_bytes)) {
+      for (final var description : puts) {
+        encodePut(output, record_bytes, record, description);
+      }
+      for (final var id : deletes) {
+        record.writeByte(RECORD_DELETE);
+        record.writeUTF(id);
+        record.flush();
+        writeRecord(output, record_bytes);
+      }
+      commit_checksum = encodeCommit(output, record_bytes, record, Optional.of(time));
+    }
+
+    /*
+     * The transaction is written at the end of the last committed transaction rather than at the
+     * end of the file. If the write fails part way, the partially written bytes are truncated so
+     * that later transactions are not written after them; bytes that could not be truncated are
+     * overwritten by the next transaction. Either way, replaying the journal never stops before a
+     * transaction that was written successfully.
+     */
+
+    try (var channel = FileChannel.open(this.file, WRITE)) {
+      try {
+        final var buffer = ByteBuffer.wrap(bytes.toByteArray());
+        var position = this.size;
+        while (buffer.hasRemaining()) {
+          position += (long) channel.write(buffer, position);
+        }
+        channel.force(true);
+      } catch (final IOException e) {
+        try {
+          channel.truncate(this.size);
+        } catch (final IOException ex) {
+          e.addSuppressed(ex);
+        }
+        throw e;
+      }
+    }
+
+    this.records += (long) puts.size() + (long) deletes.size();
+    this.size += (long) bytes.size();
+    this.checksum = commit_checksum;
+    this.updated = Optional.of(time);
+  }
+
+  /**
+   * Atomically replace the contents of the journal with a single transaction that adds the given
+   * live set of runtime descriptions. The rewritten journal is assigned a new generation.
+   *
+   * @param live The live runtime descriptions
+   * @param time The commit time
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void rewrite(
+    final Collection<RuntimeDescription> live,
+    final OffsetDateTime time)
+    throws IOException
+  {
+    Objects.requireNonNull(live, "live");
+    Objects.requireNonNull(time, "time");
+
+    this.rewriteWith(live, Optional.of(time));
+  }
+
+  private void rewriteWith(
+    final Collection<RuntimeDescription> live,
+    final Optional<OffsetDateTime> time)
+    throws IOException
+  {
+    final var new_generation = newGeneration(this.generation);
+    final var record_bytes = new ByteArrayOutputStream(1024);
+    final long new_size;
+    final int new_checksum;
+
+    try (var channel = FileChannel.open(this.file_tmp, CREATE, TRUNCATE_EXISTING, WRITE);
+         var output = new DataOutputStream(
+           new BufferedOutputStream(Channels.newOutputStream(channel)));
+         var record = new DataOutputStream(record_bytes)) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeLong(new_generation);
+      for (final var description : live) {
+        encodePut(output, record_bytes, record, description);
+      }
+      new_checksum = encodeCommit(output, record_bytes, record, time);
+      output.flush();
+      new_size = (long) output.size();
+      channel.force(true);
+    }
+
+    Files.move(this.file_tmp, this.file, ATOMIC_MOVE, REPLACE_EXISTING);
+    this.generation = new_generation;
+    this.records = live.size();
+    this.size = new_size;
+    this.checksum = new_checksum;
+    this.updated = time;
+  }
+
+  @FunctionalInterface
+  private interface PendingReceiverType
+  {
+    void receive(
+      List<Object> pending,
+      OffsetDateTime time);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A position in a journal. A position identifies the end of a committed transaction within a
+ * specific generation of the journal, along with the checksum of the commit record that ends
+ * there; the checksum allows for detecting journals that were truncated and then appended to
+ * after the position was recorded.
+ */
+
+@Immutable
+public final class RDBJournalPosition
+{
+  private final long generation;
+  private final long offset;
+  private final long records;
+  private final int checksum;
+
+  /**
+   * Construct a position.
+   *
+   * @param in_generation The journal generation
+   * @param in_offset     The offset in octets of the end of the transaction
+   * @param in_records    The number of records in the journal up to the offset
+   * @param in_checksum   The checksum of the commit record preceding the offset
+   */
+
+  public RDBJournalPosition(
+    final long in_generation,
+    final long in_offset,
+    final long in_records,
+    final int in_checksum)
+  {
+    this.generation = in_generation;
+    this.offset = in_offset;
+    this.records = in_records;
+    this.checksum = in_checksum;
+  }
+
+  /**
+   * @return The journal generation
+   */
+
+  public long generation()
+  {
+    return this.generation;
+  }
+
+  /**
+   * @return The offset in octets of the end of the transaction
+   */
+
+  public long offset()
+  {
+    return this.offset;
+  }
+
+  /**
+   * @return The number of {@code PUT} and {@code DELETE} records in the journal up to the offset
+   */
+
+  public long records()
+  {
+    return this.records;
+  }
+
+  /**
+   * @return The checksum of the commit record preceding the offset
+   */
+
+  public int checksum()
+  {
+    return this.checksum;
+  }
+}
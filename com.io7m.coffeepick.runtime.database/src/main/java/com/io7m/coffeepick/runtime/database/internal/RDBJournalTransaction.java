@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import net.jcip.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A committed transaction read from a journal.
+ */
+
+@Immutable
+public final class RDBJournalTransaction
+{
+  private final List<RuntimeDescription> puts;
+  private final List<String> deletes;
+  private final OffsetDateTime time;
+
+  /**
+   * Construct a transaction.
+   *
+   * @param in_puts    The added or replaced runtime descriptions, in journal order
+   * @param in_deletes The IDs of the deleted runtime descriptions, in journal order
+   * @param in_time    The commit time
+   */
+
+  public RDBJournalTransaction(
+    final List<RuntimeDescription> in_puts,
+    final List<String> in_deletes,
+    final OffsetDateTime in_time)
+  {
+    this.puts = List.copyOf(Objects.requireNonNull(in_puts, "puts"));
+    this.deletes = List.copyOf(Objects.requireNonNull(in_deletes, "deletes"));
+    this.time = Objects.requireNonNull(in_time, "time");
+  }
+
+  /**
+   * @return The added or replaced runtime descriptions, in journal order
+   */
+
+  public List<RuntimeDescription> puts()
+  {
+    return this.puts;
+  }
+
+  /**
+   * @return The IDs of the deleted runtime descriptions, in journal order
+   */
+
+  public List<String> deletes()
+  {
+    return this.deletes;
+  }
+
+  /**
+   * @return The commit time
+   */
+
+  public OffsetDateTime time()
+  {
+    return this.time;
+  }
+}
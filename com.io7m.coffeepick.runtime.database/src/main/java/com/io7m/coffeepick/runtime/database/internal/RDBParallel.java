@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Functions to execute independent, CPU-bound loading tasks on a bounded fork-join pool.
+ */
+
+public final class RDBParallel
+{
+  private static final int SEQUENTIAL_THRESHOLD = 256;
+
+  private RDBParallel()
+  {
+
+  }
+
+  /**
+   * A task that operates on a single index.
+   */
+
+  @FunctionalInterface
+  public interface IndexedTaskType
+  {
+    /**
+     * Execute the task for the given index.
+     *
+     * @param index The index
+     *
+     * @throws IOException On errors
+     */
+
+    void execute(int index)
+      throws IOException;
+  }
+
+  /**
+   * Execute {@code task} for each index in {@code [0, count)}. If {@code parallelism} is greater
+   * than {@code 1}, the indices are divided between at most {@code parallelism} threads of a
+   * fork-join pool that exists only for the duration of the call. The task may therefore be
+   * executed concurrently, and in any order.
+   *
+   * @param parallelism The maximum number of threads
+   * @param count       The number of indices
+   * @param task        The task
+   *
+   * @throws IOException If any execution of the task raises an exception
+   */
+
+  public static void forEachIndex(
+    final int parallelism,
+    final int count,
+    final IndexedTaskType task)
+    throws IOException
+  {
+    Objects.requireNonNull(task, "task");
+
+    if (parallelism <= 1 || count <= SEQUENTIAL_THRESHOLD) {
+      for (var index = 0; index < count; ++index) {
+        task.execute(index);
+      }
+      return;
+    }
+
+    final var pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RangeAction(task, 0, count));
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static final class RangeAction extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final transient IndexedTaskType task;
+    private final int lower;
+    private final int upper;
+
+    RangeAction(
+      final IndexedTaskType in_task,
+      final int in_lower,
+      final int in_upper)
+    {
+      this.task = in_task;
+      this.lower = in_lower;
+      this.upper = in_upper;
+    }
+
+    @Override
+    protected void compute()
+    {
+      if (this.upper - this.lower <= SEQUENTIAL_THRESHOLD) {
+        try {
+          for (var index = this.lower; index < this.upper; ++index) {
+            this.task.execute(index);
+          }
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return;
+      }
+
+      final var middle = (this.lower + this.upper) >>> 1;
+      invokeAll(
+        new RangeAction(this.task, this.lower, middle),
+        new RangeAction(this.task, middle, this.upper));
+    }
+  }
+}
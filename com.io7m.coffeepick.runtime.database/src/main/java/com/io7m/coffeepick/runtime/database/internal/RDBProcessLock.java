@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A reentrant lock that excludes other processes, and other threads in this process, from a
+ * database directory. The lock is held by locking a file in the directory; because file locks are
+ * held on behalf of the whole process, a per-file lock object is shared between every database
+ * opened on the same directory in this process.
+ */
+
+@ThreadSafe
+public final class RDBProcessLock
+{
+  private static final Logger LOG = LoggerFactory.getLogger(RDBProcessLock.class);
+
+  private static final ConcurrentHashMap<Path, RDBProcessLock> LOCKS =
+    new ConcurrentHashMap<>(8);
+
+  private final Path file;
+  private final ReentrantLock lock;
+  private FileChannel channel;
+  private FileLock file_lock;
+
+  private RDBProcessLock(
+    final Path in_file)
+  {
+    this.file = Objects.requireNonNull(in_file, "file");
+    this.lock = new ReentrantLock();
+  }
+
+  /**
+   * Obtain the lock for the given lock file.
+   *
+   * @param file The lock file
+   *
+   * @return The lock
+   */
+
+  public static RDBProcessLock forFile(
+    final Path file)
+  {
+    Objects.requireNonNull(file, "file");
+    return LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), RDBProcessLock::new);
+  }
+
+  /**
+   * Acquire the lock, blocking until it is available.
+   *
+   * @return A handle that releases the lock when closed
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public HeldType acquire()
+    throws IOException
+  {
+    this.lock.lock();
+    if (this.lock.getHoldCount() == 1) {
+      try {
+        this.channel = FileChannel.open(this.file, CREATE, WRITE);
+        this.file_lock = this.channel.lock();
+      } catch (final IOException e) {
+        this.closeChannel();
+        this.lock.unlock();
+        throw e;
+      }
+    }
+    return this::release;
+  }
+
+  private void release()
+  {
+    if (this.lock.getHoldCount() == 1) {
+      try {
+        this.file_lock.release();
+      } catch (final IOException e) {
+        LOG.debug("could not release {}: ", this.file, e);
+      }
+      this.closeChannel();
+    }
+    this.lock.unlock();
+  }
+
+  private void closeChannel()
+  {
+    if (this.channel != null) {
+      try {
+        this.channel.close();
+      } catch (final IOException e) {
+        LOG.debug("could not close {}: ", this.file, e);
+      }
+    }
+    this.channel = null;
+    this.file_lock = null;
+  }
+
+  /**
+   * A held lock.
+   */
+
+  @FunctionalInterface
+  public interface HeldType extends AutoCloseable
+  {
+    /**
+     * Release the lock.
+     */
+
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeBuild;
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Functions to encode and decode runtime descriptions in the compact binary form used by the
+ * database journal.
+ */
+
+public final class RDBRecordCodec
+{
+  private static final int MAXIMUM_INTEGER_OCTETS = 64;
+  private static final int MAXIMUM_TAGS = 1024;
+
+  private RDBRecordCodec()
+  {
+
+  }
+
+  /**
+   * Encode a runtime description.
+   *
+   * @param output      The output
+   * @param description The runtime description
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void encode(
+    final DataOutput output,
+    final RuntimeDescription description)
+    throws IOException
+  {
+    Objects.requireNonNull(output, "output");
+    Objects.requireNonNull(description, "description");
+
+    output.writeUTF(description.repository().toString());
+    encodeVersion(output, description.version());
+    output.writeUTF(description.configuration().configurationName());
+    output.writeUTF(description.platform());
+    output.writeUTF(description.architecture());
+    output.writeUTF(description.archiveURI().toString());
+    output.writeLong(description.archiveSize());
+    output.writeUTF(description.archiveHash().algorithm());
+    output.writeUTF(description.archiveHash().value());
+    output.writeUTF(description.vm());
+
+    final var build_opt = description.build();
+    if (build_opt.isPresent()) {
+      final var build = build_opt.get();
+      output.writeBoolean(true);
+      output.writeUTF(build.buildNumber());
+      encodeTime(output, build.time());
+    } else {
+      output.writeBoolean(false);
+    }
+
+    final var tags = description.tags();
+    output.writeInt(tags.size());
+    for (final var tag : tags) {
+      output.writeUTF(tag);
+    }
+  }
+
+  /**
+   * Decode a runtime description.
+   *
+   * @param input The input
+   *
+   * @return A runtime description
+   *
+   * @throws IOException On I/O errors, or if the encoded description is malformed
+   */
+
+  public static RuntimeDescription decode(
+    final DataInput input)
+    throws IOException
+  {
+    Objects.requireNonNull(input, "input");
+
+    try {
+      final var repository = RuntimeInterner.uri(decodeURI(input));
+      final var version = RuntimeInterner.version(decodeVersion(input));
+      final var configuration = RuntimeConfiguration.ofName(input.readUTF());
+      final var platform = RuntimeInterner.string(input.readUTF());
+      final var architecture = RuntimeInterner.string(input.readUTF());
+      final var archive_uri = decodeURI(input);
+      final var archive_size = input.readLong();
+      final var hash = RuntimeHash.of(RuntimeInterner.string(input.readUTF()), input.readUTF());
+      final var vm = RuntimeInterner.string(input.readUTF());
+
+      Optional<RuntimeBuild> build = Optional.empty();
+      if (input.readBoolean()) {
+        build = Optional.of(
+          RuntimeInterner.build(
+            RuntimeBuild.builder()
+              .setBuildNumber(input.readUTF())
+              .setTime(decodeTime(input))
+              .build()));
+      }
+
+      final var tag_count = input.readInt();
+      if (tag_count < 0 || tag_count > MAXIMUM_TAGS) {
+        throw new IOException("Invalid tag count: " + tag_count);
+      }
+      final var tags = new HashSet<String>(tag_count);
+      for (var index = 0; index < tag_count; ++index) {
+        tags.add(RuntimeInterner.string(input.readUTF()));
+      }
+
+      return RuntimeDescription.builder()
+        .setArchitecture(architecture)
+        .setArchiveHash(hash)
+        .setArchiveSize(archive_size)
+        .setArchiveURI(archive_uri)
+        .setBuild(build)
+        .setConfiguration(configuration)
+        .setPlatform(platform)
+        .setRepository(repository)
+        .setTags(Set.copyOf(tags))
+        .setVm(vm)
+        .setVersion(version)
+        .build();
+    } catch (final IllegalArgumentException | IllegalStateException | DateTimeException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Encode a time value.
+   *
+   * @param output The output
+   * @param time   The time
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void encodeTime(
+    final DataOutput output,
+    final OffsetDateTime time)
+    throws IOException
+  {
+    final var instant = time.toInstant();
+    output.writeLong(instant.getEpochSecond());
+    output.writeInt(instant.getNano());
+    output.writeInt(time.getOffset().getTotalSeconds());
+  }
+
+  /**
+   * Decode a time value.
+   *
+   * @param input The input
+   *
+   * @return A time value
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static OffsetDateTime decodeTime(
+    final DataInput input)
+    throws IOException
+  {
+    final var seconds = input.readLong();
+    final var nanos = input.readInt();
+    final var offset = input.readInt();
+
+    try {
+      return OffsetDateTime.ofInstant(
+        Instant.ofEpochSecond(seconds, nanos),
+        ZoneOffset.ofTotalSeconds(offset));
+    } catch (final DateTimeException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static URI decodeURI(
+    final DataInput input)
+    throws IOException
+  {
+    try {
+      return new URI(input.readUTF());
+    } catch (final URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static void encodeVersion(
+    final DataOutput output,
+    final RuntimeVersion version)
+    throws IOException
+  {
+    encodeInteger(output, version.major());
+    encodeInteger(output, version.minor());
+    encodeInteger(output, version.patch());
+
+    final var build = version.build();
+    if (build.isPresent()) {
+      output.writeBoolean(true);
+      encodeInteger(output, build.get());
+    } else {
+      output.writeBoolean(false);
+    }
+  }
+
+  private static RuntimeVersion decodeVersion(
+    final DataInput input)
+    throws IOException
+  {
+    final var builder =
+      RuntimeVersion.builder()
+        .setMajor(decodeInteger(input))
+        .setMinor(decodeInteger(input))
+        .setPatch(decodeInteger(input));
+
+    if (input.readBoolean()) {
+      builder.setBuild(decodeInteger(input));
+    }
+    return builder.build();
+  }
+
+  private static void encodeInteger(
+    final DataOutput output,
+    final BigInteger value)
+    throws IOException
+  {
+    final var bytes = value.toByteArray();
+    output.writeByte(bytes.length);
+    output.write(bytes);
+  }
+
+  private static BigInteger decodeInteger(
+    final DataInput input)
+    throws IOException
+  {
+    final var length = input.readUnsignedByte();
+    if (length == 0 || length > MAXIMUM_INTEGER_OCTETS) {
+      throw new IOException("Invalid integer length: " + length);
+    }
+    final var bytes = new byte[length];
+    input.readFully(bytes);
+    return new BigInteger(bytes);
+  }
+}
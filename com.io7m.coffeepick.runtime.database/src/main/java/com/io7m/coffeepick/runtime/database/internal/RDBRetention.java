@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeBuild;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+import net.jcip.annotations.NotThreadSafe;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An index of the runtimes in a database, ordered by age, that is used to enforce a retention
+ * policy. The index is updated incrementally as transactions are committed, so enforcing the
+ * policy costs time proportional to the size of each transaction and the number of evicted
+ * runtimes, rather than to the size of the database.
+ */
+
+@NotThreadSafe
+public final class RDBRetention
+{
+  private static final Comparator<Entry> AGE_ORDER =
+    Comparator.comparing(
+        (Entry entry) -> entry.time,
+        Comparator.nullsFirst(Comparator.<OffsetDateTime>naturalOrder()))
+      .thenComparing(entry -> entry.version)
+      .thenComparing(entry -> entry.id);
+
+  private final OptionalInt maximum_runtimes;
+  private final Optional<Duration> maximum_age;
+  private final OptionalInt maximum_per_group;
+  private final HashMap<String, Entry> entries;
+  private final TreeSet<Entry> all;
+  private final TreeSet<Entry> timed;
+  private final HashMap<Group, TreeSet<Entry>> groups;
+  private final HashSet<Group> touched;
+
+  /**
+   * Construct an empty index.
+   *
+   * @param in_maximum_runtimes  The maximum number of runtimes, if any
+   * @param in_maximum_age       The maximum age of runtimes, if any
+   * @param in_maximum_per_group The maximum number of runtimes per platform, architecture, and
+   *                             major version, if any
+   */
+
+  public RDBRetention(
+    final OptionalInt in_maximum_runtimes,
+    final Optional<Duration> in_maximum_age,
+    final OptionalInt in_maximum_per_group)
+  {
+    this.maximum_runtimes =
+      Objects.requireNonNull(in_maximum_runtimes, "maximum_runtimes");
+    this.maximum_age =
+      Objects.requireNonNull(in_maximum_age, "maximum_age");
+    this.maximum_per_group =
+      Objects.requireNonNull(in_maximum_per_group, "maximum_per_group");
+    this.entries = new HashMap<>(1024);
+    this.all = new TreeSet<>(AGE_ORDER);
+    this.timed = new TreeSet<>(AGE_ORDER);
+    this.groups = new HashMap<>(64);
+    this.touched = new HashSet<>(64);
+  }
+
+  /**
+   * Add or replace a runtime in the index.
+   *
+   * @param description The runtime description
+   */
+
+  public void put(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+
+    this.remove(description.id());
+
+    final var entry = new Entry(description);
+    this.entries.put(entry.id, entry);
+    this.all.add(entry);
+    if (entry.time != null) {
+      this.timed.add(entry);
+    }
+    if (this.maximum_per_group.isPresent()) {
+      this.groups.computeIfAbsent(entry.group, g -> new TreeSet<>(AGE_ORDER)).add(entry);
+      this.touched.add(entry.group);
+    }
+  }
+
+  /**
+   * Remove a runtime from the index, if it is present.
+   *
+   * @param id The runtime ID
+   */
+
+  public void remove(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+
+    final var entry = this.entries.remove(id);
+    if (entry == null) {
+      return;
+    }
+
+    this.all.remove(entry);
+    this.timed.remove(entry);
+
+    final var group = this.groups.get(entry.group);
+    if (group != null) {
+      group.remove(entry);
+      if (group.isEmpty()) {
+        this.groups.remove(entry.group);
+      }
+    }
+  }
+
+  /**
+   * Remove every runtime that falls outside the retention policy from the index. Only groups of
+   * runtimes that have been added to since the last call are checked against the per-group limit.
+   *
+   * @param time The time of the current commit
+   *
+   * @return The IDs of the evicted runtimes
+   */
+
+  public Set<String> evict(
+    final OffsetDateTime time)
+  {
+    Objects.requireNonNull(time, "time");
+
+    final var evicted = new LinkedHashSet<String>();
+
+    if (this.maximum_age.isPresent()) {
+      final var cutoff = time.minus(this.maximum_age.get());
+      while (!this.timed.isEmpty() && this.timed.first().time.isBefore(cutoff)) {
+        this.evictEntry(this.timed.first(), evicted);
+      }
+    }
+
+    if (this.maximum_per_group.isPresent()) {
+      final var limit = this.maximum_per_group.getAsInt();
+      for (final var key : this.touched) {
+        final var group = this.groups.get(key);
+        while (group != null && group.size() > limit) {
+          this.evictEntry(group.first(), evicted);
+        }
+      }
+    }
+    this.touched.clear();
+
+    if (this.maximum_runtimes.isPresent()) {
+      final var limit = this.maximum_runtimes.getAsInt();
+      while (this.all.size() > limit) {
+        this.evictEntry(this.all.first(), evicted);
+      }
+    }
+
+    return evicted;
+  }
+
+  private void evictEntry(
+    final Entry entry,
+    final Set<String> evicted)
+  {
+    this.remove(entry.id);
+    evicted.add(entry.id);
+  }
+
+  private static final class Entry
+  {
+    private final String id;
+    private final OffsetDateTime time;
+    private final RuntimeVersion version;
+    private final Group group;
+
+    Entry(
+      final RuntimeDescription description)
+    {
+      this.id = description.id();
+      this.time = description.build().map(RuntimeBuild::time).orElse(null);
+      this.version = description.version();
+      this.group = new Group(
+        description.platform(),
+        description.architecture(),
+        description.version().major());
+    }
+  }
+
+  private static final class Group
+  {
+    private final String platform;
+    private final String architecture;
+    private final BigInteger major;
+
+    Group(
+      final String in_platform,
+      final String in_architecture,
+      final BigInteger in_major)
+    {
+      this.platform = in_platform;
+      this.architecture = in_architecture;
+      this.major = in_major;
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      if (this == other) {
+        return true;
+      }
+      if (other == null || !Objects.equals(this.getClass(), other.getClass())) {
+        return false;
+      }
+      final var group = (Group) other;
+      return Objects.equals(this.platform, group.platform)
+        && Objects.equals(this.architecture, group.architecture)
+        && Objects.equals(this.major, group.major);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hash(this.platform, this.architecture, this.major);
+    }
+  }
+}
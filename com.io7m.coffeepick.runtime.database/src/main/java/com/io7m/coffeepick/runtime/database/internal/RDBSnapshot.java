@@ -0,0 +1,677 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeBuild;
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A memory-mapped binary snapshot of the live set of runtime descriptions.
+ *
+ * <p>A snapshot records the state of the database as of a given position in a given generation of
+ * the journal, so that opening the database only requires decoding the snapshot and replaying the
+ * records appended to the journal after that position. The snapshot consists of a fixed-size
+ * header, a table of string offsets, an index of records (each entry being the string index of the
+ * runtime ID and the offset of the record), the string data, and the record data. Records refer to
+ * all strings by index, so strings that are shared between runtimes (repositories, platforms,
+ * architectures, tags, and so on) are stored once.</p>
+ *
+ * <p>Each snapshot is accompanied by an {@link RDBIndex} written to a file alongside it, so that
+ * queries can be answered from a freshly opened snapshot without decoding every record.</p>
+ */
+
+@ThreadSafe
+public final class RDBSnapshot
+{
+  private static final Logger LOG = LoggerFactory.getLogger(RDBSnapshot.class);
+
+  private static final int MAGIC = 0x4350534e;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 64;
+  private static final int MAXIMUM_INTEGER_OCTETS = 64;
+  private static final int MAXIMUM_TAGS = 1024;
+
+  private final ByteBuffer buffer;
+  private final long journal_generation;
+  private final long journal_offset;
+  private final long journal_records;
+  private final int journal_checksum;
+  private final Optional<OffsetDateTime> updated;
+  private final int string_count;
+  private final int record_count;
+  private final int index_offset;
+  private final String[] strings;
+  private volatile RDBIndex index;
+
+  private RDBSnapshot(
+    final ByteBuffer in_buffer,
+    final Optional<RDBIndex> in_index)
+  {
+    this.buffer = Objects.requireNonNull(in_buffer, "buffer");
+    this.index = Objects.requireNonNull(in_index, "index").orElse(null);
+    this.journal_generation = in_buffer.getLong(8);
+    this.journal_offset = in_buffer.getLong(16);
+    this.journal_records = in_buffer.getLong(24);
+    this.journal_checksum = in_buffer.getInt(32);
+
+    final var seconds = in_buffer.getLong(36);
+    if (seconds == Long.MIN_VALUE) {
+      this.updated = Optional.empty();
+    } else {
+      this.updated = Optional.of(
+        OffsetDateTime.ofInstant(
+          Instant.ofEpochSecond(seconds, (long) in_buffer.getInt(44)),
+          ZoneOffset.ofTotalSeconds(in_buffer.getInt(48))));
+    }
+
+    this.string_count = in_buffer.getInt(52);
+    this.record_count = in_buffer.getInt(56);
+    this.index_offset = HEADER_SIZE + this.string_count * 4;
+    this.strings = new String[this.string_count];
+  }
+
+  /**
+   * Open a snapshot. The snapshot file is memory-mapped and its checksum is verified, but no
+   * records are decoded. The index accompanying the snapshot is loaded if it exists and matches
+   * the snapshot.
+   *
+   * @param file The snapshot file
+   *
+   * @return The snapshot, or nothing if the file does not exist or is not a valid snapshot
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Optional<RDBSnapshot> open(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final ByteBuffer buffer;
+    try (var channel = FileChannel.open(file, READ)) {
+      final var size = channel.size();
+      if (size < (long) HEADER_SIZE || size > (long) Integer.MAX_VALUE) {
+        LOG.warn("{}: ignoring snapshot of invalid size {}", file, Long.valueOf(size));
+        return Optional.empty();
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    }
+
+    if (!isValid(file, buffer)) {
+      return Optional.empty();
+    }
+
+    final var index =
+      RDBIndex.open(RDBIndex.fileFor(file), buffer.getInt(60), buffer.getInt(56));
+
+    try {
+      return Optional.of(new RDBSnapshot(buffer, index));
+    } catch (final DateTimeException e) {
+      LOG.warn("{}: ignoring snapshot with an invalid update time: ", file, e);
+      return Optional.empty();
+    }
+  }
+
+  private static boolean isValid(
+    final Path file,
+    final ByteBuffer buffer)
+  {
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      LOG.warn("{}: ignoring snapshot with an unrecognized header", file);
+      return false;
+    }
+    if (buffer.getInt(60) != checksumOf(buffer, HEADER_SIZE, buffer.capacity() - HEADER_SIZE)) {
+      LOG.warn("{}: ignoring snapshot with an incorrect checksum", file);
+      return false;
+    }
+
+    final var string_count = buffer.getInt(52);
+    final var record_count = buffer.getInt(56);
+    final var tables = (long) HEADER_SIZE + 4L * (long) string_count + 8L * (long) record_count;
+    if (string_count < 0 || record_count < 0 || tables > (long) buffer.capacity()) {
+      LOG.warn("{}: ignoring snapshot with invalid table sizes", file);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Atomically write a snapshot and its index.
+   *
+   * @param file     The snapshot file
+   * @param position The journal position that the snapshot represents
+   * @param updated  The time of the most recent commit
+   * @param live     The live set of runtime descriptions
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void write(
+    final Path file,
+    final RDBJournalPosition position,
+    final Optional<OffsetDateTime> updated,
+    final Collection<RuntimeDescription> live)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(position, "position");
+    Objects.requireNonNull(updated, "updated");
+    Objects.requireNonNull(live, "live");
+
+    final var string_table = new StringTable();
+    final var index = new int[live.size() * 2];
+    final var attributes = RDBIndex.builder();
+    final var record_bytes = new ByteArrayOutputStream(256 * Math.max(1, live.size()));
+
+    try (var output = new DataOutputStream(record_bytes)) {
+      var record = 0;
+      for (final var description : live) {
+        index[record * 2] = string_table.indexOf(description.id());
+        index[record * 2 + 1] = output.size();
+        encodeRecord(output, string_table, description);
+        attributes.add(record, description);
+        ++record;
+      }
+    }
+
+    final var string_bytes = string_table.encode().toByteArray();
+    final var strings_start =
+      (long) HEADER_SIZE + 4L * (long) string_table.size() + 8L * (long) live.size();
+    final var records_start =
+      strings_start + (long) string_bytes.length;
+    final var total =
+      records_start + (long) record_bytes.size();
+
+    if (total > (long) Integer.MAX_VALUE) {
+      throw new IOException(
+        new StringBuilder(64)
+          .append("Snapshot too large: ")
+          .append(total)
+          .append(" octets")
+          .toString());
+    }
+
+    final var buffer = ByteBuffer.allocate((int) total);
+    buffer.position(HEADER_SIZE);
+    for (final var offset : string_table.offsets()) {
+      buffer.putInt((int) strings_start + offset);
+    }
+    for (var record = 0; record < live.size(); ++record) {
+      buffer.putInt(index[record * 2]);
+      buffer.putInt((int) records_start + index[record * 2 + 1]);
+    }
+    buffer.put(string_bytes);
+    buffer.put(record_bytes.toByteArray());
+
+    writeHeader(buffer, position, updated, string_table.size(), live.size());
+    writeAtomically(file, buffer);
+
+    /*
+     * The index is tied to the snapshot by the snapshot's checksum, so if the index cannot be
+     * written, the snapshot is still usable and the index is rebuilt on demand when it is next
+     * opened.
+     */
+
+    final var index_file = RDBIndex.fileFor(file);
+    try {
+      attributes.build().write(index_file, buffer.getInt(60), live.size());
+    } catch (final IOException e) {
+      LOG.warn("{}: could not write index: ", index_file, e);
+    }
+  }
+
+  private static void writeHeader(
+    final ByteBuffer buffer,
+    final RDBJournalPosition position,
+    final Optional<OffsetDateTime> updated,
+    final int string_count,
+    final int record_count)
+  {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putLong(8, position.generation());
+    buffer.putLong(16, position.offset());
+    buffer.putLong(24, position.records());
+    buffer.putInt(32, position.checksum());
+    if (updated.isPresent()) {
+      final var time = updated.get();
+      final var instant = time.toInstant();
+      buffer.putLong(36, instant.getEpochSecond());
+      buffer.putInt(44, instant.getNano());
+      buffer.putInt(48, time.getOffset().getTotalSeconds());
+    } else {
+      buffer.putLong(36, Long.MIN_VALUE);
+    }
+    buffer.putInt(52, string_count);
+    buffer.putInt(56, record_count);
+    buffer.putInt(60, checksumOf(buffer, HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+  }
+
+  private static void writeAtomically(
+    final Path file,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    buffer.position(0);
+
+    final var file_tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (var channel = FileChannel.open(file_tmp, CREATE, TRUNCATE_EXISTING, WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+
+    try {
+      Files.move(file_tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (final IOException e) {
+      Files.deleteIfExists(file_tmp);
+      throw e;
+    }
+  }
+
+  private static void encodeRecord(
+    final DataOutputStream output,
+    final StringTable strings,
+    final RuntimeDescription description)
+    throws IOException
+  {
+    output.writeInt(strings.indexOf(description.repository().toString()));
+
+    final var version = description.version();
+    encodeInteger(output, version.major());
+    encodeInteger(output, version.minor());
+    encodeInteger(output, version.patch());
+    final var version_build = version.build();
+    if (version_build.isPresent()) {
+      output.writeBoolean(true);
+      encodeInteger(output, version_build.get());
+    } else {
+      output.writeBoolean(false);
+    }
+
+    output.writeInt(strings.indexOf(description.configuration().configurationName()));
+    output.writeInt(strings.indexOf(description.platform()));
+    output.writeInt(strings.indexOf(description.architecture()));
+    output.writeInt(strings.indexOf(description.archiveURI().toString()));
+    output.writeLong(description.archiveSize());
+    output.writeInt(strings.indexOf(description.archiveHash().algorithm()));
+    output.writeInt(strings.indexOf(description.vm()));
+
+    final var build_opt = description.build();
+    if (build_opt.isPresent()) {
+      final var build = build_opt.get();
+      output.writeBoolean(true);
+      output.writeInt(strings.indexOf(build.buildNumber()));
+      RDBRecordCodec.encodeTime(output, build.time());
+    } else {
+      output.writeBoolean(false);
+    }
+
+    final var tags = description.tags();
+    output.writeInt(tags.size());
+    for (final var tag : tags) {
+      output.writeInt(strings.indexOf(tag));
+    }
+  }
+
+  private static void encodeInteger(
+    final DataOutputStream output,
+    final BigInteger value)
+    throws IOException
+  {
+    final var bytes = value.toByteArray();
+    output.writeByte(bytes.length);
+    output.write(bytes);
+  }
+
+  private static int checksumOf(
+    final ByteBuffer buffer,
+    final int offset,
+    final int length)
+  {
+    final var crc = new CRC32();
+    crc.update(buffer.duplicate().position(offset).limit(offset + length));
+    return (int) crc.getValue();
+  }
+
+  /**
+   * @return The position in the journal that the snapshot represents
+   */
+
+  public RDBJournalPosition position()
+  {
+    return new RDBJournalPosition(
+      this.journal_generation,
+      this.journal_offset,
+      this.journal_records,
+      this.journal_checksum);
+  }
+
+  /**
+   * @return The time of the most recent commit included in the snapshot
+   */
+
+  public Optional<OffsetDateTime> updated()
+  {
+    return this.updated;
+  }
+
+  /**
+   * @return The number of runtime descriptions in the snapshot
+   */
+
+  public int size()
+  {
+    return this.record_count;
+  }
+
+  /**
+   * Obtain the index of the snapshot. If no valid index accompanied the snapshot when it was
+   * opened, the index is built by decoding every record the first time this method is called.
+   *
+   * @return The index
+   *
+   * @throws IOException If the snapshot is malformed
+   */
+
+  public RDBIndex index()
+    throws IOException
+  {
+    final var existing = this.index;
+    if (existing != null) {
+      return existing;
+    }
+
+    synchronized (this) {
+      if (this.index == null) {
+        LOG.debug("building index of {} records", Integer.valueOf(this.record_count));
+        final var builder = RDBIndex.builder();
+        for (var record = 0; record < this.record_count; ++record) {
+          builder.add(record, this.decode(record));
+        }
+        this.index = builder.build();
+      }
+      return this.index;
+    }
+  }
+
+  /**
+   * Decode all of the runtime descriptions in the snapshot into the given map. Records are
+   * decoded on up to {@code parallelism} threads.
+   *
+   * @param target      The target map
+   * @param parallelism The maximum number of threads used to decode records
+   *
+   * @throws IOException If the snapshot is malformed
+   */
+
+  public void decodeAll(
+    final ConcurrentMap<String, RuntimeDescription> target,
+    final int parallelism)
+    throws IOException
+  {
+    Objects.requireNonNull(target, "target");
+
+    RDBParallel.forEachIndex(parallelism, this.record_count, index -> {
+      final var description = this.decode(index);
+      target.put(description.id(), description);
+    });
+  }
+
+  /**
+   * Decode the runtime description at the given index.
+   *
+   * @param index The record index in the range {@code [0, size())}
+   *
+   * @return The runtime description
+   *
+   * @throws IOException If the snapshot is malformed
+   */
+
+  public RuntimeDescription decode(
+    final int index)
+    throws IOException
+  {
+    Objects.checkIndex(index, this.record_count);
+
+    try {
+      final var input =
+        this.buffer.duplicate()
+          .position(this.buffer.getInt(this.index_offset + index * 8 + 4));
+
+      final var repository = RuntimeInterner.uri(this.uri(input.getInt()));
+      final var version_builder =
+        RuntimeVersion.builder()
+          .setMajor(decodeInteger(input))
+          .setMinor(decodeInteger(input))
+          .setPatch(decodeInteger(input));
+      if (input.get() != 0) {
+        version_builder.setBuild(decodeInteger(input));
+      }
+
+      final var configuration = RuntimeConfiguration.ofName(this.string(input.getInt()));
+      final var platform = RuntimeInterner.string(this.string(input.getInt()));
+      final var architecture = RuntimeInterner.string(this.string(input.getInt()));
+      final var archive_uri = this.uri(input.getInt());
+      final var archive_size = input.getLong();
+      final var hash_algorithm = RuntimeInterner.string(this.string(input.getInt()));
+      final var hash = RuntimeHash.of(hash_algorithm, this.id(index));
+      final var vm = RuntimeInterner.string(this.string(input.getInt()));
+
+      Optional<RuntimeBuild> build = Optional.empty();
+      if (input.get() != 0) {
+        final var build_number = this.string(input.getInt());
+        final var seconds = input.getLong();
+        final var nanos = input.getInt();
+        final var offset = input.getInt();
+        build = Optional.of(
+          RuntimeInterner.build(
+            RuntimeBuild.builder()
+              .setBuildNumber(build_number)
+              .setTime(OffsetDateTime.ofInstant(
+                Instant.ofEpochSecond(seconds, (long) nanos),
+                ZoneOffset.ofTotalSeconds(offset)))
+              .build()));
+      }
+
+      final var tag_count = input.getInt();
+      if (tag_count < 0 || tag_count > MAXIMUM_TAGS) {
+        throw new IOException("Invalid tag count: " + tag_count);
+      }
+      final var tags = new String[tag_count];
+      for (var tag = 0; tag < tag_count; ++tag) {
+        tags[tag] = RuntimeInterner.string(this.string(input.getInt()));
+      }
+
+      return RuntimeDescription.builder()
+        .setArchitecture(architecture)
+        .setArchiveHash(hash)
+        .setArchiveSize(archive_size)
+        .setArchiveURI(archive_uri)
+        .setBuild(build)
+        .setConfiguration(configuration)
+        .setPlatform(platform)
+        .setRepository(repository)
+        .setTags(Set.of(tags))
+        .setVm(vm)
+        .setVersion(RuntimeInterner.version(version_builder.build()))
+        .build();
+    } catch (final IndexOutOfBoundsException
+                   | BufferUnderflowException
+                   | IllegalArgumentException
+                   | IllegalStateException
+                   | DateTimeException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Retrieve the ID of the runtime description at the given index without decoding the rest of
+   * the record.
+   *
+   * @param index The record index in the range {@code [0, size())}
+   *
+   * @return The runtime ID
+   */
+
+  public String id(
+    final int index)
+  {
+    Objects.checkIndex(index, this.record_count);
+    return this.string(this.buffer.getInt(this.index_offset + index * 8));
+  }
+
+  private String string(
+    final int index)
+  {
+    /*
+     * Strings are immutable and safely published, so concurrent decoders racing to fill in the
+     * same slot of the cache is harmless.
+     */
+
+    final var cached = this.strings[index];
+    if (cached != null) {
+      return cached;
+    }
+
+    final var offset = this.buffer.getInt(HEADER_SIZE + index * 4);
+    final var length = this.buffer.getInt(offset);
+    final var result =
+      StandardCharsets.UTF_8.decode(this.buffer.slice(offset + 4, length)).toString();
+    this.strings[index] = result;
+    return result;
+  }
+
+  private URI uri(
+    final int index)
+  {
+    try {
+      return new URI(this.string(index));
+    } catch (final URISyntaxException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static BigInteger decodeInteger(
+    final ByteBuffer input)
+    throws IOException
+  {
+    final var length = Byte.toUnsignedInt(input.get());
+    if (length == 0 || length > MAXIMUM_INTEGER_OCTETS) {
+      throw new IOException("Invalid integer length: " + length);
+    }
+    final var bytes = new byte[length];
+    input.get(bytes);
+    return new BigInteger(bytes);
+  }
+
+  private static final class StringTable
+  {
+    private final Map<String, Integer> indices;
+    private final ByteArrayOutputStream bytes;
+    private int[] offsets;
+
+    StringTable()
+    {
+      this.indices = new HashMap<>(1024);
+      this.bytes = new ByteArrayOutputStream(16 * 1024);
+      this.offsets = new int[1024];
+    }
+
+    int indexOf(
+      final String text)
+    {
+      final var existing = this.indices.get(text);
+      if (existing != null) {
+        return existing.intValue();
+      }
+
+      final var index = this.indices.size();
+      if (index == this.offsets.length) {
+        this.offsets = Arrays.copyOf(this.offsets, index * 2);
+      }
+      this.offsets[index] = this.bytes.size();
+
+      final var data = text.getBytes(StandardCharsets.UTF_8);
+      final var length = ByteBuffer.allocate(4).putInt(data.length).array();
+      this.bytes.writeBytes(length);
+      this.bytes.writeBytes(data);
+      this.indices.put(text, Integer.valueOf(index));
+      return index;
+    }
+
+    int size()
+    {
+      return this.indices.size();
+    }
+
+    int[] offsets()
+    {
+      return Arrays.copyOf(this.offsets, this.indices.size());
+    }
+
+    ByteArrayOutputStream encode()
+    {
+      return this.bytes;
+    }
+  }
+}
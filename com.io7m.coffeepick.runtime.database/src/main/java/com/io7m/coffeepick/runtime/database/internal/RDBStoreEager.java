@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A store that holds every runtime description fully decoded in memory.
+ *
+ * <p>Each generation of the store consists of an immutable base map along with an immutable
+ * overlay of runtime descriptions that have been added or removed since the base map was built.
+ * Publishing a generation copies only the overlay. When the overlay grows too large relative to the
+ * base map, the overlay is folded into a new base map.</p>
+ */
+
+@ThreadSafe
+public final class RDBStoreEager implements RDBStoreType
+{
+  private static final int FOLD_DIVISOR = 4;
+
+  private final int parallelism;
+  private final HashMap<String, RuntimeDescription> overlay;
+  private final HashSet<String> removed;
+  private Map<String, RuntimeDescription> base;
+  private volatile Generation generation;
+
+  /**
+   * Construct an empty store.
+   *
+   * @param in_parallelism The maximum number of threads used to decode snapshots
+   */
+
+  public RDBStoreEager(
+    final int in_parallelism)
+  {
+    this.parallelism = in_parallelism;
+    this.overlay = new HashMap<>(128);
+    this.removed = new HashSet<>(128);
+    this.base = Map.of();
+    this.generation = new Generation(this.base, Map.of(), Set.of());
+  }
+
+  @Override
+  public void restore(
+    final RDBSnapshot snapshot)
+    throws IOException
+  {
+    Objects.requireNonNull(snapshot, "snapshot");
+
+    final var decoded = new ConcurrentHashMap<String, RuntimeDescription>(snapshot.size() * 2);
+    snapshot.decodeAll(decoded, this.parallelism);
+
+    this.base = Collections.unmodifiableMap(decoded);
+    this.overlay.clear();
+    this.removed.clear();
+    this.generation = new Generation(this.base, Map.of(), Set.of());
+  }
+
+  @Override
+  public void snapshotWritten(
+    final Path file)
+  {
+    Objects.requireNonNull(file, "file");
+  }
+
+  @Override
+  public void put(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+
+    final var id = description.id();
+    this.overlay.put(id, description);
+    if (this.base.containsKey(id)) {
+      this.removed.add(id);
+    }
+  }
+
+  @Override
+  public void remove(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+
+    this.overlay.remove(id);
+    if (this.base.containsKey(id)) {
+      this.removed.add(id);
+    }
+  }
+
+  @Override
+  public void publish()
+  {
+    final var changes = this.overlay.size() + this.removed.size();
+    if (changes > this.base.size() / FOLD_DIVISOR) {
+      final var folded = new HashMap<>(this.base);
+      folded.keySet().removeAll(this.removed);
+      folded.putAll(this.overlay);
+      this.base = Collections.unmodifiableMap(folded);
+      this.overlay.clear();
+      this.removed.clear();
+      this.generation = new Generation(this.base, Map.of(), Set.of());
+      return;
+    }
+
+    this.generation =
+      new Generation(this.base, Map.copyOf(this.overlay), Set.copyOf(this.removed));
+  }
+
+  @Override
+  public int size()
+  {
+    return this.generation.size();
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> view()
+  {
+    return this.generation;
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+
+    final var result = new HashMap<String, RuntimeDescription>();
+    for (final var description : this.generation.values()) {
+      if (query.matches(description)) {
+        result.put(description.id(), description);
+      }
+    }
+    return Map.copyOf(result);
+  }
+
+  private static final class Generation extends AbstractMap<String, RuntimeDescription>
+  {
+    private final Map<String, RuntimeDescription> base;
+    private final Map<String, RuntimeDescription> overlay;
+    private final Set<String> removed;
+    private final int size;
+    private final EntrySet entries;
+
+    Generation(
+      final Map<String, RuntimeDescription> in_base,
+      final Map<String, RuntimeDescription> in_overlay,
+      final Set<String> in_removed)
+    {
+      this.base = Objects.requireNonNull(in_base, "base");
+      this.overlay = Objects.requireNonNull(in_overlay, "overlay");
+      this.removed = Objects.requireNonNull(in_removed, "removed");
+      this.size = in_overlay.size() + in_base.size() - in_removed.size();
+      this.entries = new EntrySet();
+    }
+
+    @Override
+    public RuntimeDescription get(
+      final Object key)
+    {
+      if (!(key instanceof String)) {
+        return null;
+      }
+
+      final var overlaid = this.overlay.get(key);
+      if (overlaid != null) {
+        return overlaid;
+      }
+      if (this.removed.contains(key)) {
+        return null;
+      }
+      return this.base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(
+      final Object key)
+    {
+      return this.get(key) != null;
+    }
+
+    @Override
+    public int size()
+    {
+      return this.size;
+    }
+
+    @Override
+    public Set<Entry<String, RuntimeDescription>> entrySet()
+    {
+      return this.entries;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, RuntimeDescription>>
+    {
+      EntrySet()
+      {
+
+      }
+
+      @Override
+      public Iterator<Map.Entry<String, RuntimeDescription>> iterator()
+      {
+        final var generation = Generation.this;
+        return Stream.concat(
+          generation.overlay.entrySet().stream(),
+          generation.base.entrySet()
+            .stream()
+            .filter(entry -> !generation.removed.contains(entry.getKey())))
+          .iterator();
+      }
+
+      @Override
+      public int size()
+      {
+        return Generation.this.size;
+      }
+    }
+  }
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A store that decodes runtime descriptions from a snapshot on demand.
+ *
+ * <p>The store consists of a base layer (a memory-mapped snapshot along with an index from runtime
+ * IDs to record indices) and an overlay of runtime descriptions that have been added or removed
+ * since the snapshot was written. Only the index is built when the store is restored from a
+ * snapshot; records in the base layer are decoded when they are first accessed, and the decoded
+ * records are held in a bounded cache. Each time a new snapshot is written, the store rebases onto
+ * it and the overlay is discarded.</p>
+ *
+ * <p>Queries against the base layer are answered from the snapshot's {@link RDBIndex}, so only
+ * the records that match a query are decoded. Runtime descriptions in the overlay are already
+ * decoded and are matched against queries directly.</p>
+ *
+ * <p>Each generation of the store shares the base layer and the cache with the previous generation
+ * and holds an immutable copy of the overlay, so publishing a generation copies only the runtime
+ * descriptions that have changed since the last snapshot.</p>
+ */
+
+@ThreadSafe
+public final class RDBStoreLazy implements RDBStoreType
+{
+  private final int cache_size;
+  private final HashMap<String, RuntimeDescription> overlay;
+  private final HashSet<String> removed;
+  private volatile Layers layers;
+
+  /**
+   * Construct an empty store.
+   *
+   * @param in_cache_size The maximum number of decoded records that will be cached
+   */
+
+  public RDBStoreLazy(
+    final int in_cache_size)
+  {
+    if (in_cache_size <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+
+    this.cache_size = in_cache_size;
+    this.overlay = new HashMap<>(128);
+    this.removed = new HashSet<>(128);
+    this.layers = new Layers(null, Map.of(), newCache(in_cache_size), Map.of(), Set.of());
+  }
+
+  private static Map<Integer, RuntimeDescription> newCache(
+    final int cache_size)
+  {
+    return new LinkedHashMap<>(cache_size, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<Integer, RuntimeDescription> eldest)
+      {
+        return this.size() > cache_size;
+      }
+    };
+  }
+
+  @Override
+  public void restore(
+    final RDBSnapshot snapshot)
+    throws IOException
+  {
+    Objects.requireNonNull(snapshot, "snapshot");
+
+    final var count = snapshot.size();
+    final var index = new HashMap<String, Integer>(count * 2);
+    try {
+      for (var record = 0; record < count; ++record) {
+        index.put(snapshot.id(record), Integer.valueOf(record));
+      }
+    } catch (final IndexOutOfBoundsException e) {
+      throw new IOException(e);
+    }
+
+    this.overlay.clear();
+    this.removed.clear();
+    this.layers =
+      new Layers(snapshot, index, newCache(this.cache_size), Map.of(), Set.of());
+  }
+
+  @Override
+  public void snapshotWritten(
+    final Path file)
+    throws IOException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final var snapshot = RDBSnapshot.open(file);
+    if (snapshot.isPresent()) {
+      this.restore(snapshot.get());
+    }
+  }
+
+  @Override
+  public void put(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+
+    final var id = description.id();
+    this.overlay.put(id, description);
+    if (this.layers.index.containsKey(id)) {
+      this.removed.add(id);
+    }
+  }
+
+  @Override
+  public void remove(
+    final String id)
+  {
+    Objects.requireNonNull(id, "id");
+
+    this.overlay.remove(id);
+    if (this.layers.index.containsKey(id)) {
+      this.removed.add(id);
+    }
+  }
+
+  @Override
+  public void publish()
+  {
+    final var current = this.layers;
+    this.layers =
+      new Layers(
+        current.base,
+        current.index,
+        current.cache,
+        Map.copyOf(this.overlay),
+        Set.copyOf(this.removed));
+  }
+
+  @Override
+  public int size()
+  {
+    return this.layers.size();
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> view()
+  {
+    return this.layers;
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    Objects.requireNonNull(query, "query");
+    return this.layers.search(query);
+  }
+
+  private static final class Layers extends AbstractMap<String, RuntimeDescription>
+  {
+    private final RDBSnapshot base;
+    private final Map<String, Integer> index;
+    private final Map<Integer, RuntimeDescription> cache;
+    private final Map<String, RuntimeDescription> overlay;
+    private final Set<String> removed;
+    private final EntrySet entries;
+
+    Layers(
+      final RDBSnapshot in_base,
+      final Map<String, Integer> in_index,
+      final Map<Integer, RuntimeDescription> in_cache,
+      final Map<String, RuntimeDescription> in_overlay,
+      final Set<String> in_removed)
+    {
+      this.base = in_base;
+      this.index = Objects.requireNonNull(in_index, "index");
+      this.cache = Objects.requireNonNull(in_cache, "cache");
+      this.overlay = Objects.requireNonNull(in_overlay, "overlay");
+      this.removed = Objects.requireNonNull(in_removed, "removed");
+      this.entries = new EntrySet(this);
+    }
+
+    @Override
+    public int size()
+    {
+      return this.overlay.size() + this.index.size() - this.removed.size();
+    }
+
+    @Override
+    public RuntimeDescription get(
+      final Object key)
+    {
+      if (!(key instanceof String)) {
+        return null;
+      }
+
+      final var overlaid = this.overlay.get(key);
+      if (overlaid != null) {
+        return overlaid;
+      }
+      if (this.removed.contains(key)) {
+        return null;
+      }
+      final var record = this.index.get(key);
+      if (record == null) {
+        return null;
+      }
+      return this.decode(record.intValue());
+    }
+
+    @Override
+    public boolean containsKey(
+      final Object key)
+    {
+      return this.get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, RuntimeDescription>> entrySet()
+    {
+      return this.entries;
+    }
+
+    Map<String, RuntimeDescription> search(
+      final RuntimeDescriptionQuery query)
+    {
+      final var result = new HashMap<String, RuntimeDescription>();
+      for (final var description : this.overlay.values()) {
+        if (query.matches(description)) {
+          result.put(description.id(), description);
+        }
+      }
+
+      if (this.base != null) {
+        final RDBIndex index;
+        try {
+          index = this.base.index();
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+
+        final var selected = index.select(query);
+        if (selected.isPresent()) {
+          for (final var record : selected.get()) {
+            this.searchRecord(query, record, result);
+          }
+        } else {
+          for (var record = 0; record < this.base.size(); ++record) {
+            this.searchRecord(query, record, result);
+          }
+        }
+      }
+      return Map.copyOf(result);
+    }
+
+    private void searchRecord(
+      final RuntimeDescriptionQuery query,
+      final int record,
+      final Map<String, RuntimeDescription> result)
+    {
+      if (this.removed.contains(this.base.id(record))) {
+        return;
+      }
+      final var description = this.decode(record);
+      if (query.matches(description)) {
+        result.put(description.id(), description);
+      }
+    }
+
+    RuntimeDescription decode(
+      final int record)
+    {
+      final var key = Integer.valueOf(record);
+      synchronized (this.cache) {
+        final var cached = this.cache.get(key);
+        if (cached != null) {
+          return cached;
+        }
+      }
+
+      final RuntimeDescription description;
+      try {
+        description = this.base.decode(record);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      synchronized (this.cache) {
+        this.cache.put(key, description);
+      }
+      return description;
+    }
+  }
+
+  private static final class EntrySet extends AbstractSet<Map.Entry<String, RuntimeDescription>>
+  {
+    private final Layers layers;
+
+    EntrySet(
+      final Layers in_layers)
+    {
+      this.layers = in_layers;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, RuntimeDescription>> iterator()
+    {
+      return new EntryIterator(this.layers);
+    }
+
+    @Override
+    public int size()
+    {
+      return this.layers.size();
+    }
+  }
+
+  private static final class EntryIterator
+    implements Iterator<Map.Entry<String, RuntimeDescription>>
+  {
+    private final Layers layers;
+    private final Iterator<Map.Entry<String, RuntimeDescription>> overlay;
+    private final int base_size;
+    private int base_next;
+    private Map.Entry<String, RuntimeDescription> next;
+
+    EntryIterator(
+      final Layers in_layers)
+    {
+      this.layers = in_layers;
+      this.overlay = in_layers.overlay.entrySet().iterator();
+      this.base_size = in_layers.base == null ? 0 : in_layers.base.size();
+      this.base_next = 0;
+      this.next = this.advance();
+    }
+
+    private Map.Entry<String, RuntimeDescription> advance()
+    {
+      if (this.overlay.hasNext()) {
+        final var entry = this.overlay.next();
+        return Map.entry(entry.getKey(), entry.getValue());
+      }
+
+      while (this.base_next < this.base_size) {
+        final var record = this.base_next;
+        ++this.base_next;
+
+        final var id = this.layers.base.id(record);
+        if (!this.layers.removed.contains(id)) {
+          return Map.entry(id, this.layers.decode(record));
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return this.next != null;
+    }
+
+    @Override
+    public Map.Entry<String, RuntimeDescription> next()
+    {
+      final var result = this.next;
+      if (result == null) {
+        throw new NoSuchElementException();
+      }
+      this.next = this.advance();
+      return result;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The in-memory set of live runtime descriptions in a database. Stores are populated by replaying
+ * the journal, and are subsequently modified only by committed transactions. Modifications are
+ * staged by the database, one transaction at a time, and then published atomically as a new
+ * generation of the store. Readers only ever see published generations, and a generation never
+ * changes once it has been published, so reads never block and never observe a partially applied
+ * transaction. Generations that are no longer referenced by any reader are reclaimed by the garbage
+ * collector.
+ */
+
+public interface RDBStoreType
+{
+  /**
+   * Replace the contents of the store with the contents of the given snapshot, discarding any
+   * staged modifications, and publish the result. If an exception is raised, the store is left
+   * unmodified.
+   *
+   * @param snapshot The snapshot
+   *
+   * @throws IOException If the snapshot is malformed
+   */
+
+  void restore(RDBSnapshot snapshot)
+    throws IOException;
+
+  /**
+   * Indicate that a snapshot of the current generation of the store has been written. The store
+   * must not have any staged modifications.
+   *
+   * @param file The snapshot file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void snapshotWritten(Path file)
+    throws IOException;
+
+  /**
+   * Stage the addition or replacement of a runtime description. The change is not visible to
+   * readers until {@link #publish()} is called.
+   *
+   * @param description The runtime description
+   */
+
+  void put(RuntimeDescription description);
+
+  /**
+   * Stage the removal of a runtime description. The change is not visible to readers until
+   * {@link #publish()} is called.
+   *
+   * @param id The runtime ID
+   */
+
+  void remove(String id);
+
+  /**
+   * Publish all staged modifications as a new generation of the store.
+   */
+
+  void publish();
+
+  /**
+   * @return The number of live runtime descriptions in the current generation
+   */
+
+  int size();
+
+  /**
+   * @return An immutable view of the current generation of live runtime descriptions
+   */
+
+  Map<String, RuntimeDescription> view();
+
+  /**
+   * Find the runtime descriptions in the current generation that match the given query.
+   *
+   * @param query The query
+   *
+   * @return An immutable map of the matching runtime descriptions
+   */
+
+  Map<String, RuntimeDescription> search(RuntimeDescriptionQuery query);
+}
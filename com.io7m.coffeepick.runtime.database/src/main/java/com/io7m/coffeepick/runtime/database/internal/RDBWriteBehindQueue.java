@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime.database.internal;
+
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A queue of committed changes that are persisted by a dedicated writer thread.
+ *
+ * <p>The writer thread removes all of the changes that are currently queued, merges them into a
+ * single group, and passes the group to a {@link WriterType} so that any number of queued commits
+ * cost a single write. The number of queued commits is bounded; callers must {@link #reserve()} a
+ * slot before calling {@link #enqueue(Collection, Collection, OffsetDateTime)}, and reserving a
+ * slot blocks while the queue is full.</p>
+ */
+
+@ThreadSafe
+public final class RDBWriteBehindQueue implements AutoCloseable
+{
+  private static final Logger LOG = LoggerFactory.getLogger(RDBWriteBehindQueue.class);
+
+  private final WriterType writer;
+  private final Semaphore slots;
+  private final LinkedBlockingQueue<ItemType> queue;
+  private final Thread thread;
+  private final Object stateLock;
+  private boolean closed;
+  private boolean stopping;
+
+  /**
+   * A function that persists a group of changes.
+   */
+
+  @FunctionalInterface
+  public interface WriterType
+  {
+    /**
+     * Persist a group of changes. The sets of added runtimes and deleted IDs are disjoint.
+     *
+     * @param puts    The added or replaced runtime descriptions
+     * @param deletes The IDs of the deleted runtime descriptions
+     * @param time    The time of the most recent commit in the group
+     */
+
+    void write(
+      Collection<RuntimeDescription> puts,
+      Collection<String> deletes,
+      OffsetDateTime time);
+  }
+
+  /**
+   * Create a queue and start the writer thread.
+   *
+   * @param name      The name of the writer thread
+   * @param capacity  The maximum number of queued commits
+   * @param in_writer The function that persists groups of changes
+   */
+
+  public RDBWriteBehindQueue(
+    final String name,
+    final int capacity,
+    final WriterType in_writer)
+  {
+    Objects.requireNonNull(name, "name");
+
+    this.writer = Objects.requireNonNull(in_writer, "writer");
+    this.slots = new Semaphore(capacity);
+    this.queue = new LinkedBlockingQueue<>();
+    this.stateLock = new Object();
+    this.closed = false;
+    this.stopping = false;
+    this.thread = new Thread(this::run);
+    this.thread.setName(name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Reserve a slot in the queue, blocking until one is available.
+   */
+
+  public void reserve()
+  {
+    this.slots.acquireUninterruptibly();
+  }
+
+  /**
+   * Release a slot reserved with {@link #reserve()} that will not be used, because the commit for
+   * which it was reserved failed before it was enqueued.
+   */
+
+  public void release()
+  {
+    this.slots.release();
+  }
+
+  /**
+   * Enqueue a commit. A slot must have been reserved with {@link #reserve()}.
+   *
+   * @param puts    The added or replaced runtime descriptions
+   * @param deletes The IDs of the deleted runtime descriptions
+   * @param time    The commit time
+   */
+
+  public void enqueue(
+    final Collection<RuntimeDescription> puts,
+    final Collection<String> deletes,
+    final OffsetDateTime time)
+  {
+    final var commit = new Commit(List.copyOf(puts), List.copyOf(deletes), time);
+    synchronized (this.stateLock) {
+      if (this.closed) {
+        throw new IllegalStateException("Write-behind queue is closed");
+      }
+      this.queue.add(commit);
+    }
+  }
+
+  /**
+   * Wait until all commits enqueued before this method was called have been persisted.
+   */
+
+  public void flush()
+  {
+    final var barrier = new Barrier();
+    synchronized (this.stateLock) {
+      if (this.stopping) {
+        return;
+      }
+      this.queue.add(barrier);
+    }
+
+    try {
+      barrier.future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException e) {
+      LOG.error("flush failed: ", e);
+    }
+  }
+
+  /**
+   * Persist all queued commits and stop the writer thread.
+   */
+
+  @Override
+  public void close()
+  {
+    synchronized (this.stateLock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+    }
+
+    this.flush();
+
+    synchronized (this.stateLock) {
+      this.stopping = true;
+      this.queue.add(new Stop());
+    }
+  }
+
+  private void run()
+  {
+    final var items = new ArrayList<ItemType>(64);
+    while (true) {
+      try {
+        items.add(this.queue.take());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      this.queue.drainTo(items);
+
+      final var stop = this.process(items);
+      items.clear();
+      if (stop) {
+        return;
+      }
+    }
+  }
+
+  private boolean process(
+    final List<ItemType> items)
+  {
+    final var puts = new LinkedHashMap<String, RuntimeDescription>(128);
+    final var deletes = new HashSet<String>(16);
+    final var barriers = new ArrayList<Barrier>(1);
+    OffsetDateTime time = null;
+    var commits = 0;
+    var stop = false;
+
+    for (final var item : items) {
+      if (item instanceof Commit) {
+        final var commit = (Commit) item;
+        for (final var description : commit.puts) {
+          puts.put(description.id(), description);
+          deletes.remove(description.id());
+        }
+        for (final var id : commit.deletes) {
+          puts.remove(id);
+          deletes.add(id);
+        }
+        time = commit.time;
+        ++commits;
+      } else if (item instanceof Barrier) {
+        barriers.add((Barrier) item);
+      } else {
+        stop = true;
+      }
+    }
+
+    try {
+      if (time != null) {
+        this.writer.write(puts.values(), deletes, time);
+      }
+    } catch (final Exception e) {
+      LOG.error("write failed: ", e);
+    } finally {
+      this.slots.release(commits);
+      for (final var barrier : barriers) {
+        barrier.future.complete(null);
+      }
+    }
+    return stop;
+  }
+
+  private interface ItemType
+  {
+
+  }
+
+  private static final class Commit implements ItemType
+  {
+    private final List<RuntimeDescription> puts;
+    private final List<String> deletes;
+    private final OffsetDateTime time;
+
+    Commit(
+      final List<RuntimeDescription> in_puts,
+      final List<String> in_deletes,
+      final OffsetDateTime in_time)
+    {
+      this.puts = in_puts;
+      this.deletes = in_deletes;
+      this.time = in_time;
+    }
+  }
+
+  private static final class Barrier implements ItemType
+  {
+    private final CompletableFuture<Void> future;
+
+    Barrier()
+    {
+      this.future = new CompletableFuture<>();
+    }
+  }
+
+  private static final class Stop implements ItemType
+  {
+    Stop()
+    {
+
+    }
+  }
+}
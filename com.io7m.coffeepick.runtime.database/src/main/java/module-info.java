@@ -27,8 +27,9 @@ module com.io7m.coffeepick.runtime.database
   requires static org.osgi.annotation.versioning;
   requires static org.osgi.service.component.annotations;
 
-  requires org.slf4j;
   requires com.io7m.coffeepick.runtime;
+  requires io.reactivex.rxjava3;
+  requires org.slf4j;
 
   exports com.io7m.coffeepick.runtime.database;
 }
\ No newline at end of file
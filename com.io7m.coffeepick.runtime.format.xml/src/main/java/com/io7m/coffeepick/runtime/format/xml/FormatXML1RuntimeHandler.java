@@ -18,6 +18,8 @@ package com.io7m.coffeepick.runtime.format.xml;
 
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
 import com.io7m.coffeepick.runtime.RuntimeVersions;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXParseException;
@@ -120,13 +122,13 @@ public final class FormatXML1RuntimeHandler
       this.runtime_builder.setConfiguration(
         RuntimeConfiguration.ofName(attributes.getValue("configuration")));
       this.runtime_builder.setPlatform(
-        attributes.getValue("platform"));
+        RuntimeInterner.string(attributes.getValue("platform")));
       this.runtime_builder.setArchitecture(
-        attributes.getValue("architecture"));
+        RuntimeInterner.string(attributes.getValue("architecture")));
       this.runtime_builder.setVersion(
-        RuntimeVersions.parse(attributes.getValue("version")));
+        RuntimeInterner.version(RuntimeVersions.parse(attributes.getValue("version"))));
       this.runtime_builder.setVm(
-        attributes.getValue("vm"));
+        RuntimeInterner.string(attributes.getValue("vm")));
 
     } catch (final URISyntaxException | IllegalArgumentException e) {
       throw new SAXParseException(e.getMessage(), this.locator(), e);
@@ -140,17 +142,20 @@ public final class FormatXML1RuntimeHandler
     switch (value.kind()) {
       case TAGS: {
         final var tags = (FormatXML1RuntimeChildTags) value;
-        this.runtime_builder.addAllTags(tags.tags());
+        this.runtime_builder.addAllTags(RuntimeInterner.tags(tags.tags()));
         break;
       }
       case HASH: {
         final var hash = (FormatXML1RuntimeChildHash) value;
-        this.runtime_builder.setArchiveHash(hash.hash());
+        this.runtime_builder.setArchiveHash(
+          RuntimeHash.of(
+            RuntimeInterner.string(hash.hash().algorithm()),
+            hash.hash().value()));
         break;
       }
       case BUILD: {
         final var build = (FormatXML1RuntimeChildBuild) value;
-        this.runtime_builder.setBuild(build.build());
+        this.runtime_builder.setBuild(RuntimeInterner.build(build.build()));
         break;
       }
     }
@@ -162,7 +167,7 @@ public final class FormatXML1RuntimeHandler
   {
     final var value = attributes.getValue("repository");
     if (value != null) {
-      this.runtime_builder.setRepository(new URI(value));
+      this.runtime_builder.setRepository(RuntimeInterner.uri(new URI(value)));
       return;
     }
 
@@ -179,6 +184,6 @@ public final class FormatXML1RuntimeHandler
           .toString());
     }
 
-    this.runtime_builder.setRepository(this.repository.get());
+    this.runtime_builder.setRepository(RuntimeInterner.uri(this.repository.get()));
   }
 }
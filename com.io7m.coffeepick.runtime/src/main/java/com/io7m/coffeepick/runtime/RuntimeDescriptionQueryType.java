@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A query over runtime descriptions. A query consists only of the attributes of a runtime
+ * description that repositories are expected to be able to index, and a runtime description
+ * matches a query if it matches every attribute specified in the query.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface RuntimeDescriptionQueryType
+{
+  /**
+   * @return The name of the platform upon which the runtime will run
+   */
+
+  Optional<String> platform();
+
+  /**
+   * @return The name of the architecture upon which the runtime will run
+   */
+
+  Optional<String> architecture();
+
+  /**
+   * @return The name of the VM used for the runtime
+   */
+
+  Optional<String> vm();
+
+  /**
+   * @return The configuration of the runtime
+   */
+
+  Optional<RuntimeConfiguration> configuration();
+
+  /**
+   * @return The range of acceptable runtime versions
+   */
+
+  Optional<RuntimeVersionRange> versionRange();
+
+  /**
+   * @return A set of tags that must be present on the runtime
+   */
+
+  Set<String> requiredTags();
+
+  /**
+   * @param description The runtime description
+   *
+   * @return {@code true} if the given runtime description matches the current query
+   */
+
+  default boolean matches(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+
+    return matchesField(description.platform(), this.platform())
+      && matchesField(description.architecture(), this.architecture())
+      && matchesField(description.vm(), this.vm())
+      && matchesField(description.configuration(), this.configuration())
+      && matchesVersionRange(description.version(), this.versionRange())
+      && description.tags().containsAll(this.requiredTags());
+  }
+
+  private static <T> boolean matchesField(
+    final T field,
+    final Optional<T> matcher)
+  {
+    return matcher.isEmpty() || Objects.equals(field, matcher.get());
+  }
+
+  private static boolean matchesVersionRange(
+    final RuntimeVersion version,
+    final Optional<RuntimeVersionRange> range)
+  {
+    return range.isEmpty() || range.get().includes(version);
+  }
+}
@@ -262,17 +262,18 @@ public final class RuntimeDescriptions
     }
 
     return RuntimeDescription.builder()
-      .setArchitecture(architecture)
-      .setArchiveHash(archive_hash)
+      .setArchitecture(RuntimeInterner.string(architecture))
+      .setArchiveHash(
+        RuntimeHash.of(RuntimeInterner.string(archive_hash.algorithm()), archive_hash.value()))
       .setArchiveSize(archive_size)
       .setArchiveURI(archive_uri)
-      .setBuild(build)
+      .setBuild(build.map(RuntimeInterner::build))
       .setConfiguration(configuration)
-      .setPlatform(platform)
-      .setRepository(repository)
-      .setTags(tags)
-      .setVm(vm)
-      .setVersion(version)
+      .setPlatform(RuntimeInterner.string(platform))
+      .setRepository(RuntimeInterner.uri(repository))
+      .setTags(RuntimeInterner.tags(tags))
+      .setVm(RuntimeInterner.string(vm))
+      .setVersion(RuntimeInterner.version(version))
       .build();
   }
   // CHECKSTYLE:ON
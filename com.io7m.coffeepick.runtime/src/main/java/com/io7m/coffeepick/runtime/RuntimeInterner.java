@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.runtime;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Functions to intern the values that make up runtime descriptions.
+ *
+ * <p>Large numbers of runtime descriptions tend to share a small number of distinct platforms,
+ * architectures, virtual machines, repositories, tags, versions, and builds. Parsers that produce
+ * runtime descriptions pass these values through the functions in this class so that equal values
+ * share a single instance. Interned values are only weakly held, and so are discarded when no
+ * runtime description refers to them any longer.</p>
+ */
+
+public final class RuntimeInterner
+{
+  private static final WeakInterner<URI> URIS =
+    new WeakInterner<>();
+  private static final WeakInterner<RuntimeVersion> VERSIONS =
+    new WeakInterner<>();
+  private static final WeakInterner<RuntimeBuild> BUILDS =
+    new WeakInterner<>();
+
+  private RuntimeInterner()
+  {
+
+  }
+
+  /**
+   * Intern a string.
+   *
+   * @param text The string
+   *
+   * @return A string equal to {@code text}
+   */
+
+  public static String string(
+    final String text)
+  {
+    return Objects.requireNonNull(text, "text").intern();
+  }
+
+  /**
+   * Intern a URI. This is intended for values such as repository URIs that are shared by many
+   * runtimes, and should not be used for URIs that are unique to a runtime.
+   *
+   * @param uri The URI
+   *
+   * @return A URI equal to {@code uri}
+   */
+
+  public static URI uri(
+    final URI uri)
+  {
+    return URIS.intern(Objects.requireNonNull(uri, "uri"));
+  }
+
+  /**
+   * Intern each of the given tags.
+   *
+   * @param tags The tags
+   *
+   * @return A set of tags equal to {@code tags}
+   */
+
+  public static Set<String> tags(
+    final Set<String> tags)
+  {
+    Objects.requireNonNull(tags, "tags");
+
+    if (tags.isEmpty()) {
+      return Set.of();
+    }
+    return tags.stream()
+      .map(RuntimeInterner::string)
+      .collect(Collectors.toUnmodifiableSet());
+  }
+
+  /**
+   * Intern a runtime version.
+   *
+   * @param version The version
+   *
+   * @return A version equal to {@code version}
+   */
+
+  public static RuntimeVersion version(
+    final RuntimeVersion version)
+  {
+    return VERSIONS.intern(Objects.requireNonNull(version, "version"));
+  }
+
+  /**
+   * Intern a runtime build.
+   *
+   * @param build The build
+   *
+   * @return A build equal to {@code build}
+   */
+
+  public static RuntimeBuild build(
+    final RuntimeBuild build)
+  {
+    return BUILDS.intern(Objects.requireNonNull(build, "build"));
+  }
+
+  /**
+   * Intern the shared components of a runtime description.
+   *
+   * @param description The runtime description
+   *
+   * @return A runtime description equal to {@code description}
+   */
+
+  public static RuntimeDescription description(
+    final RuntimeDescription description)
+  {
+    Objects.requireNonNull(description, "description");
+
+    return RuntimeDescription.builder()
+      .from(description)
+      .setArchitecture(string(description.architecture()))
+      .setArchiveHash(
+        RuntimeHash.of(
+          string(description.archiveHash().algorithm()),
+          description.archiveHash().value()))
+      .setBuild(description.build().map(RuntimeInterner::build))
+      .setPlatform(string(description.platform()))
+      .setRepository(uri(description.repository()))
+      .setTags(tags(description.tags()))
+      .setVersion(version(description.version()))
+      .setVm(string(description.vm()))
+      .build();
+  }
+
+  /**
+   * A weak interner backed by a concurrent map, so that values can be interned from many threads
+   * (such as those decoding a database in parallel) without contending on a single lock. The map
+   * holds weak references to canonical values; references cleared by the garbage collector are
+   * removed from the map by the next call to {@link #intern(Object)}.
+   */
+
+  private static final class WeakInterner<T>
+  {
+    private final ConcurrentHashMap<KeyType<T>, WeakKey<T>> values;
+    private final ReferenceQueue<T> cleared;
+
+    WeakInterner()
+    {
+      this.values = new ConcurrentHashMap<>(256);
+      this.cleared = new ReferenceQueue<>();
+    }
+
+    T intern(
+      final T value)
+    {
+      this.expunge();
+
+      final var lookup = new LookupKey<>(value);
+      while (true) {
+        final var existing = this.values.get(lookup);
+        if (existing != null) {
+          final var canonical = existing.get();
+          if (canonical != null) {
+            return canonical;
+          }
+          this.values.remove(existing, existing);
+          continue;
+        }
+
+        final var key = new WeakKey<>(value, this.cleared);
+        if (this.values.putIfAbsent(key, key) == null) {
+          return value;
+        }
+      }
+    }
+
+    private void expunge()
+    {
+      while (true) {
+        final var reference = this.cleared.poll();
+        if (reference == null) {
+          return;
+        }
+        this.values.remove(reference);
+      }
+    }
+  }
+
+  private interface KeyType<T>
+  {
+    T referent();
+  }
+
+  /**
+   * Keys are equal if their referents are equal. A key whose referent has been cleared is equal
+   * only to itself, so that it can still be removed from the map.
+   */
+
+  private static boolean keysEqual(
+    final KeyType<?> key,
+    final Object other)
+  {
+    if (key == other) {
+      return true;
+    }
+    if (!(other instanceof KeyType)) {
+      return false;
+    }
+    final var referent = key.referent();
+    return referent != null && referent.equals(((KeyType<?>) other).referent());
+  }
+
+  private static final class LookupKey<T> implements KeyType<T>
+  {
+    private final T value;
+
+    LookupKey(
+      final T in_value)
+    {
+      this.value = in_value;
+    }
+
+    @Override
+    public T referent()
+    {
+      return this.value;
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      return keysEqual(this, other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return this.value.hashCode();
+    }
+  }
+
+  private static final class WeakKey<T> extends WeakReference<T> implements KeyType<T>
+  {
+    private final int hash;
+
+    WeakKey(
+      final T in_value,
+      final ReferenceQueue<T> queue)
+    {
+      super(in_value, queue);
+      this.hash = in_value.hashCode();
+    }
+
+    @Override
+    public T referent()
+    {
+      return this.get();
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      return keysEqual(this, other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return this.hash;
+    }
+  }
+}
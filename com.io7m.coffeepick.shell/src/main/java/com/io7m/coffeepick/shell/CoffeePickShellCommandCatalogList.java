@@ -17,12 +17,13 @@
 package com.io7m.coffeepick.shell;
 
 import com.io7m.coffeepick.api.CoffeePickClientType;
-import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
+import com.io7m.coffeepick.api.CoffeePickSearches;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
 import org.jline.builtins.Completers;
 
 import java.io.PrintWriter;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -58,6 +59,18 @@ public final class CoffeePickShellCommandCatalogList implements CoffeePickShellC
   static void showRuntimes(
     final PrintWriter writer,
     final Map<String, RuntimeDescription> runtimes)
+  {
+    showRuntimesInOrder(
+      writer,
+      runtimes.values()
+        .stream()
+        .sorted(CoffeePickSearches.runtimeOrder())
+        .collect(Collectors.toList()));
+  }
+
+  static void showRuntimesInOrder(
+    final PrintWriter writer,
+    final Collection<RuntimeDescription> runtimes)
   {
     writer.printf(
       "%-70s | %-12s | %-8s | %-12s | %-8s | %-4s | %-10s | %-28s | %s\n",
@@ -71,22 +84,17 @@ public final class CoffeePickShellCommandCatalogList implements CoffeePickShellC
       "Repository",
       "Tags");
 
-    runtimes.values()
-      .stream()
-      .sorted(Comparator.comparing(RuntimeDescription::version)
-                .thenComparing(RuntimeDescription::architecture)
-                .thenComparing(RuntimeDescription::platform))
-      .forEach(description -> writer.printf(
-        "%-70s | %-12s | %-8s | %-12s | %-8s | %-4s | %-8.2fMB | %-28s | %s\n",
-        description.id(),
-        description.architecture(),
-        description.platform(),
-        description.version(),
-        description.vm(),
-        description.configuration().configurationName(),
-        Double.valueOf((double) description.archiveSize() / 1_000_000.0),
-        description.repository(),
-        description.tags().stream().sorted().collect(Collectors.joining(" "))));
+    runtimes.forEach(description -> writer.printf(
+      "%-70s | %-12s | %-8s | %-12s | %-8s | %-4s | %-8.2fMB | %-28s | %s\n",
+      description.id(),
+      description.architecture(),
+      description.platform(),
+      description.version(),
+      description.vm(),
+      description.configuration().configurationName(),
+      Double.valueOf((double) description.archiveSize() / 1_000_000.0),
+      description.repository(),
+      description.tags().stream().sorted().collect(Collectors.joining(" "))));
   }
 
   @Override
@@ -99,25 +107,34 @@ public final class CoffeePickShellCommandCatalogList implements CoffeePickShellC
   public CompletableFuture<?> execute(
     final List<String> arguments)
   {
+    final CoffeePickSearchPageRequest request;
     try {
-      final CoffeePickSearch params;
-      if (arguments.size() > 1) {
-        final var rest = arguments.subList(1, arguments.size());
-        params = CoffeePickShellSearchParameters.parseSearchParameters(rest);
-      } else {
-        params = CoffeePickSearch.builder().build();
-      }
-
-      return this.client.catalogSearch(params)
-        .thenAccept(runtimes -> showRuntimes(this.writer, runtimes));
-    } catch (final Exception e) {
+      request =
+        CoffeePickShellSearchParameters.parseSearchPageParameters(
+          arguments.subList(1, arguments.size()));
+    } catch (final IllegalArgumentException e) {
+      this.writer.println(
+        "usage: catalog [<attribute>:<value> ...] [limit:<count>] [order:oldest|newest]");
+      this.writer.flush();
       return CompletableFuture.failedFuture(e);
     }
+
+    return this.client.catalogSearchPage(request)
+      .thenAccept(page -> {
+        showRuntimesInOrder(this.writer, page.runtimes());
+        if (page.next().isPresent()) {
+          this.writer.println("(More results are available)");
+        }
+      });
   }
 
   @Override
   public Completers.TreeCompleter.Node completer()
   {
-    return node(this.name());
+    return node(
+      this.name(),
+      node("limit:"),
+      node("order:oldest"),
+      node("order:newest"));
   }
 }
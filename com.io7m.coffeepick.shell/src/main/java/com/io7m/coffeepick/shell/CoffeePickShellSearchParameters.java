@@ -17,6 +17,8 @@
 package com.io7m.coffeepick.shell;
 
 import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchOrder;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 
 import java.net.URI;
@@ -25,6 +27,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Functions to parse search parameters.
@@ -49,6 +52,16 @@ public final class CoffeePickShellSearchParameters
   private static final Map<String, AttributeParserType> PARSERS_BY_NAME =
     PARSERS.stream().collect(Collectors.toMap(AttributeParserType::name, Function.identity()));
 
+  private static final List<PageAttributeParserType> PAGE_PARSERS =
+    List.of(
+      new AttributeLimit(),
+      new AttributeOrder()
+    );
+
+  private static final Map<String, PageAttributeParserType> PAGE_PARSERS_BY_NAME =
+    PAGE_PARSERS.stream()
+      .collect(Collectors.toMap(PageAttributeParserType::name, Function.identity()));
+
   private CoffeePickShellSearchParameters()
   {
 
@@ -67,8 +80,41 @@ public final class CoffeePickShellSearchParameters
   {
     Objects.requireNonNull(parameters, "parameters");
 
-    final var separator = System.lineSeparator();
     final var builder = CoffeePickSearch.builder();
+    parseAttributes(parameters, builder, Map.of(), CoffeePickSearchPageRequest.builder());
+    return builder.build();
+  }
+
+  /**
+   * Parse a set of search parameters, along with the page parameters {@code limit} and
+   * {@code order}. If no limit is given, the page is unlimited.
+   *
+   * @param parameters The individual search and page parameters
+   *
+   * @return A parsed page request
+   */
+
+  public static CoffeePickSearchPageRequest parseSearchPageParameters(
+    final List<String> parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var builder = CoffeePickSearch.builder();
+    final var page_builder =
+      CoffeePickSearchPageRequest.builder()
+        .setLimit(Integer.MAX_VALUE);
+
+    parseAttributes(parameters, builder, PAGE_PARSERS_BY_NAME, page_builder);
+    return page_builder.setSearch(builder.build()).build();
+  }
+
+  private static void parseAttributes(
+    final List<String> parameters,
+    final CoffeePickSearch.Builder builder,
+    final Map<String, PageAttributeParserType> page_parsers,
+    final CoffeePickSearchPageRequest.Builder page_builder)
+  {
+    final var separator = System.lineSeparator();
     for (final var parameter : parameters) {
       final var colon = parameter.indexOf(':');
       if (colon == -1 || parameter.length() <= colon) {
@@ -85,20 +131,24 @@ public final class CoffeePickShellSearchParameters
       }
 
       final var attribute = parameter.substring(0, colon);
+      final var value = parameter.substring(colon + 1);
 
       if (PARSERS_BY_NAME.containsKey(attribute)) {
-        final var value = parameter.substring(colon + 1);
         PARSERS_BY_NAME.get(attribute).parse(builder, value);
+      } else if (page_parsers.containsKey(attribute)) {
+        page_parsers.get(attribute).parse(page_builder, value);
       } else {
+        final var expected =
+          Stream.concat(PARSERS_BY_NAME.keySet().stream(), page_parsers.keySet().stream())
+            .sorted()
+            .collect(Collectors.joining("|"));
+
         throw new IllegalArgumentException(
           new StringBuilder(64)
             .append("Unrecognized search parameter.")
             .append(separator)
             .append("  Expected: One of ")
-            .append(PARSERS_BY_NAME.keySet()
-                      .stream()
-                      .sorted()
-                      .collect(Collectors.joining("|")))
+            .append(expected)
             .append(separator)
             .append("  Received: ")
             .append(parameter)
@@ -106,8 +156,6 @@ public final class CoffeePickShellSearchParameters
             .toString());
       }
     }
-
-    return builder.build();
   }
 
   private interface AttributeParserType
@@ -119,6 +167,101 @@ public final class CoffeePickShellSearchParameters
       String value);
   }
 
+  private interface PageAttributeParserType
+  {
+    String name();
+
+    void parse(
+      CoffeePickSearchPageRequest.Builder builder,
+      String value);
+  }
+
+  private static final class AttributeLimit implements PageAttributeParserType
+  {
+    AttributeLimit()
+    {
+
+    }
+
+    @Override
+    public String name()
+    {
+      return "limit";
+    }
+
+    @Override
+    public void parse(
+      final CoffeePickSearchPageRequest.Builder builder,
+      final String value)
+    {
+      int limit;
+      try {
+        limit = Integer.parseInt(value);
+      } catch (final NumberFormatException e) {
+        limit = 0;
+      }
+
+      if (limit < 1) {
+        final var separator = System.lineSeparator();
+        throw new IllegalArgumentException(
+          new StringBuilder(64)
+            .append("Invalid page limit.")
+            .append(separator)
+            .append("  Expected: A positive integer")
+            .append(separator)
+            .append("  Received: ")
+            .append(value)
+            .append(separator)
+            .toString());
+      }
+      builder.setLimit(limit);
+    }
+  }
+
+  private static final class AttributeOrder implements PageAttributeParserType
+  {
+    AttributeOrder()
+    {
+
+    }
+
+    @Override
+    public String name()
+    {
+      return "order";
+    }
+
+    @Override
+    public void parse(
+      final CoffeePickSearchPageRequest.Builder builder,
+      final String value)
+    {
+      switch (value) {
+        case "oldest": {
+          builder.setOrder(CoffeePickSearchOrder.VERSION_ASCENDING);
+          break;
+        }
+        case "newest": {
+          builder.setOrder(CoffeePickSearchOrder.VERSION_DESCENDING);
+          break;
+        }
+        default: {
+          final var separator = System.lineSeparator();
+          throw new IllegalArgumentException(
+            new StringBuilder(64)
+              .append("Unrecognized result order.")
+              .append(separator)
+              .append("  Expected: oldest|newest")
+              .append(separator)
+              .append("  Received: ")
+              .append(value)
+              .append(separator)
+              .toString());
+        }
+      }
+    }
+  }
+
   private static final class AttributeRequireTag implements AttributeParserType
   {
     AttributeRequireTag()
@@ -22,12 +22,15 @@ import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateFailed;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateFinished;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateRunning;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateStarted;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEvents;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryType;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import com.io7m.coffeepick.runtime.RuntimeRepositoryBranding;
 import com.io7m.coffeepick.runtime.RuntimeRepositoryDescription;
 import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabase;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseConfigurations;
 import com.io7m.coffeepick.shipilev_net.internal.ASArchiveResolver;
 import com.io7m.coffeepick.shipilev_net.internal.ASFileList;
 import io.reactivex.rxjava3.core.Observable;
@@ -81,10 +84,18 @@ public final class ASRepository implements RuntimeRepositoryType
       Objects.requireNonNull(in_provider, "provider");
 
     this.database =
-      RuntimeDescriptionDatabase.open(context.cacheDirectory().resolve("shipilev.net"));
+      RuntimeDescriptionDatabase.open(
+        context.cacheDirectory().resolve("shipilev.net"),
+        RuntimeDescriptionDatabaseConfigurations.forRepository(
+          context.retainedRuntimesPerMajorVersion()));
 
     Objects.requireNonNull(context, "context");
     this.events = PublishSubject.<RuntimeRepositoryEventType>create().toSerialized();
+
+    RuntimeRepositoryEvents.publishRuntimesChanged(
+      this.provider.uri(),
+      this.database.changes(),
+      this.events);
   }
 
   @Override
@@ -137,13 +148,14 @@ public final class ASRepository implements RuntimeRepositoryType
         runtimes.put(runtime_id, runtime);
       }
 
+      final var transaction = this.database.transaction();
       var index = 0;
       for (final var runtime : runtimes.values()) {
         if (cancelled.getAsBoolean()) {
           throw new CancellationException();
         }
 
-        this.database.add(runtime);
+        transaction.add(runtime);
         this.events.onNext(
           RuntimeRepositoryEventUpdateRunning.builder()
             .setRepository(this.provider.uri())
@@ -154,10 +166,18 @@ public final class ASRepository implements RuntimeRepositoryType
 
       for (final var database_runtime : this.database.descriptions().keySet()) {
         if (!runtimes.containsKey(database_runtime)) {
-          this.database.delete(database_runtime);
+          transaction.delete(database_runtime);
         }
       }
 
+      final var result = transaction.commit();
+      LOG.info(
+        "{} added, {} changed, {} unchanged, {} removed",
+        Integer.valueOf(result.added()),
+        Integer.valueOf(result.changed()),
+        Integer.valueOf(result.unchanged()),
+        Integer.valueOf(result.removed()));
+
       this.events.onNext(
         RuntimeRepositoryEventUpdateFinished.builder()
           .setRepository(this.provider.uri())
@@ -200,6 +220,19 @@ public final class ASRepository implements RuntimeRepositoryType
     return this.database.descriptions();
   }
 
+  @Override
+  public boolean isSearchIndexed()
+  {
+    return true;
+  }
+
+  @Override
+  public Map<String, RuntimeDescription> search(
+    final RuntimeDescriptionQuery query)
+  {
+    return this.database.search(query);
+  }
+
   @Override
   public RuntimeRepositoryDescription description()
   {
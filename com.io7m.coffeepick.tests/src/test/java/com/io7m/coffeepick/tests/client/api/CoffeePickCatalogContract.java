@@ -18,7 +18,15 @@ package com.io7m.coffeepick.tests.client.api;
 
 import com.io7m.coffeepick.api.CoffeePickCatalogEventType;
 import com.io7m.coffeepick.api.CoffeePickCatalogType;
+import com.io7m.coffeepick.api.CoffeePickLatestKey;
+import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchOrder;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
+import com.io7m.coffeepick.api.CoffeePickSearches;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryContextType;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventRuntimesChanged;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventType;
+import com.io7m.coffeepick.repository.spi.RuntimeRepositoryEventUpdateFinished;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryEvent;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryEventType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryType;
@@ -26,7 +34,10 @@ import com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderType;
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryType;
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
 import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+import com.io7m.coffeepick.runtime.RuntimeVersionRange;
 import com.io7m.coffeepick.runtime.RuntimeVersions;
 import io.reactivex.rxjava3.subjects.PublishSubject;
 import io.reactivex.rxjava3.subjects.Subject;
@@ -37,10 +48,19 @@ import org.mockito.Mockito;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryEventType.Change.ADDED;
 import static com.io7m.coffeepick.repository.spi.RuntimeRepositoryProviderRegistryEventType.Change.REMOVED;
@@ -174,4 +194,1121 @@ public abstract class CoffeePickCatalogContract
       provider));
     Assertions.assertEquals(0L, catalog.searchAll().size());
   }
+
+  @Test
+  public final void testSearchIndexed()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var description0 =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcd"))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com/0"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abce"))
+        .setArchiveURI(URI.create("https://www.example.com/1"))
+        .setPlatform("windows")
+        .setTags(Set.of("production"))
+        .build();
+    final var description2 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcf"))
+        .setArchiveURI(URI.create("https://www.example.com/2"))
+        .setConfiguration(RuntimeConfiguration.JRE)
+        .setTags(Set.of("production"))
+        .build();
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(
+      description0.id(), description0,
+      description1.id(), description1));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var linux =
+      CoffeePickSearch.builder()
+        .setPlatform("linux")
+        .build();
+    final var production =
+      CoffeePickSearch.builder()
+        .addRequiredTags("production")
+        .build();
+
+    /*
+     * The first search is answered by the repository, and the following searches are answered
+     * by the catalog's own index.
+     */
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      Assertions.assertEquals(Set.of(description0.id()), catalog.search(linux).keySet());
+      Assertions.assertEquals(Set.of(description1.id()), catalog.search(production).keySet());
+      Assertions.assertEquals(2, catalog.searchAll().size());
+      Assertions.assertEquals(
+        0,
+        catalog.search(CoffeePickSearch.builder().setPlatform("solaris").build()).size());
+    }
+
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(
+      description0.id(), description0,
+      description2.id(), description2));
+    update_events.onNext(RuntimeRepositoryEventUpdateFinished.builder()
+                           .setRepository(uri)
+                           .build());
+
+    Assertions.assertEquals(
+      Set.of(description0.id(), description2.id()),
+      catalog.search(linux).keySet());
+    Assertions.assertEquals(Set.of(description2.id()), catalog.search(production).keySet());
+  }
+
+  @Test
+  public final void testSearchIndexUpdatedWhileBuilding()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var description0 =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcd"))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com/0"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abce"))
+        .setArchiveURI(URI.create("https://www.example.com/1"))
+        .build();
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+
+    /*
+     * When "updating" is set, the next read of the repository's runtimes returns the old
+     * runtimes, but an update of the repository finishes before the read returns. This simulates
+     * an update that finishes while the catalog is building an index of the repository.
+     */
+
+    final var old_runtimes = Map.of(description0.id(), description0);
+    final var new_runtimes =
+      Map.of(description0.id(), description0, description1.id(), description1);
+    final var current = new AtomicReference<>(old_runtimes);
+    final var updating = new AtomicBoolean(false);
+
+    Mockito.when(repository.runtimes()).thenAnswer(invocation -> {
+      if (updating.getAndSet(false)) {
+        final var result = current.getAndSet(new_runtimes);
+        update_events.onNext(RuntimeRepositoryEventUpdateFinished.builder()
+                               .setRepository(uri)
+                               .build());
+        return result;
+      }
+      return current.get();
+    });
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var linux = CoffeePickSearch.builder().setPlatform("linux").build();
+    Assertions.assertEquals(1, catalog.searchAll().size());
+
+    updating.set(true);
+    catalog.search(linux);
+
+    /*
+     * The index built from the old runtimes must not be retained.
+     */
+
+    Assertions.assertEquals(2, catalog.searchAll().size());
+    Assertions.assertEquals(2, catalog.search(linux).size());
+    Assertions.assertTrue(catalog.searchExact(description1.id()).isPresent());
+  }
+
+  @Test
+  public final void testSearchRuntimesChanged()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var description0 =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcd"))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com/0"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abce"))
+        .setArchiveURI(URI.create("https://www.example.com/1"))
+        .setVersion(RuntimeVersions.parse("11.0.2"))
+        .build();
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    final var current =
+      new AtomicReference<>(Map.of(description0.id(), description0));
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+    Mockito.when(repository.runtimes()).thenAnswer(invocation -> current.get());
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    /*
+     * Search twice so that the repository is indexed.
+     */
+
+    final var linux = CoffeePickSearch.builder().setPlatform("linux").build();
+    Assertions.assertEquals(
+      Map.of(description0.id(), description0), catalog.search(linux));
+    Assertions.assertEquals(
+      Map.of(description0.id(), description0), catalog.search(linux));
+    Assertions.assertTrue(catalog.searchExact(description0.id()).isPresent());
+
+    /*
+     * The runtimes change without an update, as happens when another process commits to the
+     * repository's database.
+     */
+
+    current.set(Map.of(description1.id(), description1));
+    update_events.onNext(
+      RuntimeRepositoryEventRuntimesChanged.builder()
+        .setRepository(uri)
+        .build());
+
+    Assertions.assertEquals(
+      Map.of(description1.id(), description1), catalog.search(linux));
+    Assertions.assertEquals(
+      Map.of(description1.id(), description1), catalog.search(linux));
+    Assertions.assertFalse(catalog.searchExact(description0.id()).isPresent());
+    Assertions.assertTrue(catalog.searchExact(description1.id()).isPresent());
+  }
+
+  @Test
+  public final void testSearchVersionOrdered()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var runtimes = new HashMap<String, RuntimeDescription>();
+    for (final var version : List.of("17.0.1", "11.0.2", "21.0.0", "11.0.1", "17.0.0", "8.0.0")) {
+      final var description =
+        RuntimeDescription.builder()
+          .setRepository(URI.create("urn:example"))
+          .setArchitecture("x64")
+          .setArchiveHash(RuntimeHash.of("SHA-256", "abcd" + version.replace(".", "")))
+          .setArchiveSize(100L)
+          .setArchiveURI(URI.create("https://www.example.com/" + version))
+          .setConfiguration(RuntimeConfiguration.JDK)
+          .setPlatform("linux")
+          .setVersion(RuntimeVersions.parse(version))
+          .setVm("hotspot")
+          .build();
+      runtimes.put(description.id(), description);
+    }
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:0.0"));
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var range =
+      CoffeePickSearch.builder()
+        .setVersionRange(RuntimeVersionRange.of(
+          RuntimeVersions.parse("11.0.1"), true,
+          RuntimeVersions.parse("21.0.0"), false))
+        .build();
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      Assertions.assertEquals(
+        versions("11.0.2", "17.0.0", "17.0.1", "21.0.0"),
+        catalog.search(range)
+          .values()
+          .stream()
+          .map(RuntimeDescription::version)
+          .collect(Collectors.toList()));
+      Assertions.assertEquals(
+        versions("8.0.0", "11.0.1", "11.0.2", "17.0.0", "17.0.1", "21.0.0"),
+        catalog.searchAll()
+          .values()
+          .stream()
+          .map(RuntimeDescription::version)
+          .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public final void testSearchInexact()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var runtimes = new HashMap<String, RuntimeDescription>();
+    final var platforms = List.of("Linux", "linux-musl", "windows", "macos");
+    for (var index = 0; index < 16; ++index) {
+      final var hash =
+        String.format("%08x%08x", Integer.valueOf(index * 7919), Integer.valueOf(index));
+      final var description =
+        RuntimeDescription.builder()
+          .setRepository(URI.create("urn:example"))
+          .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+          .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+          .setArchiveSize(100L)
+          .setArchiveURI(URI.create("https://www.example.com/" + hash))
+          .setConfiguration(RuntimeConfiguration.JDK)
+          .setPlatform(platforms.get(index % platforms.size()))
+          .setVersion(RuntimeVersions.parse("11.0." + index))
+          .setVm("hotspot")
+          .build();
+      runtimes.put(description.id(), description);
+    }
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:0.0"));
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var searches = List.of(
+      CoffeePickSearch.builder().setPlatform("LIN").build(),
+      CoffeePickSearch.builder().setPlatform("x").setArchitecture("X6").build(),
+      CoffeePickSearch.builder().setId("00001EF").build(),
+      CoffeePickSearch.builder().setId("0000000").build(),
+      CoffeePickSearch.builder().setId("f").build(),
+      CoffeePickSearch.builder().setId("zzz").build(),
+      CoffeePickSearch.builder().setVm("SPOT").setRepository("EXAMPLE").build());
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      for (final var search : searches) {
+        final var expected =
+          runtimes.values()
+            .stream()
+            .filter(runtime -> CoffeePickSearches.matchesInexact(runtime, search))
+            .sorted(CoffeePickSearches.runtimeOrder())
+            .collect(Collectors.toList());
+        Assertions.assertEquals(
+          expected,
+          List.copyOf(catalog.searchInexact(search).values()),
+          search.toString());
+      }
+    }
+
+    Assertions.assertEquals(8, catalog.searchInexact(searches.get(0)).size());
+    Assertions.assertEquals(0, catalog.searchInexact(searches.get(5)).size());
+  }
+
+  @Test
+  public final void testSearchCached()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var description0 =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcd"))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com/0"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abce"))
+        .setArchiveURI(URI.create("https://www.example.com/1"))
+        .build();
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(description0.id(), description0));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var linux =
+      CoffeePickSearch.builder()
+        .setPlatform("linux")
+        .build();
+
+    /*
+     * Repeating a search does not touch the repository again.
+     */
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      Assertions.assertEquals(Set.of(description0.id()), catalog.search(linux).keySet());
+    }
+    Mockito.verify(repository, Mockito.times(1)).runtimes();
+
+    /*
+     * Any update of the repository discards the cached results.
+     */
+
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(
+      description0.id(), description0,
+      description1.id(), description1));
+    update_events.onNext(RuntimeRepositoryEventUpdateFinished.builder()
+                           .setRepository(uri)
+                           .build());
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      Assertions.assertEquals(
+        Set.of(description0.id(), description1.id()),
+        catalog.search(linux).keySet());
+    }
+
+    /*
+     * The runtimes were examined once by the first search, and once to build the index
+     * for the search following the update.
+     */
+
+    Mockito.verify(repository, Mockito.times(2)).runtimes();
+  }
+
+  @Test
+  public final void testSearchExactIndexed()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var description0 =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abcd"))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com/0"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description0)
+        .setArchiveHash(RuntimeHash.of("SHA-256", "abce"))
+        .setArchiveURI(URI.create("https://www.example.com/1"))
+        .build();
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(description0.id(), description0));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    /*
+     * Before the repository is indexed, the repository is asked directly.
+     */
+
+    Assertions.assertEquals(Optional.of(description0), catalog.searchExact(description0.id()));
+    Assertions.assertEquals(Optional.empty(), catalog.searchExact(description1.id()));
+
+    /*
+     * A second, different search indexes the repository, after which lookups do not touch the repository.
+     */
+
+    catalog.searchAll();
+    catalog.search(CoffeePickSearch.builder().setPlatform("linux").build());
+    Mockito.clearInvocations(repository);
+
+    for (var attempt = 0; attempt < 3; ++attempt) {
+      Assertions.assertEquals(Optional.of(description0), catalog.searchExact(description0.id()));
+      Assertions.assertEquals(Optional.empty(), catalog.searchExact(description1.id()));
+    }
+    Mockito.verify(repository, Mockito.never()).runtimes();
+
+    /*
+     * Updates of the repository are reflected in lookups.
+     */
+
+    Mockito.when(repository.runtimes()).thenReturn(Map.of(description1.id(), description1));
+    update_events.onNext(RuntimeRepositoryEventUpdateFinished.builder()
+                           .setRepository(uri)
+                           .build());
+
+    Assertions.assertEquals(Optional.empty(), catalog.searchExact(description0.id()));
+    Assertions.assertEquals(Optional.of(description1), catalog.searchExact(description1.id()));
+
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(REMOVED, provider));
+    Assertions.assertEquals(Optional.empty(), catalog.searchExact(description1.id()));
+  }
+
+  @Test
+  public final void testSearchPage()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var runtimes = new HashMap<String, RuntimeDescription>();
+    for (var index = 0; index < 20; ++index) {
+      final var hash =
+        String.format("%08x%08x", Integer.valueOf(index * 7919), Integer.valueOf(index));
+      final var description =
+        RuntimeDescription.builder()
+          .setRepository(URI.create("urn:example"))
+          .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+          .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+          .setArchiveSize(100L)
+          .setArchiveURI(URI.create("https://www.example.com/" + hash))
+          .setConfiguration(RuntimeConfiguration.JDK)
+          .setPlatform("linux")
+          .setVersion(RuntimeVersions.parse((11 + index % 3) + ".0." + index))
+          .setVm("hotspot")
+          .build();
+      runtimes.put(description.id(), description);
+    }
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:0.0"));
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var search =
+      CoffeePickSearch.builder()
+        .setArchitecture("x64")
+        .build();
+
+    /*
+     * The first page is produced before the repository is indexed, and the remaining pages from
+     * the index.
+     */
+
+    for (final var order : CoffeePickSearchOrder.values()) {
+      final var expected =
+        runtimes.values()
+          .stream()
+          .filter(runtime -> CoffeePickSearches.matchesExact(runtime, search))
+          .sorted(CoffeePickSearches.runtimeOrder(order))
+          .collect(Collectors.toList());
+
+      final var received = new ArrayList<RuntimeDescription>();
+      var request =
+        Optional.of(
+          CoffeePickSearchPageRequest.builder()
+            .setSearch(search)
+            .setOrder(order)
+            .setLimit(3)
+            .build());
+
+      var pages = 0;
+      while (request.isPresent()) {
+        final var page = catalog.searchPage(request.get());
+        Assertions.assertTrue(page.runtimes().size() <= 3);
+        received.addAll(page.runtimes());
+        request = page.next();
+        ++pages;
+      }
+
+      Assertions.assertEquals(expected, received);
+      Assertions.assertEquals(4, pages);
+    }
+
+    final var newest =
+      catalog.searchPage(
+        CoffeePickSearchPageRequest.builder()
+          .setSearch(CoffeePickSearch.builder().build())
+          .setOrder(CoffeePickSearchOrder.VERSION_DESCENDING)
+          .setLimit(1)
+          .build());
+
+    Assertions.assertEquals(
+      RuntimeVersions.parse("13.0.17"),
+      newest.runtimes().get(0).version());
+  }
+
+  @Test
+  public final void testSearchParallel()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+
+    /*
+     * Each repository is large enough that searches of its index are divided into segments, and
+     * the repositories share some runtimes.
+     */
+
+    final var all = new HashMap<String, RuntimeDescription>();
+    for (var repository_index = 0; repository_index < 3; ++repository_index) {
+      final var runtimes = new HashMap<String, RuntimeDescription>();
+      final var start = repository_index * 10_000;
+      for (var index = start; index < start + 12_000; ++index) {
+        final var hash = String.format("%016x", Integer.valueOf(index));
+        final var description =
+          RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com/" + hash))
+            .setConfiguration(RuntimeConfiguration.JDK)
+            .setPlatform(index % 3 == 0 ? "windows" : "linux")
+            .setVersion(RuntimeVersions.parse((8 + index % 10) + ".0." + index))
+            .setVm("hotspot")
+            .build();
+        runtimes.put(description.id(), description);
+      }
+      all.putAll(runtimes);
+
+      final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+      final var repository = Mockito.mock(RuntimeRepositoryType.class);
+      Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:" + repository_index));
+      Mockito.when(provider.openRepository(context)).thenReturn(repository);
+      Mockito.when(repository.provider()).thenReturn(provider);
+      Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+      repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+    }
+
+    /*
+     * The first search is answered by the repositories, and the following searches by the
+     * indexes.
+     */
+
+    final var searches = List.of(
+      CoffeePickSearch.builder().setPlatform("linux").build(),
+      CoffeePickSearch.builder().build(),
+      CoffeePickSearch.builder().setArchitecture("x64").setPlatform("windows").build());
+
+    for (var attempt = 0; attempt < 2; ++attempt) {
+      for (final var search : searches) {
+        final var expected =
+          all.values()
+            .stream()
+            .filter(runtime -> CoffeePickSearches.matchesExact(runtime, search))
+            .sorted(CoffeePickSearches.runtimeOrder())
+            .collect(Collectors.toList());
+        Assertions.assertEquals(
+          expected,
+          List.copyOf(catalog.search(search).values()),
+          search.toString());
+      }
+    }
+
+    final var inexact = CoffeePickSearch.builder().setPlatform("IN").build();
+    Assertions.assertEquals(
+      all.values()
+        .stream()
+        .filter(runtime -> CoffeePickSearches.matchesInexact(runtime, inexact))
+        .sorted(CoffeePickSearches.runtimeOrder())
+        .collect(Collectors.toList()),
+      List.copyOf(catalog.searchInexact(inexact).values()));
+  }
+
+  @Test
+  public final void testSearchLatest()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+    final var update_events =
+      PublishSubject.<RuntimeRepositoryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var runtimes = new HashMap<String, RuntimeDescription>();
+    for (final var version : List.of("11.0.1", "11.0.12", "11.0.9", "17.0.1", "17.0.10+7")) {
+      for (final var platform : List.of("linux", "windows")) {
+        final var hash = hashOf(platform + version);
+        final var description =
+          RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture("x64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com/" + hash))
+            .setConfiguration(RuntimeConfiguration.JDK)
+            .setPlatform(platform)
+            .setVersion(RuntimeVersions.parse(version))
+            .setVm("hotspot")
+            .build();
+        runtimes.put(description.id(), description);
+      }
+    }
+
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    final var uri = URI.create("urn:example:0.0");
+
+    Mockito.when(provider.uri()).thenReturn(uri);
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.events()).thenReturn(update_events);
+    Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var key11 =
+      CoffeePickLatestKey.builder()
+        .setRepository(URI.create("urn:example"))
+        .setPlatform("linux")
+        .setArchitecture("x64")
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setVm("hotspot")
+        .setMajor(BigInteger.valueOf(11L))
+        .build();
+    final var key17 =
+      CoffeePickLatestKey.builder()
+        .from(key11)
+        .setMajor(BigInteger.valueOf(17L))
+        .build();
+    final var key21 =
+      CoffeePickLatestKey.builder()
+        .from(key11)
+        .setMajor(BigInteger.valueOf(21L))
+        .build();
+
+    /*
+     * The first lookups are answered before the repository is indexed, and the remaining lookups
+     * from the views.
+     */
+
+    for (var attempt = 0; attempt < 2; ++attempt) {
+      Assertions.assertEquals(
+        RuntimeVersions.parse("11.0.12"),
+        catalog.searchLatest(key11).orElseThrow().version());
+      Assertions.assertEquals(
+        RuntimeVersions.parse("17.0.10+7"),
+        catalog.searchLatest(key17).orElseThrow().version());
+      Assertions.assertEquals(Optional.empty(), catalog.searchLatest(key21));
+      catalog.searchAll();
+      catalog.search(CoffeePickSearch.builder().setPlatform("linux").build());
+    }
+
+    final var newer =
+      RuntimeDescription.builder()
+        .from(catalog.searchLatest(key17).orElseThrow())
+        .setArchiveHash(RuntimeHash.of("SHA-256", hashOf("newer")))
+        .setVersion(RuntimeVersions.parse("17.0.11"))
+        .build();
+    runtimes.put(newer.id(), newer);
+
+    Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+    update_events.onNext(RuntimeRepositoryEventUpdateFinished.builder()
+                           .setRepository(uri)
+                           .build());
+
+    Assertions.assertEquals(Optional.of(newer), catalog.searchLatest(key17));
+    Assertions.assertEquals(
+      RuntimeVersions.parse("11.0.12"),
+      catalog.searchLatest(key11).orElseThrow().version());
+
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(REMOVED, provider));
+    Assertions.assertEquals(Optional.empty(), catalog.searchLatest(key17));
+  }
+
+  @Test
+  public final void testFacets()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+
+    /*
+     * The repositories share some runtimes, which must be counted once.
+     */
+
+    final var all = new HashMap<String, RuntimeDescription>();
+    for (var repository_index = 0; repository_index < 2; ++repository_index) {
+      final var runtimes = new HashMap<String, RuntimeDescription>();
+      final var start = repository_index * 60;
+      for (var index = start; index < start + 100; ++index) {
+        final var hash = String.format("%016x", Integer.valueOf(index));
+        final var description =
+          RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com/" + hash))
+            .setConfiguration(index % 5 == 0 ? RuntimeConfiguration.JRE : RuntimeConfiguration.JDK)
+            .setPlatform(index % 3 == 0 ? "windows" : "linux")
+            .setVersion(RuntimeVersions.parse((8 + index % 4) + ".0." + index))
+            .setVm(index % 7 == 0 ? "openj9" : "hotspot")
+            .setTags(index % 2 == 0 ? Set.of("production", "lts") : Set.of("early-access"))
+            .build();
+        runtimes.put(description.id(), description);
+      }
+      all.putAll(runtimes);
+
+      final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+      final var repository = Mockito.mock(RuntimeRepositoryType.class);
+      Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:" + repository_index));
+      Mockito.when(provider.openRepository(context)).thenReturn(repository);
+      Mockito.when(repository.provider()).thenReturn(provider);
+      Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+      repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+    }
+
+    /*
+     * The first counts are taken from the repositories, and the following counts from the
+     * indexes.
+     */
+
+    final var searches = List.of(
+      CoffeePickSearch.builder().build(),
+      CoffeePickSearch.builder().setPlatform("linux").build(),
+      CoffeePickSearch.builder().setVm("openj9").addRequiredTags("lts").build());
+
+    for (var attempt = 0; attempt < 2; ++attempt) {
+      for (final var search : searches) {
+        final var expected =
+          CoffeePickSearches.facetsOf(
+            all.values()
+              .stream()
+              .filter(runtime -> CoffeePickSearches.matchesExact(runtime, search))
+              .collect(Collectors.toList()));
+        Assertions.assertEquals(expected, catalog.facets(search), search.toString());
+      }
+    }
+
+    final var facets = catalog.facets(CoffeePickSearch.builder().build());
+    Assertions.assertEquals(160L, facets.count());
+    Assertions.assertEquals(Long.valueOf(80L), facets.architectures().get("x64"));
+    Assertions.assertEquals(Long.valueOf(80L), facets.tags().get("lts"));
+    Assertions.assertEquals(Long.valueOf(80L), facets.tags().get("early-access"));
+    Assertions.assertEquals(
+      Long.valueOf(32L),
+      facets.configurations().get(RuntimeConfiguration.JRE));
+    Assertions.assertEquals(Long.valueOf(40L), facets.majorVersions().get(BigInteger.valueOf(8L)));
+    Assertions.assertEquals(
+      CoffeePickSearches.facetsOf(catalog.searchAll().values()),
+      facets);
+  }
+
+  @Test
+  public final void testSearchBatch()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+
+    final var all = new HashMap<String, RuntimeDescription>();
+    final var repository_mocks = new ArrayList<RuntimeRepositoryType>();
+    for (var repository_index = 0; repository_index < 2; ++repository_index) {
+      final var runtimes = new HashMap<String, RuntimeDescription>();
+      final var start = repository_index * 60;
+      for (var index = start; index < start + 100; ++index) {
+        final var hash = String.format("%016x", Integer.valueOf(index));
+        final var description =
+          RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com/" + hash))
+            .setConfiguration(RuntimeConfiguration.JDK)
+            .setPlatform(index % 3 == 0 ? "windows" : "linux")
+            .setVersion(RuntimeVersions.parse((8 + index % 4) + ".0." + index))
+            .setVm("hotspot")
+            .build();
+        runtimes.put(description.id(), description);
+      }
+      all.putAll(runtimes);
+
+      final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+      final var repository = Mockito.mock(RuntimeRepositoryType.class);
+      Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:" + repository_index));
+      Mockito.when(provider.openRepository(context)).thenReturn(repository);
+      Mockito.when(repository.provider()).thenReturn(provider);
+      Mockito.when(repository.runtimes()).thenReturn(Map.copyOf(runtimes));
+      repository_mocks.add(repository);
+      repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+    }
+
+    final var linux = CoffeePickSearch.builder().setPlatform("linux").build();
+    final var searches = List.of(
+      linux,
+      CoffeePickSearch.builder().build(),
+      CoffeePickSearch.builder().setArchitecture("x64").setPlatform("windows").build(),
+      CoffeePickSearch.builder()
+        .setVersionRange(RuntimeVersionRange.of(
+          RuntimeVersions.parse("9.0.0"), false,
+          RuntimeVersions.parse("10.0.0"), true))
+        .build(),
+      CoffeePickSearch.builder().setPlatform("solaris").build(),
+      linux);
+
+    /*
+     * The first batch is evaluated in a single pass over the runtimes selected from each
+     * repository, and the second batch from the indexes. One of the searches selects every
+     * runtime, so the repositories are asked for every runtime.
+     */
+
+    for (var attempt = 0; attempt < 2; ++attempt) {
+      final var results = catalog.searchBatch(searches);
+      Assertions.assertEquals(searches.size(), results.size());
+      for (var index = 0; index < searches.size(); ++index) {
+        final var search = searches.get(index);
+        final var expected =
+          all.values()
+            .stream()
+            .filter(runtime -> CoffeePickSearches.matchesExact(runtime, search))
+            .sorted(CoffeePickSearches.runtimeOrder())
+            .collect(Collectors.toList());
+        Assertions.assertEquals(
+          expected,
+          List.copyOf(results.get(index).values()),
+          search.toString());
+      }
+
+      for (final var repository : repository_mocks) {
+        Mockito.verify(repository, Mockito.times(attempt + 1)).runtimes();
+      }
+    }
+
+    Assertions.assertEquals(List.of(), catalog.searchBatch(List.of()));
+  }
+
+  @Test
+  public final void testSearchBatchNarrowed()
+    throws IOException
+  {
+    final var repo_events =
+      PublishSubject.<RuntimeRepositoryProviderRegistryEventType>create();
+
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    final var repositories = Mockito.mock(RuntimeRepositoryProviderRegistryType.class);
+    final var http = Mockito.mock(HttpClient.class);
+    Mockito.when(repositories.events()).thenReturn(repo_events);
+
+    final var catalog = this.catalog(this.events, http, context, repositories);
+
+    final var runtimes = new HashMap<String, RuntimeDescription>();
+    for (var index = 0; index < 100; ++index) {
+      final var hash = String.format("%016x", Integer.valueOf(index));
+      final var description =
+        RuntimeDescription.builder()
+          .setRepository(URI.create("urn:example"))
+          .setArchitecture(index % 2 == 0 ? "x64" : "aarch64")
+          .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+          .setArchiveSize(100L)
+          .setArchiveURI(URI.create("https://www.example.com/" + hash))
+          .setConfiguration(RuntimeConfiguration.JDK)
+          .setPlatform(index % 3 == 0 ? "windows" : "linux")
+          .setVersion(RuntimeVersions.parse((8 + index % 4) + ".0." + index))
+          .setVm("hotspot")
+          .build();
+      runtimes.put(description.id(), description);
+    }
+
+    /*
+     * The repository answers queries without exposing its full set of runtimes, as an indexed
+     * database would.
+     */
+
+    final var queries = new ArrayList<RuntimeDescriptionQuery>();
+    final var provider = Mockito.mock(RuntimeRepositoryProviderType.class);
+    final var repository = Mockito.mock(RuntimeRepositoryType.class);
+    Mockito.when(provider.uri()).thenReturn(URI.create("urn:example:0"));
+    Mockito.when(provider.openRepository(context)).thenReturn(repository);
+    Mockito.when(repository.provider()).thenReturn(provider);
+    Mockito.when(repository.isSearchIndexed()).thenReturn(Boolean.TRUE);
+    Mockito.when(repository.search(Mockito.any())).thenAnswer(invocation -> {
+      final RuntimeDescriptionQuery query = invocation.getArgument(0);
+      queries.add(query);
+      return runtimes.values()
+        .stream()
+        .filter(query::matches)
+        .collect(Collectors.toMap(RuntimeDescription::id, runtime -> runtime));
+    });
+    repo_events.onNext(RuntimeRepositoryProviderRegistryEvent.of(ADDED, provider));
+
+    final var searches = List.of(
+      CoffeePickSearch.builder().setPlatform("linux").setArchitecture("x64").build(),
+      CoffeePickSearch.builder().setPlatform("linux").setArchitecture("aarch64").build());
+
+    final var results = catalog.searchBatch(searches);
+    for (var index = 0; index < searches.size(); ++index) {
+      final var search = searches.get(index);
+      final var expected =
+        runtimes.values()
+          .stream()
+          .filter(runtime -> CoffeePickSearches.matchesExact(runtime, search))
+          .sorted(CoffeePickSearches.runtimeOrder())
+          .collect(Collectors.toList());
+      Assertions.assertEquals(expected, List.copyOf(results.get(index).values()));
+    }
+
+    Assertions.assertEquals(
+      List.of(RuntimeDescriptionQuery.builder().setPlatform("linux").build()),
+      queries);
+    Mockito.verify(repository, Mockito.never()).runtimes();
+  }
+
+  private static String hashOf(
+    final String text)
+  {
+    return String.format(
+      "%016x%016x",
+      Integer.valueOf(text.hashCode()),
+      Integer.valueOf(text.length()));
+  }
+
+  private static List<RuntimeVersion> versions(
+    final String... versions)
+  {
+    return Stream.of(versions)
+      .map(RuntimeVersions::parse)
+      .collect(Collectors.toList());
+  }
 }
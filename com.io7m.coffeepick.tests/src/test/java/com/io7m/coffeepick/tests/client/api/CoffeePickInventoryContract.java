@@ -22,6 +22,8 @@ import com.io7m.coffeepick.api.CoffeePickInventoryEventRuntimeLoaded;
 import com.io7m.coffeepick.api.CoffeePickInventoryEventType;
 import com.io7m.coffeepick.api.CoffeePickInventoryType;
 import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchOrder;
+import com.io7m.coffeepick.api.CoffeePickSearchPageRequest;
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
 import com.io7m.coffeepick.runtime.RuntimeHash;
@@ -37,6 +39,7 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -45,6 +48,9 @@ import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -132,7 +138,11 @@ public abstract class CoffeePickInventoryContract
     Assertions.assertTrue(results.containsKey(HASH_VALUE));
 
     Assertions.assertEquals(
-      this.directory.resolve(HASH_VALUE).resolve("archive"),
+      this.directory.resolve("2c")
+        .resolve("f2")
+        .resolve(HASH_VALUE)
+        .resolve("archive")
+        .toAbsolutePath(),
       inventory.pathOf(HASH_VALUE).get());
 
     Assertions.assertEquals(1L, this.event_log.size());
@@ -323,6 +333,156 @@ public abstract class CoffeePickInventoryContract
     }
   }
 
+  @Test
+  public final void testWriteDeleteSearchRepeated()
+    throws Exception
+  {
+    final var inventory = this.inventory(this.events, this.directory);
+
+    final var description =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", HASH_VALUE))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+
+    final var search =
+      CoffeePickSearch.builder()
+        .setPlatform("linux")
+        .build();
+
+    Assertions.assertEquals(0L, inventory.search(search).size());
+    Assertions.assertEquals(0L, inventory.search(search).size());
+
+    inventory.write(
+      description,
+      stream -> stream.write("hello".getBytes(UTF_8)));
+
+    Assertions.assertEquals(Set.of(HASH_VALUE), inventory.search(search).keySet());
+    Assertions.assertEquals(Set.of(HASH_VALUE), inventory.search(search).keySet());
+
+    /*
+     * Results are the caller's to modify, and modifying them does not affect later searches.
+     */
+
+    inventory.search(search).clear();
+    Assertions.assertEquals(Set.of(HASH_VALUE), inventory.search(search).keySet());
+
+    inventory.delete(HASH_VALUE);
+
+    Assertions.assertEquals(0L, inventory.search(search).size());
+    Assertions.assertEquals(0L, inventory.search(search).size());
+  }
+
+  @Test
+  public final void testWriteSearchPage()
+    throws Exception
+  {
+    final var inventory = this.inventory(this.events, this.directory);
+
+    final var descriptions =
+      IntStream.rangeClosed(0, 4)
+        .mapToObj(minor -> {
+          final var versionName = String.format("11.0.%d", Integer.valueOf(minor));
+          return RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture("x64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hashOf(versionName)))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com"))
+            .setConfiguration(RuntimeConfiguration.JDK)
+            .setPlatform("linux")
+            .setVersion(RuntimeVersions.parse(versionName))
+            .setVm("hotspot")
+            .build();
+        })
+        .collect(Collectors.toList());
+
+    for (final var description : descriptions) {
+      inventory.write(description, stream -> {
+        stream.write(description.version().toExternalString().getBytes(UTF_8));
+      });
+    }
+
+    final var page0 =
+      inventory.searchPage(
+        CoffeePickSearchPageRequest.builder()
+          .setSearch(CoffeePickSearch.builder().build())
+          .setOrder(CoffeePickSearchOrder.VERSION_DESCENDING)
+          .setLimit(3)
+          .build());
+
+    Assertions.assertEquals(
+      List.of(descriptions.get(4), descriptions.get(3), descriptions.get(2)),
+      page0.runtimes());
+
+    final var page1 = inventory.searchPage(page0.next().orElseThrow());
+    Assertions.assertEquals(
+      List.of(descriptions.get(1), descriptions.get(0)),
+      page1.runtimes());
+    Assertions.assertEquals(Optional.empty(), page1.next());
+  }
+
+  @Test
+  public final void testWriteFacets()
+    throws Exception
+  {
+    final var inventory = this.inventory(this.events, this.directory);
+
+    final var descriptions =
+      IntStream.rangeClosed(0, 5)
+        .mapToObj(index -> {
+          final var versionName =
+            String.format("%d.0.%d", Integer.valueOf(index < 4 ? 11 : 17), Integer.valueOf(index));
+          return RuntimeDescription.builder()
+            .setRepository(URI.create("urn:example"))
+            .setArchitecture("x64")
+            .setArchiveHash(RuntimeHash.of("SHA-256", hashOf(versionName)))
+            .setArchiveSize(100L)
+            .setArchiveURI(URI.create("https://www.example.com"))
+            .setConfiguration(RuntimeConfiguration.JDK)
+            .setPlatform(index % 2 == 0 ? "linux" : "windows")
+            .setVersion(RuntimeVersions.parse(versionName))
+            .setVm("hotspot")
+            .setTags(index % 3 == 0 ? Set.of("production") : Set.of())
+            .build();
+        })
+        .collect(Collectors.toList());
+
+    for (final var description : descriptions) {
+      inventory.write(description, stream -> {
+        stream.write(description.version().toExternalString().getBytes(UTF_8));
+      });
+    }
+
+    final var all = inventory.facets(CoffeePickSearch.builder().build());
+    Assertions.assertEquals(6L, all.count());
+    Assertions.assertEquals(
+      Map.of("linux", Long.valueOf(3L), "windows", Long.valueOf(3L)),
+      all.platforms());
+    Assertions.assertEquals(Map.of("production", Long.valueOf(2L)), all.tags());
+    Assertions.assertEquals(
+      Map.of(BigInteger.valueOf(11L), Long.valueOf(4L), BigInteger.valueOf(17L), Long.valueOf(2L)),
+      all.majorVersions());
+
+    final var linux =
+      inventory.facets(CoffeePickSearch.builder().setPlatform("linux").build());
+    Assertions.assertEquals(3L, linux.count());
+    Assertions.assertEquals(Map.of("x64", Long.valueOf(3L)), linux.architectures());
+    Assertions.assertEquals(Map.of("production", Long.valueOf(1L)), linux.tags());
+
+    inventory.delete(descriptions.get(0).id());
+    Assertions.assertEquals(
+      Map.of("windows", Long.valueOf(3L), "linux", Long.valueOf(2L)),
+      inventory.facets(CoffeePickSearch.builder().build()).platforms());
+  }
+
   @Test
   public final void testWriteSearchDoesNotMatchVersion()
     throws Exception
@@ -393,6 +553,39 @@ public abstract class CoffeePickInventoryContract
       event.id());
   }
 
+  @Test
+  public final void testOpenFlatLayout()
+    throws Exception
+  {
+    final var description =
+      RuntimeDescription.builder()
+        .setRepository(URI.create("urn:example"))
+        .setArchitecture("x64")
+        .setArchiveHash(RuntimeHash.of("SHA-256", HASH_VALUE))
+        .setArchiveSize(100L)
+        .setArchiveURI(URI.create("https://www.example.com"))
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .setPlatform("linux")
+        .setVersion(RuntimeVersions.parse("11.0.1"))
+        .setVm("hotspot")
+        .build();
+
+    final var inventory0 = this.inventory(this.events, this.directory);
+    inventory0.write(
+      description,
+      stream -> stream.write("hello".getBytes(UTF_8)));
+
+    final var sharded = this.directory.resolve("2c").resolve("f2").resolve(HASH_VALUE);
+    final var flat = this.directory.resolve(HASH_VALUE);
+    Files.move(sharded, flat);
+
+    final var inventory1 = this.inventory(this.events, this.directory);
+    Assertions.assertEquals(Optional.of(description), inventory1.searchExact(HASH_VALUE));
+    Assertions.assertFalse(Files.exists(flat));
+    Assertions.assertTrue(Files.isDirectory(sharded));
+    Assertions.assertTrue(inventory1.verify(HASH_VALUE).isVerified());
+  }
+
   @Test
   public final void testVerify()
     throws Exception
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.coffeepick.tests.client.api;
+
+import com.io7m.coffeepick.api.CoffeePickSearch;
+import com.io7m.coffeepick.api.CoffeePickSearchPredicate;
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeVersionRange;
+import com.io7m.coffeepick.runtime.RuntimeVersions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiled search predicate tests.
+ */
+
+public final class CoffeePickSearchPredicateTest
+{
+  private static final RuntimeDescription RUNTIME =
+    RuntimeDescription.builder()
+      .setRepository(URI.create("urn:example"))
+      .setArchitecture("x64")
+      .setArchiveHash(RuntimeHash.of("SHA-256", "2cf24dba5fb0a30e26e83b2ac5b9e29e"))
+      .setArchiveSize(100L)
+      .setArchiveURI(URI.create("https://www.example.com/0"))
+      .setConfiguration(RuntimeConfiguration.JDK)
+      .setPlatform("linux")
+      .setVersion(RuntimeVersions.parse("11.0.1"))
+      .setVm("hotspot")
+      .setTags(Set.of("production", "lts"))
+      .build();
+
+  @Test
+  public void testEmptyMatchesEverything()
+  {
+    final var predicate = CoffeePickSearchPredicate.exact(CoffeePickSearch.builder().build());
+    Assertions.assertTrue(predicate.matchesEverything());
+    Assertions.assertTrue(predicate.test(RUNTIME));
+  }
+
+  @Test
+  public void testExact()
+  {
+    final var matching = List.of(
+      CoffeePickSearch.builder().setId(RUNTIME.id()).build(),
+      CoffeePickSearch.builder().setArchiveHash(RUNTIME.archiveHash()).build(),
+      CoffeePickSearch.builder().setArchiveSize(100L).build(),
+      CoffeePickSearch.builder().setArchiveURI(RUNTIME.archiveURI()).build(),
+      CoffeePickSearch.builder().setPlatform("linux").setArchitecture("x64").build(),
+      CoffeePickSearch.builder()
+        .setVm("hotspot")
+        .setConfiguration(RuntimeConfiguration.JDK)
+        .build(),
+      CoffeePickSearch.builder().setRepository("urn:example").build(),
+      CoffeePickSearch.builder().addRequiredTags("production", "lts").build(),
+      CoffeePickSearch.builder()
+        .setVersionRange(RuntimeVersionRange.of(
+          RuntimeVersions.parse("11.0.0"), false,
+          RuntimeVersions.parse("12.0.0"), true))
+        .build());
+
+    final var nonMatching = List.of(
+      CoffeePickSearch.builder().setId("abcd").build(),
+      CoffeePickSearch.builder().setArchiveSize(101L).build(),
+      CoffeePickSearch.builder().setPlatform("LINUX").build(),
+      CoffeePickSearch.builder().setPlatform("linux").setArchitecture("aarch64").build(),
+      CoffeePickSearch.builder().setConfiguration(RuntimeConfiguration.JRE).build(),
+      CoffeePickSearch.builder().setRepository("urn:other").build(),
+      CoffeePickSearch.builder().addRequiredTags("production", "ea").build(),
+      CoffeePickSearch.builder()
+        .setVersionRange(RuntimeVersionRange.of(
+          RuntimeVersions.parse("12.0.0"), false,
+          RuntimeVersions.parse("13.0.0"), true))
+        .build());
+
+    for (final var search : matching) {
+      final var predicate = CoffeePickSearchPredicate.exact(search);
+      Assertions.assertFalse(predicate.matchesEverything(), search.toString());
+      Assertions.assertTrue(predicate.test(RUNTIME), search.toString());
+    }
+    for (final var search : nonMatching) {
+      Assertions.assertFalse(
+        CoffeePickSearchPredicate.exact(search).test(RUNTIME),
+        search.toString());
+    }
+  }
+
+  @Test
+  public void testInexact()
+  {
+    final var matching = List.of(
+      CoffeePickSearch.builder().setId(RUNTIME.id().substring(4, 12).toUpperCase()).build(),
+      CoffeePickSearch.builder().setPlatform("LIN").setArchitecture("X6").build(),
+      CoffeePickSearch.builder().setVm("Spot").build(),
+      CoffeePickSearch.builder().setRepository("EXAMPLE").build());
+
+    final var nonMatching = List.of(
+      CoffeePickSearch.builder().setPlatform("win").build(),
+      CoffeePickSearch.builder()
+        .setPlatform("LIN")
+        .setConfiguration(RuntimeConfiguration.JRE)
+        .build(),
+      CoffeePickSearch.builder().setVm("openj9").build());
+
+    for (final var search : matching) {
+      Assertions.assertTrue(
+        CoffeePickSearchPredicate.inexact(search).test(RUNTIME),
+        search.toString());
+      Assertions.assertFalse(
+        CoffeePickSearchPredicate.exact(search).test(RUNTIME),
+        search.toString());
+    }
+    for (final var search : nonMatching) {
+      Assertions.assertFalse(
+        CoffeePickSearchPredicate.inexact(search).test(RUNTIME),
+        search.toString());
+    }
+  }
+}
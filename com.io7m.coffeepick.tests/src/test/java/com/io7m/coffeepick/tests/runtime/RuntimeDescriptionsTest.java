@@ -82,6 +82,35 @@ public final class RuntimeDescriptionsTest
     }
   }
 
+  @Test
+  public void testSharedValues()
+    throws Exception
+  {
+    try (var stream = resource("trivial.properties")) {
+      final var properties = new Properties();
+      properties.load(stream);
+
+      final var description_0 =
+        RuntimeDescriptions.parseFromProperties(properties);
+      final var description_1 =
+        RuntimeDescriptions.parseFromProperties(properties);
+
+      Assertions.assertEquals(description_0, description_1);
+      Assertions.assertSame(
+        description_0.architecture(), description_1.architecture());
+      Assertions.assertSame(
+        description_0.platform(), description_1.platform());
+      Assertions.assertSame(
+        description_0.vm(), description_1.vm());
+      Assertions.assertSame(
+        description_0.repository(), description_1.repository());
+      Assertions.assertSame(
+        description_0.version(), description_1.version());
+      Assertions.assertSame(
+        description_0.build().get(), description_1.build().get());
+    }
+  }
+
   @Test
   public void testMissingRuntimeVersion()
     throws Exception
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.coffeepick.tests.runtime;
+
+import com.io7m.coffeepick.runtime.RuntimeBuild;
+import com.io7m.coffeepick.runtime.RuntimeConfiguration;
+import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeInterner;
+import com.io7m.coffeepick.runtime.RuntimeVersion;
+import com.io7m.coffeepick.runtime.RuntimeVersions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+public final class RuntimeInternerTest
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RuntimeInternerTest.class);
+
+  private static final int DESCRIPTIONS = 50_000;
+
+  @Test
+  public void testVersionsCanonical()
+  {
+    final var version0 = RuntimeVersions.parse("11.0.2+9");
+    final var version1 = RuntimeVersions.parse("11.0.2+9");
+    Assertions.assertNotSame(version0, version1);
+
+    final var interned0 = RuntimeInterner.version(version0);
+    final var interned1 = RuntimeInterner.version(version1);
+    Assertions.assertEquals(version0, interned1);
+    Assertions.assertSame(interned0, interned1);
+  }
+
+  @Test
+  public void testDescriptionsShareComponents()
+  {
+    final var description0 = RuntimeInterner.description(description(0));
+    final var description1 = RuntimeInterner.description(description(20));
+
+    Assertions.assertEquals(description(0), description0);
+    Assertions.assertSame(description0.repository(), description1.repository());
+    Assertions.assertSame(description0.version(), description1.version());
+    Assertions.assertSame(description0.build().get(), description1.build().get());
+    Assertions.assertSame(description0.platform(), description1.platform());
+  }
+
+  @Test
+  public void testVersionsCanonicalConcurrent()
+    throws InterruptedException, ExecutionException
+  {
+    final var executor = Executors.newFixedThreadPool(8);
+    try {
+      final var futures = new ArrayList<Future<List<RuntimeVersion>>>();
+      for (var thread = 0; thread < 8; ++thread) {
+        futures.add(executor.submit(() -> {
+          final var results = new ArrayList<RuntimeVersion>(1000);
+          for (var index = 0; index < 1000; ++index) {
+            results.add(RuntimeInterner.version(RuntimeVersions.parse("17.0." + index % 10)));
+          }
+          return results;
+        }));
+      }
+
+      final var distinct =
+        Collections.newSetFromMap(new IdentityHashMap<RuntimeVersion, Boolean>());
+      for (final var future : futures) {
+        distinct.addAll(future.get());
+      }
+      Assertions.assertEquals(10, distinct.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Report the heap occupied per runtime description with and without interning. The
+   * measurement is coarse (it relies on the heap usage reported after a garbage collection), so
+   * the figures are only logged and nothing is asserted about them.
+   */
+
+  @Test
+  public void testHeapPerDescription()
+  {
+    final var plain =
+      bytesPerDescription(RuntimeInternerTest::description);
+    final var interned =
+      bytesPerDescription(index -> RuntimeInterner.description(description(index)));
+
+    LOG.info(
+      "heap per description: {} bytes plain, {} bytes interned",
+      Long.valueOf(plain),
+      Long.valueOf(interned));
+  }
+
+  private static long bytesPerDescription(
+    final IntFunction<RuntimeDescription> create)
+  {
+    final var before = heapUsed();
+    final var descriptions =
+      IntStream.range(0, DESCRIPTIONS)
+        .mapToObj(create)
+        .toArray(RuntimeDescription[]::new);
+    final var after = heapUsed();
+    Reference.reachabilityFence(descriptions);
+    return (after - before) / (long) DESCRIPTIONS;
+  }
+
+  private static long heapUsed()
+  {
+    final var memory = ManagementFactory.getMemoryMXBean();
+    for (var index = 0; index < 3; ++index) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * Create a description in which every component is a fresh instance, as a parser would
+   * produce. Descriptions share one of twenty versions and builds.
+   */
+
+  private static RuntimeDescription description(
+    final int index)
+  {
+    final var shared = index % 20;
+    return RuntimeDescription.builder()
+      .setConfiguration(RuntimeConfiguration.JDK)
+      .setRepository(URI.create(new String("urn:repository")))
+      .setVersion(RuntimeVersions.parse("11.0." + shared))
+      .setBuild(
+        RuntimeBuild.builder()
+          .setBuildNumber(Integer.toString(shared))
+          .setTime(OffsetDateTime.of(2020, 1, 1 + shared, 0, 0, 0, 0, ZoneOffset.UTC))
+          .build())
+      .setArchiveHash(RuntimeHash.of(new String("SHA-256"), String.format("%064x", index)))
+      .setArchitecture(new String("x64"))
+      .setPlatform(new String("linux"))
+      .setArchiveURI(URI.create("https://example.com/" + index))
+      .setArchiveSize(100L)
+      .setVm(new String("hotspot"))
+      .setTags(Set.of(new String("production")))
+      .build();
+  }
+}
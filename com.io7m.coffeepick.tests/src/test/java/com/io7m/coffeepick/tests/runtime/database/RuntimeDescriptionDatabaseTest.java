@@ -16,11 +16,18 @@
 
 package com.io7m.coffeepick.tests.runtime.database;
 
+import com.io7m.coffeepick.runtime.RuntimeBuild;
 import com.io7m.coffeepick.runtime.RuntimeConfiguration;
 import com.io7m.coffeepick.runtime.RuntimeDescription;
+import com.io7m.coffeepick.runtime.RuntimeDescriptionQuery;
+import com.io7m.coffeepick.runtime.RuntimeDescriptions;
 import com.io7m.coffeepick.runtime.RuntimeHash;
+import com.io7m.coffeepick.runtime.RuntimeVersionRange;
 import com.io7m.coffeepick.runtime.RuntimeVersions;
 import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabase;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseChange;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseConfiguration;
+import com.io7m.coffeepick.runtime.database.RuntimeDescriptionDatabaseRetentionPolicy;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +38,16 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public final class RuntimeDescriptionDatabaseTest
@@ -124,4 +141,802 @@ public final class RuntimeDescriptionDatabaseTest
     final var database1 = RuntimeDescriptionDatabase.open(this.directory);
     Assertions.assertEquals(0L, database1.descriptions().size());
   }
+
+  @Test
+  public void testTransactionReopen()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    Assertions.assertEquals(1L, database0.descriptions().size());
+
+    final var transaction = database0.transaction();
+    transaction.add(description1);
+    transaction.add(description2);
+    transaction.delete(description0.id());
+    Assertions.assertEquals(1L, database0.descriptions().size());
+
+    transaction.commit();
+    Assertions.assertEquals(2L, database0.descriptions().size());
+    Assertions.assertTrue(database0.descriptions().containsValue(description1));
+    Assertions.assertTrue(database0.descriptions().containsValue(description2));
+    Assertions.assertThrows(IllegalStateException.class, transaction::commit);
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(database0.updated(), database1.updated());
+  }
+
+  @Test
+  public void testCompactReopen()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setCompactionMinimumRecords(1L)
+        .build();
+
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    for (var index = 0; index < 10; ++index) {
+      database0.add(description0);
+      database0.add(description1);
+    }
+    database0.delete(description0.id());
+    database0.compact();
+    Assertions.assertEquals(1L, database0.descriptions().size());
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(database0.updated(), database1.updated());
+  }
+
+  @Test
+  public void testReopenTornTail()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    database0.add(description1);
+
+    final var journal = this.directory.resolve("journal");
+    final var data = Files.readAllBytes(journal);
+    Files.write(journal, Arrays.copyOf(data, data.length - 3));
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(1L, database1.descriptions().size());
+    Assertions.assertTrue(database1.descriptions().containsValue(description0));
+
+    database1.add(description1);
+    final var database2 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database2.descriptions());
+  }
+
+  @Test
+  public void testReopenAfterFailedAppend()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+
+    /*
+     * Simulate an append that failed part way by leaving a torn record at the end of the journal.
+     * The torn record is longer than the transactions that follow it. Transactions committed
+     * afterwards must not be lost when the journal is replayed.
+     */
+
+    final var journal = this.directory.resolve("journal");
+    final var torn = new byte[4096];
+    Arrays.fill(torn, (byte) 0x7f);
+    torn[0] = 0;
+    torn[1] = 0;
+    torn[2] = 0x10;
+    torn[3] = 0;
+    Files.write(journal, torn, StandardOpenOption.APPEND);
+
+    database0.add(description1);
+    database0.add(description2);
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(3L, database1.descriptions().size());
+  }
+
+  @Test
+  public void testOpenUnrecognizedHeader()
+    throws IOException
+  {
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description("abcd", "11.0.0"));
+
+    /*
+     * A journal with an unrecognized header is not opened, and is not discarded.
+     */
+
+    final var journal = this.directory.resolve("journal");
+    final var data = Files.readAllBytes(journal);
+    data[0] = (byte) 0xff;
+    Files.write(journal, data);
+
+    Assertions.assertThrows(
+      IOException.class,
+      () -> RuntimeDescriptionDatabase.open(this.directory));
+    Assertions.assertArrayEquals(data, Files.readAllBytes(journal));
+  }
+
+  @Test
+  public void testMigrateLegacy()
+    throws IOException
+  {
+    final var description = description("abcd", "11.0.0");
+    final var file = this.directory.resolve(description.id() + ".properties");
+    try (var output = Files.newOutputStream(file)) {
+      RuntimeDescriptions.serializeToProperties(description).store(output, "");
+    }
+    Files.writeString(this.directory.resolve("updated"), "2020-01-01T00:00:00Z");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(1L, database0.descriptions().size());
+    Assertions.assertTrue(database0.descriptions().containsValue(description));
+    Assertions.assertEquals(
+      OffsetDateTime.parse("2020-01-01T00:00:00Z"),
+      database0.updated().orElseThrow());
+    Assertions.assertFalse(Files.exists(file));
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+  }
+
+  @Test
+  public void testSnapshotReopen()
+    throws IOException
+  {
+    final var description0 =
+      RuntimeDescription.builder()
+        .from(description("abcd", "11.0.0+28"))
+        .setBuild(
+          RuntimeBuild.builder()
+            .setBuildNumber("28")
+            .setTime(OffsetDateTime.parse("2018-09-25T12:00:00+01:00"))
+            .build())
+        .addTags("production", "large-heap")
+        .build();
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    database0.add(description1);
+    database0.snapshot();
+    database0.add(description2);
+    database0.delete(description1.id());
+
+    Assertions.assertTrue(Files.isRegularFile(this.directory.resolve("snapshot")));
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(database0.updated(), database1.updated());
+  }
+
+  @Test
+  public void testSnapshotStale()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    database0.add(description1);
+    database0.snapshot();
+
+    final var snapshot = this.directory.resolve("snapshot");
+    final var snapshot_old = this.directory.resolve("snapshot.old");
+    Files.copy(snapshot, snapshot_old);
+
+    database0.delete(description0.id());
+    database0.compact();
+    Files.move(snapshot_old, snapshot, StandardCopyOption.REPLACE_EXISTING);
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(1, database1.descriptions().size());
+  }
+
+  @Test
+  public void testSnapshotCorrupted()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    database0.add(description1);
+    database0.snapshot();
+
+    final var snapshot = this.directory.resolve("snapshot");
+    final var data = Files.readAllBytes(snapshot);
+    data[data.length - 1] = (byte) (data[data.length - 1] ^ 0xff);
+    Files.write(snapshot, data);
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+  }
+
+  @Test
+  public void testLazyReopen()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setLazyDecoding(true)
+        .setLazyCacheSize(1)
+        .build();
+
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+    final var description3 = description("abc0", "11.0.3");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.add(description0);
+    database0.add(description1);
+    database0.add(description2);
+    database0.snapshot();
+    database0.delete(description1.id());
+    database0.add(description3);
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(3, database1.descriptions().size());
+    Assertions.assertEquals(description0, database1.descriptions().get(description0.id()));
+    Assertions.assertEquals(description2, database1.descriptions().get(description2.id()));
+    Assertions.assertEquals(description0, database1.descriptions().get(description0.id()));
+    Assertions.assertNull(database1.descriptions().get(description1.id()));
+
+    database1.delete(description0.id());
+    database1.add(description1);
+    database1.snapshot();
+    database1.delete(description2.id());
+    Assertions.assertEquals(2, database1.descriptions().size());
+
+    final var database2 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    Assertions.assertEquals(database1.descriptions(), database2.descriptions());
+    Assertions.assertEquals(database1.updated(), database2.updated());
+  }
+
+  @Test
+  public void testParallelReopen()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setLoadParallelism(4)
+        .build();
+
+    final var descriptions = new ArrayList<RuntimeDescription>();
+    for (var index = 0; index < 2000; ++index) {
+      descriptions.add(description(String.format("%08x", index), "11.0." + index));
+    }
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    database0.addAll(descriptions);
+    database0.snapshot();
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    Assertions.assertEquals(2000, database1.descriptions().size());
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+  }
+
+  @Test
+  public void testCommitUnchanged()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+    final var description1_changed =
+      RuntimeDescription.builder()
+        .from(description1)
+        .setArchiveSize(200L)
+        .build();
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    final var result0 =
+      database0.transaction()
+        .add(description0)
+        .add(description1)
+        .commit();
+
+    Assertions.assertEquals(2, result0.added());
+    Assertions.assertEquals(0, result0.changed());
+    Assertions.assertEquals(0, result0.unchanged());
+    Assertions.assertEquals(0, result0.removed());
+
+    final var journal = this.directory.resolve("journal");
+    final var size0 = Files.size(journal);
+
+    final var result1 =
+      database0.transaction()
+        .add(description0)
+        .add(description1)
+        .commit();
+
+    Assertions.assertEquals(0, result1.added());
+    Assertions.assertEquals(0, result1.changed());
+    Assertions.assertEquals(2, result1.unchanged());
+    Assertions.assertEquals(0, result1.removed());
+    Assertions.assertFalse(result1.isModified());
+
+    final var size1 = Files.size(journal);
+    Assertions.assertTrue(
+      size1 - size0 < 64L,
+      "Journal grew by " + (size1 - size0) + " octets");
+
+    final var result2 =
+      database0.transaction()
+        .add(description0)
+        .add(description1_changed)
+        .add(description2)
+        .delete("abc0")
+        .commit();
+
+    Assertions.assertEquals(1, result2.added());
+    Assertions.assertEquals(1, result2.changed());
+    Assertions.assertEquals(1, result2.unchanged());
+    Assertions.assertEquals(0, result2.removed());
+
+    final var result3 =
+      database0.transaction()
+        .delete(description0.id())
+        .commit();
+
+    Assertions.assertEquals(1, result3.removed());
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(database0.updated(), database1.updated());
+  }
+
+  @Test
+  public void testWriteBehindReopen()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setWriteBehind(true)
+        .setWriteBehindCapacity(2)
+        .build();
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    for (var index = 0; index < 100; ++index) {
+      final var description = description(String.format("%08x", index), "11.0." + index);
+      database0.add(description);
+      if (index % 3 == 0) {
+        database0.delete(description.id());
+      }
+    }
+
+    Assertions.assertEquals(66, database0.descriptions().size());
+    database0.flush();
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+
+    database0.delete(String.format("%08x", 1));
+    database0.close();
+
+    final var database2 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database2.descriptions());
+    Assertions.assertEquals(database0.updated(), database2.updated());
+  }
+
+  @Test
+  public void testWriteBehindCommitAfterClose()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setWriteBehind(true)
+        .setWriteBehindCapacity(1)
+        .build();
+
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    final var changes = new ArrayList<RuntimeDescriptionDatabaseChange>();
+    database0.changes().subscribe(changes::add);
+    database0.add(description0);
+    database0.close();
+
+    Assertions.assertThrows(IllegalStateException.class, () -> database0.add(description1));
+    Assertions.assertEquals(1, database0.descriptions().size());
+    Assertions.assertEquals(1, changes.size());
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+  }
+
+  @Test
+  public void testChanges()
+    throws IOException
+  {
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description1_changed =
+      RuntimeDescription.builder()
+        .from(description1)
+        .setArchiveSize(200L)
+        .build();
+
+    final var database = RuntimeDescriptionDatabase.open(this.directory);
+    final var changes = new ArrayList<RuntimeDescriptionDatabaseChange>();
+    final var completed = new ArrayList<Boolean>();
+    database.changes().subscribe(changes::add, e -> { }, () -> completed.add(Boolean.TRUE));
+
+    database.transaction()
+      .add(description0)
+      .add(description1)
+      .commit();
+
+    database.transaction()
+      .add(description0)
+      .commit();
+
+    database.transaction()
+      .add(description1_changed)
+      .delete(description0.id())
+      .commit();
+
+    database.close();
+
+    Assertions.assertEquals(2, changes.size());
+    Assertions.assertEquals(List.of(Boolean.TRUE), completed);
+
+    final var change0 = changes.get(0);
+    Assertions.assertEquals(2, change0.added().size());
+    Assertions.assertTrue(change0.added().contains(description0));
+    Assertions.assertTrue(change0.added().contains(description1));
+    Assertions.assertEquals(List.of(), change0.replaced());
+    Assertions.assertEquals(List.of(), change0.removed());
+
+    final var change1 = changes.get(1);
+    Assertions.assertEquals(List.of(), change1.added());
+    Assertions.assertEquals(List.of(description1_changed), change1.replaced());
+    Assertions.assertEquals(List.of(description0), change1.removed());
+    Assertions.assertEquals(Optional.of(change1.time()), database.updated());
+  }
+
+  @Test
+  public void testDescriptionsGenerations()
+    throws IOException
+  {
+    for (final var lazy : List.of(Boolean.FALSE, Boolean.TRUE)) {
+      final var directory = this.directory.resolve(lazy.toString());
+      final var configuration =
+        RuntimeDescriptionDatabaseConfiguration.builder()
+          .setLazyDecoding(lazy.booleanValue())
+          .build();
+
+      final var description0 = description("abcd", "11.0.0");
+      final var description1 = description("abce", "11.0.1");
+      final var description2 = description("abcf", "11.0.2");
+
+      final var database0 = RuntimeDescriptionDatabase.open(directory, configuration);
+      database0.addAll(List.of(description0, description1));
+      database0.snapshot();
+
+      final var database1 = RuntimeDescriptionDatabase.open(directory, configuration);
+      final var generation0 = database1.descriptions();
+
+      database1.transaction()
+        .add(description2)
+        .delete(description0.id())
+        .commit();
+
+      final var generation1 = database1.descriptions();
+
+      Assertions.assertEquals(2, generation0.size());
+      Assertions.assertEquals(description0, generation0.get(description0.id()));
+      Assertions.assertEquals(description1, generation0.get(description1.id()));
+      Assertions.assertNull(generation0.get(description2.id()));
+
+      Assertions.assertEquals(2, generation1.size());
+      Assertions.assertNull(generation1.get(description0.id()));
+      Assertions.assertEquals(description1, generation1.get(description1.id()));
+      Assertions.assertEquals(description2, generation1.get(description2.id()));
+      Assertions.assertEquals(2, List.copyOf(generation1.values()).size());
+
+      Assertions.assertThrows(
+        UnsupportedOperationException.class,
+        () -> generation1.put(description0.id(), description0));
+    }
+  }
+
+  @Test
+  public void testRetentionMaximumRuntimes()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setRetention(
+          RuntimeDescriptionDatabaseRetentionPolicy.builder()
+            .setMaximumRuntimes(2)
+            .build())
+        .build();
+
+    final var now = OffsetDateTime.now(ZoneId.of("UTC"));
+    final var description0 = descriptionBuilt("abcd", "11.0.0", now.minusDays(3L));
+    final var description1 = descriptionBuilt("abce", "11.0.1", now.minusDays(2L));
+    final var description2 = descriptionBuilt("abcf", "11.0.2", now.minusDays(1L));
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    database0.addAll(List.of(description0, description1));
+
+    final var result =
+      database0.transaction()
+        .add(description2)
+        .commit();
+
+    Assertions.assertEquals(1, result.added());
+    Assertions.assertEquals(1, result.evicted());
+    Assertions.assertEquals(2, database0.descriptions().size());
+    Assertions.assertFalse(database0.descriptions().containsKey(description0.id()));
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+  }
+
+  @Test
+  public void testRetentionMaximumAge()
+    throws IOException
+  {
+    final var now = OffsetDateTime.now(ZoneId.of("UTC"));
+    final var description0 = descriptionBuilt("abcd", "11.0.0", now.minusDays(30L));
+    final var description1 = descriptionBuilt("abce", "11.0.1", now.minusDays(1L));
+    final var description2 = description("abcf", "11.0.2");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.addAll(List.of(description0, description1, description2));
+    Assertions.assertEquals(3, database0.descriptions().size());
+
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setRetention(
+          RuntimeDescriptionDatabaseRetentionPolicy.builder()
+            .setMaximumAge(Duration.ofDays(7L))
+            .build())
+        .build();
+
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    Assertions.assertEquals(2, database1.descriptions().size());
+    Assertions.assertFalse(database1.descriptions().containsKey(description0.id()));
+    Assertions.assertTrue(database1.descriptions().containsKey(description2.id()));
+  }
+
+  @Test
+  public void testRetentionMaximumPerMajorVersion()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setRetention(
+          RuntimeDescriptionDatabaseRetentionPolicy.builder()
+            .setMaximumRuntimesPerMajorVersion(1)
+            .build())
+        .build();
+
+    final var now = OffsetDateTime.now(ZoneId.of("UTC"));
+    final var description0 = descriptionBuilt("abcd", "11.0.0", now.minusDays(3L));
+    final var description1 = descriptionBuilt("abce", "11.0.1", now.minusDays(2L));
+    final var description2 = descriptionBuilt("abcf", "17.0.0", now.minusDays(4L));
+
+    final var database = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    final var result =
+      database.transaction()
+        .add(description0)
+        .add(description1)
+        .add(description2)
+        .commit();
+
+    Assertions.assertEquals(3, result.added());
+    Assertions.assertEquals(1, result.evicted());
+    Assertions.assertEquals(2, database.descriptions().size());
+    Assertions.assertTrue(database.descriptions().containsKey(description1.id()));
+    Assertions.assertTrue(database.descriptions().containsKey(description2.id()));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> {
+      RuntimeDescriptionDatabaseRetentionPolicy.builder()
+        .setMaximumRuntimesPerMajorVersion(0)
+        .build();
+    });
+  }
+
+  @Test
+  public void testSharedRefresh()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setShared(true)
+        .setRefreshInterval(Duration.ofHours(1L))
+        .build();
+
+    final var description0 = description("abcd", "11.0.0");
+    final var description1 = description("abce", "11.0.1");
+    final var description2 = description("abcf", "11.0.2");
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+    final var changes = new ArrayList<RuntimeDescriptionDatabaseChange>();
+    database1.changes().subscribe(changes::add);
+
+    database0.addAll(List.of(description0, description1));
+    Assertions.assertEquals(0, database1.descriptions().size());
+
+    database1.refresh();
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(1, changes.size());
+    Assertions.assertEquals(2, changes.get(0).added().size());
+
+    database1.refresh();
+    Assertions.assertEquals(1, changes.size());
+
+    database1.add(description2);
+    database0.refresh();
+    Assertions.assertEquals(database1.descriptions(), database0.descriptions());
+
+    database0.delete(description0.id());
+    database0.compact();
+    database1.refresh();
+    Assertions.assertEquals(database0.descriptions(), database1.descriptions());
+    Assertions.assertEquals(List.of(description0), changes.get(changes.size() - 1).removed());
+
+    database1.add(description0);
+    database0.refresh();
+    Assertions.assertEquals(database1.descriptions(), database0.descriptions());
+
+    database0.close();
+    database1.close();
+
+    final var database2 = RuntimeDescriptionDatabase.open(this.directory);
+    Assertions.assertEquals(database1.descriptions(), database2.descriptions());
+  }
+
+  @Test
+  public void testSearchIndexed()
+    throws IOException
+  {
+    final var configuration =
+      RuntimeDescriptionDatabaseConfiguration.builder()
+        .setLazyDecoding(true)
+        .setLazyCacheSize(1)
+        .build();
+
+    final var description0 =
+      description("abcd", "11.0.0");
+    final var description1 =
+      RuntimeDescription.builder()
+        .from(description("abce", "17.0.1"))
+        .setPlatform("windows")
+        .build();
+    final var description2 =
+      RuntimeDescription.builder()
+        .from(description("abcf", "17.0.2"))
+        .setTags(Set.of("production"))
+        .build();
+    final var description3 =
+      RuntimeDescription.builder()
+        .from(description("abc0", "21.0.0"))
+        .setConfiguration(RuntimeConfiguration.JRE)
+        .setTags(Set.of("production"))
+        .build();
+
+    final var database0 = RuntimeDescriptionDatabase.open(this.directory);
+    database0.addAll(List.of(description0, description1, description2));
+    database0.snapshot();
+    database0.add(description3);
+    database0.close();
+
+    Assertions.assertTrue(Files.isRegularFile(this.directory.resolve("snapshot.index")));
+
+    final var linux =
+      RuntimeDescriptionQuery.builder()
+        .setPlatform("linux")
+        .build();
+    final var production =
+      RuntimeDescriptionQuery.builder()
+        .addRequiredTags("production")
+        .build();
+    final var version17 =
+      RuntimeDescriptionQuery.builder()
+        .setVersionRange(RuntimeVersionRange.of(
+          RuntimeVersions.parse("17.0.2"), false,
+          RuntimeVersions.parse("21.0.0"), true))
+        .build();
+    final var jre =
+      RuntimeDescriptionQuery.builder()
+        .setConfiguration(RuntimeConfiguration.JRE)
+        .setPlatform("linux")
+        .build();
+
+    for (var attempt = 0; attempt < 2; ++attempt) {
+      final var database1 = RuntimeDescriptionDatabase.open(this.directory, configuration);
+      Assertions.assertEquals(
+        Set.of(description0.id(), description2.id(), description3.id()),
+        database1.search(linux).keySet());
+      Assertions.assertEquals(
+        Set.of(description2.id(), description3.id()),
+        database1.search(production).keySet());
+      Assertions.assertEquals(
+        Set.of(description2.id()),
+        database1.search(version17).keySet());
+      Assertions.assertEquals(
+        Set.of(description3.id()),
+        database1.search(jre).keySet());
+      Assertions.assertEquals(
+        database1.descriptions(),
+        database1.search(RuntimeDescriptionQuery.builder().build()));
+
+      database1.delete(description2.id());
+      Assertions.assertEquals(
+        Set.of(description3.id()),
+        database1.search(production).keySet());
+      database1.add(description2);
+      database1.close();
+
+      /*
+       * A missing index must be rebuilt from the snapshot.
+       */
+
+      Files.deleteIfExists(this.directory.resolve("snapshot.index"));
+    }
+  }
+
+  private static RuntimeDescription descriptionBuilt(
+    final String hash,
+    final String version,
+    final OffsetDateTime time)
+  {
+    return RuntimeDescription.builder()
+      .from(description(hash, version))
+      .setBuild(
+        RuntimeBuild.builder()
+          .setBuildNumber(hash)
+          .setTime(time)
+          .build())
+      .build();
+  }
+
+  private static RuntimeDescription description(
+    final String hash,
+    final String version)
+  {
+    return RuntimeDescription.builder()
+      .setConfiguration(RuntimeConfiguration.JDK)
+      .setRepository(URI.create("urn:repository"))
+      .setVersion(RuntimeVersions.parse(version))
+      .setArchiveHash(RuntimeHash.of("SHA-256", hash))
+      .setArchitecture("x64")
+      .setPlatform("linux")
+      .setArchiveURI(URI.create("http://example.com/" + hash))
+      .setArchiveSize(100L)
+      .setVm("hotspot")
+      .build();
+  }
 }
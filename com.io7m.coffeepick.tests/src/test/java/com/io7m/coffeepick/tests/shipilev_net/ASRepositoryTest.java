@@ -18,6 +18,7 @@ package com.io7m.coffeepick.tests.shipilev_net;
 
 import com.io7m.coffeepick.repository.spi.RuntimeRepositoryContextType;
 import com.io7m.coffeepick.shipilev_net.ASRepositoryProvider;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -26,6 +27,8 @@ import java.io.IOException;
 import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.OptionalInt;
 
 public final class ASRepositoryTest
 {
@@ -54,4 +57,40 @@ public final class ASRepositoryTest
     final var repository = provider.openRepository(context);
     repository.update(() -> false);
   }
+
+  @Test
+  public void testUpdateRetention()
+    throws Exception
+  {
+    final var context = Mockito.mock(RuntimeRepositoryContextType.class);
+    Mockito.when(context.httpClient())
+      .thenReturn(HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build());
+    Mockito.when(context.cacheDirectory())
+      .thenReturn(this.directory);
+    Mockito.when(context.retainedRuntimesPerMajorVersion())
+      .thenReturn(OptionalInt.of(1));
+
+    final var provider = new ASRepositoryProvider();
+    final var repository = provider.openRepository(context);
+    repository.update(() -> false);
+
+    final var counts = new HashMap<String, Integer>();
+    for (final var runtime : repository.runtimes().values()) {
+      counts.merge(
+        String.join(
+          "/",
+          runtime.platform(),
+          runtime.architecture(),
+          runtime.version().major().toString()),
+        Integer.valueOf(1),
+        (x, y) -> Integer.valueOf(x.intValue() + y.intValue()));
+    }
+
+    Assertions.assertFalse(counts.isEmpty());
+    for (final var entry : counts.entrySet()) {
+      Assertions.assertEquals(1, entry.getValue().intValue(), entry.getKey());
+    }
+  }
 }